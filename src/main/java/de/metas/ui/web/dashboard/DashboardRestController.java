@@ -1,7 +1,11 @@
 package de.metas.ui.web.dashboard;
 
-import org.elasticsearch.client.Client;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -9,6 +13,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import de.metas.ui.web.config.WebConfig;
 import de.metas.ui.web.dashboard.json.JSONDashboard;
@@ -50,7 +55,7 @@ public class DashboardRestController
 	@Autowired
 	private UserDashboardRepository userDashboardRepo;
 	@Autowired
-	private Client elasticsearchClient;
+	private KPIDataProvider kpiDataProvider;
 
 	private JSONOptions newJSONOpts()
 	{
@@ -76,15 +81,49 @@ public class DashboardRestController
 
 	private final KPIDataResult getKPIData(final UserDashboardItem dashboardItem, final long fromMillis, final long toMillis, final boolean prettyValues)
 	{
-		final KPI kpi = dashboardItem.getKPI();
-		final TimeRange timeRange = dashboardItem.getTimeRangeDefaults().createTimeRange(fromMillis, toMillis);
+		return kpiDataProvider.getKPIData(dashboardItem, fromMillis, toMillis, prettyValues);
+	}
 
-		return KPIDataLoader.newInstance(elasticsearchClient, kpi)
-				.setTimeRange(timeRange)
-				.setFormatValues(prettyValues)
-				.retrieveData()
-				.setItemId(dashboardItem.getId());
+	/**
+	 * Loads the data of all given items concurrently and streams each item's {@link KPIDataResult} as soon as it's available, one JSON per line.
+	 */
+	private ResponseBodyEmitter streamKPIData(final Collection<UserDashboardItem> dashboardItems, final long fromMillis, final long toMillis, final boolean prettyValues)
+	{
+		final ResponseBodyEmitter emitter = new ResponseBodyEmitter((long)kpiDataProvider.getTimeoutMillis() + 5000);
+		kpiDataProvider.getKPIDataAsync(dashboardItems, fromMillis, toMillis, prettyValues,
+				result -> sendLine(emitter, result),
+				emitter::complete);
+		return emitter;
+	}
 
+	private static void sendLine(final ResponseBodyEmitter emitter, final KPIDataResult result)
+	{
+		// NOTE: we are sending from many threads, so make sure the result and its line separator are not interleaved with other results
+		synchronized (emitter)
+		{
+			try
+			{
+				emitter.send(result, MediaType.APPLICATION_JSON);
+				emitter.send("\n", MediaType.TEXT_PLAIN);
+			}
+			catch (final IOException ex)
+			{
+				throw new UncheckedIOException(ex);
+			}
+		}
+	}
+
+	@GetMapping("/kpis/data")
+	public ResponseBodyEmitter getKPIsData( //
+			@RequestParam(name = "fromMillis", required = false, defaultValue = "0") @ApiParam("interval rage start, in case of temporal data") final long fromMillis //
+			, @RequestParam(name = "toMillis", required = false, defaultValue = "0") @ApiParam("interval rage end, in case of temporal data") final long toMillis //
+			, @RequestParam(name = "prettyValues", required = false, defaultValue = "true") @ApiParam("if true, the server will format the values") final boolean prettyValues //
+	)
+	{
+		userSession.assertLoggedIn();
+
+		final UserDashboard userDashboard = userDashboardRepo.getUserDashboard();
+		return streamKPIData(userDashboard.getKPIItems(), fromMillis, toMillis, prettyValues);
 	}
 
 	@GetMapping("/kpis/{itemId}/data")
@@ -112,6 +151,19 @@ public class DashboardRestController
 		return JSONDashboard.of(userDashboard.getTargetIndicatorItems(), newJSONOpts());
 	}
 
+	@GetMapping("/targetIndicators/data")
+	public ResponseBodyEmitter getTargetIndicatorsData( //
+			@RequestParam(name = "fromMillis", required = false, defaultValue = "0") @ApiParam("interval rage start, in case of temporal data") final long fromMillis //
+			, @RequestParam(name = "toMillis", required = false, defaultValue = "0") @ApiParam("interval rage end, in case of temporal data") final long toMillis //
+			, @RequestParam(name = "prettyValues", required = false, defaultValue = "true") @ApiParam("if true, the server will format the values") final boolean prettyValues //
+	)
+	{
+		userSession.assertLoggedIn();
+
+		final UserDashboard userDashboard = userDashboardRepo.getUserDashboard();
+		return streamKPIData(userDashboard.getTargetIndicatorItems(), fromMillis, toMillis, prettyValues);
+	}
+
 	@GetMapping("/targetIndicators/{itemId}/data")
 	public KPIDataResult getTargetIndicatorData( //
 			@PathVariable final int itemId //
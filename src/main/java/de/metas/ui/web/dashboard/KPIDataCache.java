@@ -0,0 +1,201 @@
+package de.metas.ui.web.dashboard;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.util.Check;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import de.metas.logging.LogManager;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Caches {@link KPIDataResult}s, so the dashboard refreshes of many users are not hitting elasticsearch again and again for the same data.
+ *
+ * The results are cached by KPI, time range, format flag and the actual elasticsearch queries (which are already evaluated in user's context).
+ * Each result expires after KPI's poll interval (or after the default TTL if the KPI is not polled).
+ * In order to get cache hits for time ranges which are relative to "now", use {@link #createAlignedTimeRange(KPI, KPITimeRangeDefaults, long, long)}.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Component
+public class KPIDataCache
+{
+	private static final Logger logger = LogManager.getLogger(KPIDataCache.class);
+
+	private final int defaultTTLSec;
+
+	private final Cache<CacheKey, CachedResult> cache;
+
+	public KPIDataCache(
+			@Value("${metasfresh.webui.dashboard.kpi.cache.maxSize:1000}") final int maxSize,
+			@Value("${metasfresh.webui.dashboard.kpi.cache.defaultTTLSec:60}") final int defaultTTLSec)
+	{
+		this.defaultTTLSec = defaultTTLSec;
+
+		cache = CacheBuilder.newBuilder()
+				.maximumSize(maxSize)
+				// NOTE: the actual TTL is checked per entry, this is only to make sure the old entries are released
+				.expireAfterWrite(1, TimeUnit.HOURS)
+				.recordStats()
+				.build();
+
+		logger.info("maxSize={}, defaultTTLSec={}", maxSize, defaultTTLSec);
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("size", cache.size())
+				.add("stats", cache.stats())
+				.toString();
+	}
+
+	private long getTTLMillis(final KPI kpi)
+	{
+		final int ttlSec = kpi.getPollIntervalSec() > 0 ? kpi.getPollIntervalSec() : defaultTTLSec;
+		return TimeUnit.SECONDS.toMillis(Math.max(ttlSec, 0));
+	}
+
+	/**
+	 * Creates the time range for given (optional) <code>fromMillis</code> and <code>toMillis</code>.
+	 * <p>
+	 * If <code>toMillis</code> was not specified, i.e. it's calculated relative to "now", it's rounded up to a multiple of KPI's cache TTL.
+	 * That way, those time ranges are equal for the whole TTL, so they can be served from cache.
+	 * The bounds which were explicitly specified are never changed.
+	 */
+	public TimeRange createAlignedTimeRange(@NonNull final KPI kpi, @NonNull final KPITimeRangeDefaults timeRangeDefaults, final long fromMillis, final long toMillis)
+	{
+		final long ttlMillis = getTTLMillis(kpi);
+		if (ttlMillis <= 0 || toMillis > 0)
+		{
+			return timeRangeDefaults.createTimeRange(fromMillis, toMillis);
+		}
+
+		final long toMillisNotAligned = timeRangeDefaults.createTimeRange(fromMillis, toMillis).getToMillis();
+		final long remainderMillis = toMillisNotAligned % ttlMillis;
+		final long toMillisAligned = remainderMillis == 0 ? toMillisNotAligned : toMillisNotAligned - remainderMillis + ttlMillis;
+
+		// NOTE: in case fromMillis was not specified, it will be calculated relative to the aligned toMillis
+		return timeRangeDefaults.createTimeRange(fromMillis, toMillisAligned);
+	}
+
+	/* package */ KPIDataResult getOrLoad(
+			@NonNull final KPI kpi,
+			@NonNull final TimeRange timeRange,
+			final boolean formatValues,
+			@NonNull final List<String> esQueries,
+			@NonNull final Supplier<KPIDataResult> loader)
+	{
+		final long ttlMillis = getTTLMillis(kpi);
+		if (ttlMillis <= 0)
+		{
+			return loader.get();
+		}
+
+		final CacheKey key = new CacheKey(kpi.getId(), timeRange.getFromMillis(), timeRange.getToMillis(), formatValues, esQueries);
+		try
+		{
+			CachedResult cachedResult = cache.get(key, () -> CachedResult.of(loader.get(), ttlMillis));
+			if (cachedResult.isExpired())
+			{
+				// NOTE: invalidating only if it's the same (expired) entry, else somebody else already reloaded it
+				cache.asMap().remove(key, cachedResult);
+				cachedResult = cache.get(key, () -> CachedResult.of(loader.get(), ttlMillis));
+			}
+
+			return cachedResult.getResult();
+		}
+		catch (final ExecutionException | UncheckedExecutionException | ExecutionError ex)
+		{
+			// NOTE: propagate loader's exception as is, so callers can still handle specific exceptions (e.g. NoNodeAvailableException)
+			final Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+			Throwables.throwIfUnchecked(cause);
+			throw AdempiereException.wrapIfNeeded(cause);
+		}
+	}
+
+	public void invalidateKPI(final int kpiId)
+	{
+		cache.asMap().keySet().removeIf(key -> key.getKpiId() == kpiId);
+	}
+
+	public void reset()
+	{
+		cache.invalidateAll();
+	}
+
+	@lombok.Value
+	private static final class CacheKey
+	{
+		private final int kpiId;
+		private final long fromMillis;
+		private final long toMillis;
+		private final boolean formatValues;
+		private final List<String> esQueries;
+
+		private CacheKey(final int kpiId, final long fromMillis, final long toMillis, final boolean formatValues, final List<String> esQueries)
+		{
+			Check.assume(kpiId > 0, "kpiId > 0");
+			this.kpiId = kpiId;
+			this.fromMillis = fromMillis;
+			this.toMillis = toMillis;
+			this.formatValues = formatValues;
+			this.esQueries = ImmutableList.copyOf(esQueries);
+		}
+	}
+
+	@lombok.Value
+	private static final class CachedResult
+	{
+		public static CachedResult of(final KPIDataResult result, final long ttlMillis)
+		{
+			return new CachedResult(result, System.currentTimeMillis() + ttlMillis);
+		}
+
+		private final KPIDataResult result;
+		private final long expiresAtMillis;
+
+		public boolean isExpired()
+		{
+			return System.currentTimeMillis() > expiresAtMillis;
+		}
+	}
+}
@@ -13,6 +13,8 @@ import org.compiere.util.Env;
 import org.compiere.util.Evaluatee;
 import org.compiere.util.Evaluatees;
 import org.elasticsearch.action.admin.indices.get.GetIndexResponse;
+import org.elasticsearch.action.search.MultiSearchRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.IndicesAdminClient;
@@ -67,6 +69,7 @@ public class KPIDataLoader
 	private List<TimeRange> timeRanges;
 
 	private boolean formatValues = false;
+	private KPIDataCache cache = null;
 
 	private BiFunction<KPIField, TimeRange, String> fieldNameExtractor = (field, timeRange) -> field.getFieldName();
 	private BiFunction<Bucket, TimeRange, Object> dataSetValueKeyExtractor = (bucket, timeRange) -> bucket.getKey();
@@ -146,6 +149,15 @@ public class KPIDataLoader
 		return formatValues;
 	}
 
+	/**
+	 * @param cache cache to be used when retrieving the data; if null, the data will be always retrieved from elasticsearch
+	 */
+	public KPIDataLoader setCache(final KPIDataCache cache)
+	{
+		this.cache = cache;
+		return this;
+	}
+
 	/**
 	 * Checks if KPI's elasticsearch Index and Type exists
 	 */
@@ -184,29 +196,53 @@ public class KPIDataLoader
 	}
 
 	public KPIDataResult retrieveData()
+	{
+		logger.trace("Retrieving data for {}, range={}", kpi, mainTimeRange);
+
+		//
+		// Resolve the queries for all time ranges
+		final List<String> esQueries = timeRanges.stream()
+				.map(this::buildQuery)
+				.collect(ImmutableList.toImmutableList());
+
+		if (cache == null)
+		{
+			return retrieveData(esQueries);
+		}
+		else
+		{
+			return cache.getOrLoad(kpi, mainTimeRange, isFormatValues(), esQueries, () -> retrieveData(esQueries));
+		}
+	}
+
+	private KPIDataResult retrieveData(final List<String> esQueries)
 	{
 		final Stopwatch duration = Stopwatch.createStarted();
 
-		logger.trace("Retrieving data for {}, range={}", kpi, mainTimeRange);
 		final KPIDataResult.Builder data = KPIDataResult.builder()
 				.setRange(mainTimeRange);
 
-		timeRanges.forEach(timeRange -> loadData(data, timeRange));
+		//
+		// Execute the queries for all time ranges in one go
+		final List<SearchResponse> responses = executeQueries(esQueries);
+
+		for (int i = 0; i < timeRanges.size(); i++)
+		{
+			loadData(data, timeRanges.get(i), esQueries.get(i), responses.get(i));
+		}
 
 		return data
 				.setTook(duration.stop())
 				.build();
 	}
 
-	private void loadData(final KPIDataResult.Builder data, final TimeRange timeRange)
+	private String buildQuery(final TimeRange timeRange)
 	{
-		logger.trace("Loading data for {}", timeRange);
-
 		//
 		// Create query evaluation context
 		final Evaluatee evalCtx = Evaluatees.mapBuilder()
-				.put("MainFromMillis", data.getRange().getFromMillis())
-				.put("MainToMillis", data.getRange().getToMillis())
+				.put("MainFromMillis", mainTimeRange.getFromMillis())
+				.put("MainToMillis", mainTimeRange.getToMillis())
 				.put("FromMillis", timeRange.getFromMillis())
 				.put("ToMillis", timeRange.getToMillis())
 				.build()
@@ -216,33 +252,62 @@ public class KPIDataLoader
 		//
 		// Resolve esQuery's variables
 		final IStringExpression esQuery = kpi.getESQuery();
-		final String esQueryParsed = esQuery.evaluate(evalCtx, OnVariableNotFound.Preserve);
+		return esQuery.evaluate(evalCtx, OnVariableNotFound.Preserve);
+	}
 
-		//
-		// Execute the query
-		final SearchResponse response;
+	private List<SearchResponse> executeQueries(final List<String> esQueries)
+	{
 		try
 		{
-			logger.trace("Executing: \n{}", esQueryParsed);
+			final MultiSearchRequestBuilder multiSearch = elasticsearchClient.prepareMultiSearch();
+			for (final String esQueryParsed : esQueries)
+			{
+				logger.trace("Executing: \n{}", esQueryParsed);
+
+				multiSearch.add(elasticsearchClient.prepareSearch(kpi.getESSearchIndex())
+						.setTypes(kpi.getESSearchTypes())
+						.setSource(esQueryParsed)
+				// .setExplain(true) // enable it only for debugging
+				);
+			}
 
-			response = elasticsearchClient.prepareSearch(kpi.getESSearchIndex())
-					.setTypes(kpi.getESSearchTypes())
-					.setSource(esQueryParsed)
-					// .setExplain(true) // enable it only for debugging
-					.get();
+			final MultiSearchResponse.Item[] items = multiSearch.get().getResponses();
 
-			logger.trace("Got response: \n{}", response);
+			final ImmutableList.Builder<SearchResponse> responses = ImmutableList.builder();
+			for (int i = 0; i < items.length; i++)
+			{
+				final MultiSearchResponse.Item item = items[i];
+				if (item.isFailure())
+				{
+					throw new AdempiereException("Failed executing query for " + this + ": " + item.getFailureMessage()
+							+ "\nQuery: " + esQueries.get(i));
+				}
+
+				final SearchResponse response = item.getResponse();
+				logger.trace("Got response: \n{}", response);
+				responses.add(response);
+			}
+			return responses.build();
 		}
 		catch (final NoNodeAvailableException e)
 		{
 			// elastic search transport error => nothing to do about it
 			throw e;
 		}
+		catch (final AdempiereException e)
+		{
+			throw e;
+		}
 		catch (final Exception e)
 		{
 			throw new AdempiereException("Failed executing query for " + this + ": " + e.getLocalizedMessage()
-					+ "\nQuery: " + esQueryParsed, e);
+					+ "\nQueries: " + esQueries, e);
 		}
+	}
+
+	private void loadData(final KPIDataResult.Builder data, final TimeRange timeRange, final String esQueryParsed, final SearchResponse response)
+	{
+		logger.trace("Loading data for {}", timeRange);
 
 		//
 		// Fetch data
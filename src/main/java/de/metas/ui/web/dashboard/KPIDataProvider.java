@@ -0,0 +1,314 @@
+package de.metas.ui.web.dashboard;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.compiere.util.Env;
+import org.elasticsearch.client.Client;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+
+import de.metas.logging.LogManager;
+import lombok.Builder;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Loads the {@link KPIDataResult}s of {@link UserDashboardItem}s, one by one or many of them concurrently.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Component
+public class KPIDataProvider
+{
+	private static final Logger logger = LogManager.getLogger(KPIDataProvider.class);
+
+	@Autowired
+	private Client elasticsearchClient;
+	@Autowired
+	private KPIDataCache kpiDataCache;
+
+	private final ExecutorService executor;
+	private final ScheduledExecutorService timeoutScheduler;
+	private final int timeoutMillis;
+
+	private final ConcurrentHashMap<Integer, KPILoadCounters> loadCountersByKPIId = new ConcurrentHashMap<>();
+
+	public KPIDataProvider(
+			@Value("${metasfresh.webui.dashboard.kpi.batch.threads:8}") final int threads,
+			@Value("${metasfresh.webui.dashboard.kpi.batch.queueCapacity:200}") final int queueCapacity,
+			@Value("${metasfresh.webui.dashboard.kpi.batch.timeoutMillis:30000}") final int timeoutMillis)
+	{
+		// NOTE: bounded queue, so when the KPIs are slower than the requests, we fail fast instead of piling up work which would time out anyway
+		executor = new ThreadPoolExecutor(threads, threads,
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				CustomizableThreadFactory.builder()
+						.setThreadNamePrefix(getClass().getName())
+						.setDaemon(true)
+						.build());
+
+		timeoutScheduler = Executors.newSingleThreadScheduledExecutor(CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(getClass().getName() + "-timeout")
+				.setDaemon(true)
+				.build());
+
+		this.timeoutMillis = timeoutMillis;
+
+		logger.info("threads={}, queueCapacity={}, timeoutMillis={}", threads, queueCapacity, timeoutMillis);
+	}
+
+	@PreDestroy
+	private void shutdown()
+	{
+		executor.shutdownNow();
+		timeoutScheduler.shutdownNow();
+	}
+
+	public int getTimeoutMillis()
+	{
+		return timeoutMillis;
+	}
+
+	public KPIDataResult getKPIData(@NonNull final UserDashboardItem dashboardItem, final long fromMillis, final long toMillis, final boolean prettyValues)
+	{
+		final KPI kpi = dashboardItem.getKPI();
+		final KPILoadCounters counters = getLoadCounters(kpi);
+
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		try
+		{
+			final TimeRange timeRange = kpiDataCache.createAlignedTimeRange(kpi, dashboardItem.getTimeRangeDefaults(), fromMillis, toMillis);
+
+			final KPIDataResult result = KPIDataLoader.newInstance(elasticsearchClient, kpi)
+					.setTimeRange(timeRange)
+					.setFormatValues(prettyValues)
+					.setCache(kpiDataCache)
+					.retrieveData()
+					.withItemId(dashboardItem.getId());
+
+			counters.loaded(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+			return result;
+		}
+		catch (final RuntimeException ex)
+		{
+			counters.failed();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Loads the data of given dashboard items concurrently.
+	 *
+	 * Each item's result is passed to <code>resultConsumer</code> as soon as it's available.
+	 * If the data of an item could not be loaded, it took longer than the configured timeout (counted from when its loading started)
+	 * or there are too many items waiting to be loaded, an error result ({@link KPIDataResult#error(int, String)}) is passed instead.
+	 * After all items were reported, <code>onComplete</code> is called.
+	 *
+	 * NOTE: the <code>resultConsumer</code> might be called concurrently, from different threads.
+	 */
+	public void getKPIDataAsync(
+			@NonNull final Collection<UserDashboardItem> dashboardItems,
+			final long fromMillis,
+			final long toMillis,
+			final boolean prettyValues,
+			@NonNull final Consumer<KPIDataResult> resultConsumer,
+			@NonNull final Runnable onComplete)
+	{
+		final List<UserDashboardItem> dashboardItemsList = ImmutableList.copyOf(dashboardItems);
+		if (dashboardItemsList.isEmpty())
+		{
+			onComplete.run();
+			return;
+		}
+
+		// NOTE: the data is loaded on other threads, so we have to pass them the current user's context
+		final Properties ctx = Env.copyCtx(Env.getCtx());
+
+		final AtomicInteger remainingCount = new AtomicInteger(dashboardItemsList.size());
+		for (final UserDashboardItem dashboardItem : dashboardItemsList)
+		{
+			final AtomicBoolean reported = new AtomicBoolean(false);
+			final Consumer<KPIDataResult> reportOnce = result -> {
+				if (!reported.compareAndSet(false, true))
+				{
+					return;
+				}
+
+				try
+				{
+					resultConsumer.accept(result);
+				}
+				catch (final Exception ex)
+				{
+					logger.warn("Failed reporting {}. Ignored.", result, ex);
+				}
+
+				if (remainingCount.decrementAndGet() == 0)
+				{
+					onComplete.run();
+				}
+			};
+
+			final AtomicReference<Future<?>> futureRef = new AtomicReference<>();
+			final FutureTask<?> future = new FutureTask<>(() -> {
+				// NOTE: start counting the timeout only now, so the time spent waiting in queue is not counted
+				final ScheduledFuture<?> timeout = timeoutScheduler.schedule(() -> {
+					final Future<?> self = futureRef.get();
+					if (self.isDone())
+					{
+						return;
+					}
+
+					self.cancel(true);
+					getLoadCounters(dashboardItem.getKPI()).timedOut();
+					reportOnce.accept(KPIDataResult.error(dashboardItem.getId(), "Timeout after " + timeoutMillis + "ms"));
+				}, timeoutMillis, TimeUnit.MILLISECONDS);
+
+				try (final IAutoCloseable ctxRestorer = Env.switchContext(ctx))
+				{
+					reportOnce.accept(getKPIData(dashboardItem, fromMillis, toMillis, prettyValues));
+				}
+				catch (final Exception ex)
+				{
+					logger.warn("Failed loading data for {}", dashboardItem, ex);
+					reportOnce.accept(KPIDataResult.error(dashboardItem.getId(), ex.getLocalizedMessage()));
+				}
+				finally
+				{
+					timeout.cancel(false);
+				}
+			}, null);
+			futureRef.set(future);
+
+			try
+			{
+				executor.execute(future);
+			}
+			catch (final RejectedExecutionException ex)
+			{
+				logger.warn("Too many KPIs are waiting to be loaded. Skip loading data for {}", dashboardItem);
+				getLoadCounters(dashboardItem.getKPI()).failed();
+				reportOnce.accept(KPIDataResult.error(dashboardItem.getId(), "Too many requests, please try again later"));
+			}
+		}
+	}
+
+	private KPILoadCounters getLoadCounters(final KPI kpi)
+	{
+		return loadCountersByKPIId.computeIfAbsent(kpi.getId(), KPILoadCounters::new);
+	}
+
+	public List<KPILoadStats> getLoadStats()
+	{
+		return loadCountersByKPIId.values()
+				.stream()
+				.map(KPILoadCounters::toStats)
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	private static final class KPILoadCounters
+	{
+		private final int kpiId;
+		private final AtomicLong loadCount = new AtomicLong();
+		private final AtomicLong loadTotalMillis = new AtomicLong();
+		private final AtomicLong loadMaxMillis = new AtomicLong();
+		private final AtomicLong errorCount = new AtomicLong();
+		private final AtomicLong timeoutCount = new AtomicLong();
+
+		private KPILoadCounters(final int kpiId)
+		{
+			this.kpiId = kpiId;
+		}
+
+		public void loaded(final long millis)
+		{
+			loadCount.incrementAndGet();
+			loadTotalMillis.addAndGet(millis);
+			loadMaxMillis.accumulateAndGet(millis, Math::max);
+		}
+
+		public void failed()
+		{
+			errorCount.incrementAndGet();
+		}
+
+		public void timedOut()
+		{
+			timeoutCount.incrementAndGet();
+		}
+
+		public KPILoadStats toStats()
+		{
+			final long loadCount = this.loadCount.get();
+			return KPILoadStats.builder()
+					.kpiId(kpiId)
+					.loadCount(loadCount)
+					.loadAvgMillis(loadCount > 0 ? loadTotalMillis.get() / loadCount : 0)
+					.loadMaxMillis(loadMaxMillis.get())
+					.errorCount(errorCount.get())
+					.timeoutCount(timeoutCount.get())
+					.build();
+		}
+	}
+
+	@lombok.Value
+	@Builder
+	public static final class KPILoadStats
+	{
+		private final int kpiId;
+		private final long loadCount;
+		private final long loadAvgMillis;
+		private final long loadMaxMillis;
+		private final long errorCount;
+		private final long timeoutCount;
+	}
+}
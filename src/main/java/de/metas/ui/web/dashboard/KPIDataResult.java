@@ -40,12 +40,20 @@ public class KPIDataResult
 		return new Builder();
 	}
 
+	/**
+	 * @return result which is reporting that the data for given dashboard item could not be loaded
+	 */
+	public static KPIDataResult error(final int itemId, final String errorMessage)
+	{
+		return new KPIDataResult(itemId, errorMessage);
+	}
+
 	@JsonProperty("took")
 	private final String took;
 
 	@JsonProperty("itemId")
 	@JsonInclude(JsonInclude.Include.NON_NULL)
-	private Integer itemId;
+	private final Integer itemId;
 
 	@JsonProperty("range")
 	@JsonInclude(JsonInclude.Include.NON_NULL)
@@ -54,12 +62,36 @@ public class KPIDataResult
 	@JsonProperty("datasets")
 	private final List<KPIDataSet> datasets;
 
+	@JsonProperty("error")
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private final String error;
+
 	private KPIDataResult(final Builder builder)
 	{
 		took = builder.took;
+		itemId = null;
 
 		range = builder.range;
 		datasets = ImmutableList.copyOf(builder.datasets.values());
+		error = null;
+	}
+
+	private KPIDataResult(final int itemId, final String error)
+	{
+		took = null;
+		this.itemId = itemId;
+		range = null;
+		datasets = ImmutableList.of();
+		this.error = error;
+	}
+
+	private KPIDataResult(final KPIDataResult from, final Integer itemId)
+	{
+		took = from.took;
+		this.itemId = itemId;
+		range = from.range;
+		datasets = from.datasets;
+		error = from.error;
 	}
 
 	public List<KPIDataSet> getData()
@@ -67,10 +99,16 @@ public class KPIDataResult
 		return datasets;
 	}
 
-	public KPIDataResult setItemId(final int itemId)
+	/**
+	 * @return a copy of this result, having the given itemId. This instance is not changed because it might be cached and shared.
+	 */
+	public KPIDataResult withItemId(final int itemId)
 	{
-		this.itemId = itemId;
-		return this;
+		if (this.itemId != null && this.itemId == itemId)
+		{
+			return this;
+		}
+		return new KPIDataResult(this, itemId);
 	}
 
 	public static final class Builder
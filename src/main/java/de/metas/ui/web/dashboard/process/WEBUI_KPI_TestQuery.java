@@ -18,6 +18,7 @@ import de.metas.process.ProcessPreconditionsResolution;
 import de.metas.ui.web.WebRestApiApplication;
 import de.metas.ui.web.base.model.I_WEBUI_KPI;
 import de.metas.ui.web.dashboard.KPI;
+import de.metas.ui.web.dashboard.KPIDataCache;
 import de.metas.ui.web.dashboard.KPIDataLoader;
 import de.metas.ui.web.dashboard.KPIDataResult;
 import de.metas.ui.web.dashboard.TimeRange;
@@ -65,6 +66,8 @@ public class WEBUI_KPI_TestQuery extends JavaProcess implements IProcessPrecondi
 	private ObjectMapper jsonObjectMapper;
 	@Autowired
 	private Client elasticsearchClient;
+	@Autowired
+	private KPIDataCache kpiDataCache;
 
 	@Param(parameterName = "DateFrom")
 	private Date p_DateFrom;
@@ -86,6 +89,7 @@ public class WEBUI_KPI_TestQuery extends JavaProcess implements IProcessPrecondi
 		}
 
 		userDashboardRepo.invalidateKPI(kpiId);
+		kpiDataCache.invalidateKPI(kpiId);
 
 		final KPI kpi = userDashboardRepo.getKPI(kpiId);
 		final TimeRange timeRange = kpi.getTimeRangeDefaults().createTimeRange(p_DateFrom, p_DateTo);
@@ -47,12 +47,18 @@ import de.metas.ui.web.config.WebConfig;
 import de.metas.ui.web.exceptions.EntityNotFoundException;
 import de.metas.ui.web.menu.MenuTreeRepository;
 import de.metas.ui.web.notification.UserNotification;
+import de.metas.ui.web.dashboard.KPIDataCache;
+import de.metas.ui.web.dashboard.KPIDataProvider;
 import de.metas.ui.web.notification.UserNotification.TargetType;
 import de.metas.ui.web.process.ProcessRestController;
 import de.metas.ui.web.session.UserSession;
+import de.metas.ui.web.view.DefaultView;
 import de.metas.ui.web.view.IViewsRepository;
 import de.metas.ui.web.view.ViewResult;
+import de.metas.ui.web.view.ViewSelectionsReclaimer;
+import de.metas.ui.web.view.event.ViewChangesWebsocketSender;
 import de.metas.ui.web.view.json.JSONViewResult;
+import de.metas.ui.web.websocket.WebSocketProducersRegistry;
 import de.metas.ui.web.window.WindowConstants;
 import de.metas.ui.web.window.datatypes.WindowId;
 import de.metas.ui.web.window.model.DocumentCollection;
@@ -101,6 +107,10 @@ public class DebugRestController
 	@Lazy
 	private IViewsRepository viewsRepo;
 
+	@Autowired
+	@Lazy
+	private ViewSelectionsReclaimer viewSelectionsReclaimer;
+
 	@Autowired
 	@Lazy
 	private ProcessRestController processesController;
@@ -113,6 +123,22 @@ public class DebugRestController
 	@Lazy
 	private SimpMessagingTemplate websocketMessagingTemplate;
 
+	@Autowired
+	@Lazy
+	private WebSocketProducersRegistry websocketProducersRegistry;
+
+	@Autowired
+	@Lazy
+	private ViewChangesWebsocketSender viewChangesWebsocketSender;
+
+	@Autowired
+	@Lazy
+	private KPIDataProvider kpiDataProvider;
+
+	@Autowired
+	@Lazy
+	private KPIDataCache kpiDataCache;
+
 	@RequestMapping(value = "/cacheReset", method = RequestMethod.GET)
 	public void cacheReset()
 	{
@@ -174,6 +200,58 @@ public class DebugRestController
 				.collect(GuavaCollectors.toImmutableList());
 	}
 
+	@RequestMapping(value = "/views/recordsChangedStats", method = RequestMethod.GET)
+	public List<String> getViewsRecordsChangedStats()
+	{
+		return viewsRepo.getRecordsChangedStats()
+				.stream()
+				.map(stats -> stats.toString())
+				.collect(GuavaCollectors.toImmutableList());
+	}
+
+	@RequestMapping(value = "/views/pageCacheStats", method = RequestMethod.GET)
+	public List<String> getViewsPageCacheStats()
+	{
+		return viewsRepo.getViews()
+				.stream()
+				.filter(view -> view instanceof DefaultView)
+				.map(view -> view.getViewId().getViewId() + ": " + ((DefaultView)view).getPageCacheStats())
+				.collect(GuavaCollectors.toImmutableList());
+	}
+
+	@RequestMapping(value = "/views/selectionsReclaimer/stats", method = RequestMethod.GET)
+	public String getViewSelectionsReclaimerStats()
+	{
+		return viewSelectionsReclaimer.getStats().toString();
+	}
+
+	@RequestMapping(value = "/websocket/producers/stats", method = RequestMethod.GET)
+	public List<String> getWebsocketProducersStats()
+	{
+		return websocketProducersRegistry.getStats()
+				.stream()
+				.map(stats -> stats.toString())
+				.collect(GuavaCollectors.toImmutableList());
+	}
+
+	@RequestMapping(value = "/websocket/viewChanges/stats", method = RequestMethod.GET)
+	public String getWebsocketViewChangesStats()
+	{
+		return viewChangesWebsocketSender.getStats().toString();
+	}
+
+	@RequestMapping(value = "/dashboard/kpiStats", method = RequestMethod.GET)
+	public List<String> getDashboardKPIStats()
+	{
+		final List<String> result = new ArrayList<>();
+		result.add(kpiDataCache.toString());
+		kpiDataProvider.getLoadStats()
+				.stream()
+				.map(stats -> stats.toString())
+				.forEach(result::add);
+		return result;
+	}
+
 	@RequestMapping(value = "/lookups/cacheStats", method = RequestMethod.GET)
 	public List<String> getLookupCacheStats()
 	{
@@ -183,6 +261,15 @@ public class DebugRestController
 				.collect(GuavaCollectors.toImmutableList());
 	}
 
+	@RequestMapping(value = "/documents/cacheStats", method = RequestMethod.GET)
+	public List<String> getDocumentsCacheStats()
+	{
+		return documentCollection.getCacheStats()
+				.stream()
+				.map(stats -> stats.toString())
+				.collect(GuavaCollectors.toImmutableList());
+	}
+
 	@RequestMapping(value = "/eventBus/postEvent", method = RequestMethod.GET)
 	public void postEvent(
 			@RequestParam(name = "topicName", defaultValue = "de.metas.event.GeneralNotifications") final String topicName //
@@ -1,6 +1,7 @@
 package de.metas.ui.web.devices;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
@@ -71,6 +72,35 @@ public final class JSONDeviceValueChangedEvent implements Serializable
 				.toString();
 	}
 
+	/**
+	 * NOTE: {@link #timestampMillis} is not considered, so two events having the same device value are considered equal.
+	 */
+	@Override
+	public int hashCode()
+	{
+		return Objects.hash(deviceId, value);
+	}
+
+	/**
+	 * NOTE: {@link #timestampMillis} is not considered, so two events having the same device value are considered equal.
+	 */
+	@Override
+	public boolean equals(final Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+		if (!(obj instanceof JSONDeviceValueChangedEvent))
+		{
+			return false;
+		}
+
+		final JSONDeviceValueChangedEvent other = (JSONDeviceValueChangedEvent)obj;
+		return Objects.equals(deviceId, other.deviceId)
+				&& Objects.equals(value, other.value);
+	}
+
 	public String getDeviceId()
 	{
 		return deviceId;
@@ -12,6 +12,7 @@ import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
 
 import de.metas.ui.web.document.filter.DocumentFilterParam.Operator;
+import lombok.EqualsAndHashCode;
 import lombok.NonNull;
 
 /*
@@ -37,6 +38,7 @@ import lombok.NonNull;
  */
 
 @Immutable
+@EqualsAndHashCode // required for sharing view selections
 public final class DocumentFilter
 {
 	public static final Builder builder()
@@ -1,5 +1,7 @@
 package de.metas.ui.web.handlingunits;
 
+import java.util.Collection;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.adempiere.ad.trx.api.ITrx;
@@ -8,6 +10,8 @@ import org.adempiere.util.Services;
 import org.adempiere.util.lang.ExtendedMemorizingSupplier;
 import org.compiere.util.Env;
 
+import com.google.common.collect.ImmutableSet;
+
 import de.metas.handlingunits.IHandlingUnitsBL;
 import de.metas.handlingunits.attribute.IHUAttributesDAO;
 import de.metas.handlingunits.attribute.impl.HUAttributesDAO;
@@ -124,6 +128,18 @@ public class HUEditorRowAttributesProvider implements IViewRowAttributesProvider
 		return huAttributeStorageFactory;
 	}
 
+	/** Destroys the attribute documents of given HUs, so they will be created again on demand. */
+	public void invalidate(final Collection<Integer> huIds)
+	{
+		if (huIds == null || huIds.isEmpty())
+		{
+			return;
+		}
+
+		final Set<DocumentId> huIdsToInvalidate = huIds.stream().map(this::createAttributeKey).collect(ImmutableSet.toImmutableSet());
+		rowAttributesByKey.keySet().removeIf(key -> huIdsToInvalidate.contains(key.getHuId()));
+	}
+
 	@Override
 	public void invalidateAll()
 	{
@@ -208,6 +208,12 @@ public class HUEditorView implements IView
 		invalidateAllNoNotify();
 	}
 
+	@Override
+	public Set<String> getSelectionIds()
+	{
+		return rowsBuffer.getSelectionIds();
+	}
+
 	@Override
 	public int getQueryLimit()
 	{
@@ -318,10 +324,7 @@ public class HUEditorView implements IView
 
 	public void addHUsAndInvalidate(final Collection<I_M_HU> husToAdd)
 	{
-		if (rowsBuffer.addHUIds(extractHUIds(husToAdd)))
-		{
-			invalidateAll();
-		}
+		addHUIdsAndInvalidate(extractHUIds(husToAdd));
 	}
 
 	public void addHUAndInvalidate(final I_M_HU hu)
@@ -331,28 +334,41 @@ public class HUEditorView implements IView
 			return;
 		}
 
-		if (rowsBuffer.addHUIds(ImmutableSet.of(hu.getM_HU_ID())))
+		addHUIdsAndInvalidate(ImmutableSet.of(hu.getM_HU_ID()));
+	}
+
+	private void addHUIdsAndInvalidate(final Collection<Integer> huIdsToAdd)
+	{
+		// NOTE: the rows buffer is loading only the rows of the added HUs, so we only have to invalidate those HUs.
+		// Other rows which were changed by the same process (e.g. the source HUs of a transform) are invalidated by notifyRecordsChanged.
+		if (rowsBuffer.addHUIds(huIdsToAdd))
 		{
-			invalidateAll();
+			invalidateHUIds(huIdsToAdd);
 		}
 	}
 
 	public void removesHUsAndInvalidate(final Collection<I_M_HU> husToRemove)
 	{
-		if (rowsBuffer.removeHUIds(extractHUIds(husToRemove)))
-		{
-			invalidateAll();
-		}
+		removesHUIdsAndInvalidate(extractHUIds(husToRemove));
 	}
-	
+
 	public void removesHUIdsAndInvalidate(final Collection<Integer> huIdsToRemove)
 	{
+		// NOTE: the rows buffer is removing the rows incrementally, so we only have to invalidate the removed HUs.
 		if (rowsBuffer.removeHUIds(huIdsToRemove))
 		{
-			invalidateAll();
+			invalidateHUIds(huIdsToRemove);
 		}
 	}
 
+	private void invalidateHUIds(final Collection<Integer> huIds)
+	{
+		huAttributesProvider.invalidate(huIds);
+
+		// NOTE: we are notifying the full change (but without reloading the rows), because rows were added/removed and so the frontend has to fetch the current page again
+		ViewChangesCollector.getCurrentOrAutoflush()
+				.collectFullyChanged(this);
+	}
 
 	private static final Set<Integer> extractHUIds(final Collection<I_M_HU> hus)
 	{
@@ -2,6 +2,7 @@ package de.metas.ui.web.handlingunits;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import de.metas.ui.web.exceptions.EntityNotFoundException;
@@ -43,6 +44,9 @@ import de.metas.ui.web.window.model.DocumentQueryOrderBy;
 interface HUEditorViewBuffer
 {
 	ViewId getViewId();
+
+	/** @see de.metas.ui.web.view.IView#getSelectionIds() */
+	Set<String> getSelectionIds();
 	
 	long size();
 
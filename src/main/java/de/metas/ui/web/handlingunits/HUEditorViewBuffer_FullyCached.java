@@ -1,19 +1,25 @@
 package de.metas.ui.web.handlingunits;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
-import org.adempiere.util.lang.ExtendedMemorizingSupplier;
 import org.compiere.util.DB;
 
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 
 import de.metas.handlingunits.model.I_M_HU;
 import de.metas.ui.web.document.filter.DocumentFilter;
@@ -61,7 +67,8 @@ class HUEditorViewBuffer_FullyCached implements HUEditorViewBuffer
 	private final HUEditorViewRepository huEditorRepo;
 
 	private final Supplier<CopyOnWriteArraySet<Integer>> huIdsHolder;
-	private final ExtendedMemorizingSupplier<IndexedHUEditorRows> rowsSupplier = ExtendedMemorizingSupplier.of(() -> retrieveHUEditorRows());
+	/** Loaded rows or <code>null</code> if they were not loaded yet or they were invalidated */
+	private final AtomicReference<IndexedHUEditorRows> rowsRef = new AtomicReference<>();
 
 	HUEditorViewBuffer_FullyCached( //
 			@NonNull final WindowId windowId //
@@ -88,6 +95,13 @@ class HUEditorViewBuffer_FullyCached implements HUEditorViewBuffer
 		return viewId;
 	}
 
+	@Override
+	public Set<String> getSelectionIds()
+	{
+		// NOTE: we are not using database selections
+		return ImmutableSet.of();
+	}
+
 	private CopyOnWriteArraySet<Integer> getHUIds()
 	{
 		return huIdsHolder.get();
@@ -95,7 +109,33 @@ class HUEditorViewBuffer_FullyCached implements HUEditorViewBuffer
 
 	private IndexedHUEditorRows getRows()
 	{
-		return rowsSupplier.get();
+		IndexedHUEditorRows rows = rowsRef.get();
+		if (rows == null)
+		{
+			synchronized (rowsRef)
+			{
+				rows = rowsRef.get();
+				if (rows == null)
+				{
+					rows = retrieveHUEditorRows();
+					rowsRef.set(rows);
+				}
+			}
+		}
+		return rows;
+	}
+
+	/** Applies given change to the loaded rows, if any. If the rows were not loaded yet, they will be loaded on demand anyway. */
+	private void changeRowsIfLoaded(final UnaryOperator<IndexedHUEditorRows> mapper)
+	{
+		synchronized (rowsRef)
+		{
+			final IndexedHUEditorRows rows = rowsRef.get();
+			if (rows != null)
+			{
+				rowsRef.set(mapper.apply(rows));
+			}
+		}
 	}
 
 	private IndexedHUEditorRows retrieveHUEditorRows()
@@ -119,17 +159,7 @@ class HUEditorViewBuffer_FullyCached implements HUEditorViewBuffer
 	@Override
 	public Stream<HUEditorRow> streamPage(final int firstRow, final int pageLength, final List<DocumentQueryOrderBy> orderBys)
 	{
-		Stream<HUEditorRow> stream = getRows().stream()
-				.skip(firstRow)
-				.limit(pageLength);
-
-		final Comparator<HUEditorRow> comparator = createComparatorOrNull(orderBys);
-		if (comparator != null)
-		{
-			stream = stream.sorted(comparator);
-		}
-
-		return stream;
+		return getRows().getPage(firstRow, pageLength, orderBys).stream();
 	}
 
 	private static final Comparator<HUEditorRow> createComparatorOrNull(final List<DocumentQueryOrderBy> orderBys)
@@ -176,7 +206,10 @@ class HUEditorViewBuffer_FullyCached implements HUEditorViewBuffer
 	@Override
 	public void invalidateAll()
 	{
-		rowsSupplier.forget();
+		synchronized (rowsRef)
+		{
+			rowsRef.set(null);
+		}
 	}
 
 	@Override
@@ -187,7 +220,18 @@ class HUEditorViewBuffer_FullyCached implements HUEditorViewBuffer
 			return false;
 		}
 
-		return getHUIds().addAll(huIdsToAdd);
+		final CopyOnWriteArraySet<Integer> huIds = getHUIds();
+		final Set<Integer> huIdsAdded = huIdsToAdd.stream()
+				.filter(huIds::add)
+				.collect(ImmutableSet.toImmutableSet());
+		if (huIdsAdded.isEmpty())
+		{
+			return false;
+		}
+
+		// Load only the rows of the newly added HUs
+		changeRowsIfLoaded(rows -> rows.withAddedRows(huEditorRepo.retrieveHUEditorRows(huIdsAdded)));
+		return true;
 	}
 
 	@Override
@@ -198,7 +242,13 @@ class HUEditorViewBuffer_FullyCached implements HUEditorViewBuffer
 			return false;
 		}
 
-		return getHUIds().removeAll(huIdsToRemove);
+		if (!getHUIds().removeAll(huIdsToRemove))
+		{
+			return false;
+		}
+
+		changeRowsIfLoaded(rows -> rows.withoutRowIds(HUEditorRow.rowIdsFromM_HU_IDs(huIdsToRemove).toSet()));
+		return true;
 	}
 
 	@Override
@@ -242,6 +292,9 @@ class HUEditorViewBuffer_FullyCached implements HUEditorViewBuffer
 		/** "rowId" to "parent's rowId" mapping */
 		private final ImmutableMap<DocumentId, DocumentId> rowId2parentId;
 
+		/** Top level rows, sorted by order bys (memoized) */
+		private final ConcurrentHashMap<ImmutableList<DocumentQueryOrderBy>, ImmutableList<HUEditorRow>> rowsByOrderBys;
+
 		public IndexedHUEditorRows(final List<HUEditorRow> rows)
 		{
 			super();
@@ -249,6 +302,126 @@ class HUEditorViewBuffer_FullyCached implements HUEditorViewBuffer
 
 			allRowsById = buildRowsByIdMap(this.rows);
 			rowId2parentId = buildRowId2ParentIdMap(this.rows);
+			rowsByOrderBys = new ConcurrentHashMap<>();
+		}
+
+		private IndexedHUEditorRows(
+				final ImmutableList<HUEditorRow> rows,
+				final ImmutableMap<DocumentId, HUEditorRow> allRowsById,
+				final ImmutableMap<DocumentId, DocumentId> rowId2parentId,
+				final ConcurrentHashMap<ImmutableList<DocumentQueryOrderBy>, ImmutableList<HUEditorRow>> rowsByOrderBys)
+		{
+			this.rows = rows;
+			this.allRowsById = allRowsById;
+			this.rowId2parentId = rowId2parentId;
+			this.rowsByOrderBys = rowsByOrderBys;
+		}
+
+		/** @return new instance which also contains given top level rows; the indexes and the memoized orderings are updated, not rebuilt */
+		public IndexedHUEditorRows withAddedRows(final List<HUEditorRow> rowsToAdd)
+		{
+			final List<HUEditorRow> rowsToAddEffective = rowsToAdd.stream()
+					.filter(row -> !allRowsById.containsKey(row.getId()))
+					.collect(ImmutableList.toImmutableList());
+			if (rowsToAddEffective.isEmpty())
+			{
+				return this;
+			}
+
+			final ImmutableMap.Builder<DocumentId, HUEditorRow> allRowsByIdNew = ImmutableMap.<DocumentId, HUEditorRow> builder().putAll(allRowsById);
+			final ImmutableMap.Builder<DocumentId, DocumentId> rowId2parentIdNew = ImmutableMap.<DocumentId, DocumentId> builder().putAll(rowId2parentId);
+			rowsToAddEffective.forEach(row -> {
+				indexByIdRecursively(allRowsByIdNew, row);
+				buildRowId2ParentIdMap(rowId2parentIdNew, row);
+			});
+
+			final ConcurrentHashMap<ImmutableList<DocumentQueryOrderBy>, ImmutableList<HUEditorRow>> rowsByOrderBysNew = new ConcurrentHashMap<>();
+			rowsByOrderBys.forEach((orderBys, sortedRows) -> rowsByOrderBysNew.put(orderBys, mergeSorted(sortedRows, rowsToAddEffective, createComparatorOrNull(orderBys))));
+
+			return new IndexedHUEditorRows(
+					ImmutableList.<HUEditorRow> builder().addAll(rows).addAll(rowsToAddEffective).build(),
+					allRowsByIdNew.build(),
+					rowId2parentIdNew.build(),
+					rowsByOrderBysNew);
+		}
+
+		/** @return new instance without given top level rows (and their included rows); the indexes and the memoized orderings are updated, not rebuilt */
+		public IndexedHUEditorRows withoutRowIds(final Set<DocumentId> rowIdsToRemove)
+		{
+			final Set<DocumentId> rowIdsToRemoveRecursive = rows.stream()
+					.filter(row -> rowIdsToRemove.contains(row.getId()))
+					.flatMap(row -> row.streamRecursive())
+					.map(HUEditorRow::getId)
+					.collect(ImmutableSet.toImmutableSet());
+			if (rowIdsToRemoveRecursive.isEmpty())
+			{
+				return this;
+			}
+
+			final ConcurrentHashMap<ImmutableList<DocumentQueryOrderBy>, ImmutableList<HUEditorRow>> rowsByOrderBysNew = new ConcurrentHashMap<>();
+			rowsByOrderBys.forEach((orderBys, sortedRows) -> rowsByOrderBysNew.put(orderBys, filterOutRowIds(sortedRows, rowIdsToRemoveRecursive)));
+
+			return new IndexedHUEditorRows(
+					filterOutRowIds(rows, rowIdsToRemoveRecursive),
+					ImmutableMap.copyOf(Maps.filterKeys(allRowsById, rowId -> !rowIdsToRemoveRecursive.contains(rowId))),
+					ImmutableMap.copyOf(Maps.filterKeys(rowId2parentId, rowId -> !rowIdsToRemoveRecursive.contains(rowId))),
+					rowsByOrderBysNew);
+		}
+
+		private static ImmutableList<HUEditorRow> filterOutRowIds(final List<HUEditorRow> rows, final Set<DocumentId> rowIdsToRemove)
+		{
+			return rows.stream()
+					.filter(row -> !rowIdsToRemove.contains(row.getId()))
+					.collect(ImmutableList.toImmutableList());
+		}
+
+		/** Merges the already sorted rows with the (unsorted) rows to add */
+		private static ImmutableList<HUEditorRow> mergeSorted(final List<HUEditorRow> sortedRows, final List<HUEditorRow> rowsToAdd, final Comparator<HUEditorRow> comparator)
+		{
+			final List<HUEditorRow> sortedRowsToAdd = new ArrayList<>(rowsToAdd);
+			sortedRowsToAdd.sort(comparator);
+
+			final ImmutableList.Builder<HUEditorRow> result = ImmutableList.builder();
+			int i = 0;
+			int j = 0;
+			while (i < sortedRows.size() && j < sortedRowsToAdd.size())
+			{
+				if (comparator.compare(sortedRowsToAdd.get(j), sortedRows.get(i)) < 0)
+				{
+					result.add(sortedRowsToAdd.get(j++));
+				}
+				else
+				{
+					result.add(sortedRows.get(i++));
+				}
+			}
+			result.addAll(sortedRows.subList(i, sortedRows.size()));
+			result.addAll(sortedRowsToAdd.subList(j, sortedRowsToAdd.size()));
+			return result.build();
+		}
+
+		public List<HUEditorRow> getPage(final int firstRow, final int pageLength, final List<DocumentQueryOrderBy> orderBys)
+		{
+			final List<HUEditorRow> sortedRows = getSortedRows(orderBys);
+			if (firstRow >= sortedRows.size())
+			{
+				return ImmutableList.of();
+			}
+
+			final int lastRowExclusive = Math.min(sortedRows.size(), firstRow + pageLength);
+			return sortedRows.subList(firstRow, lastRowExclusive);
+		}
+
+		private ImmutableList<HUEditorRow> getSortedRows(final List<DocumentQueryOrderBy> orderBys)
+		{
+			if (orderBys == null || orderBys.isEmpty())
+			{
+				return rows;
+			}
+
+			return rowsByOrderBys.computeIfAbsent(ImmutableList.copyOf(orderBys), orderBysImmutable -> rows.stream()
+					.sorted(createComparatorOrNull(orderBysImmutable))
+					.collect(ImmutableList.toImmutableList()));
 		}
 
 		public HUEditorRow getById(final DocumentId rowId)
@@ -3,6 +3,7 @@ package de.metas.ui.web.handlingunits;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
@@ -10,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
@@ -22,6 +24,12 @@ import org.compiere.util.CCache;
 import org.compiere.util.DB;
 import org.compiere.util.Env;
 
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Streams;
+
 import de.metas.handlingunits.model.I_M_HU;
 import de.metas.ui.web.document.filter.DocumentFilter;
 import de.metas.ui.web.exceptions.EntityNotFoundException;
@@ -62,13 +70,18 @@ public class HUEditorViewBuffer_HighVolume implements HUEditorViewBuffer
 {
 	public static final int HIGHVOLUME_THRESHOLD = 100;
 
-	private static final int STREAM_ALL_MAX_SIZE = 100;
+	/** How many rows are loaded at once when streaming more rows (e.g. all rows) */
+	private static final int STREAM_CHUNK_SIZE = 100;
 
 	private final HUEditorViewRepository huEditorRepo;
 	private final IStringExpression sqlSelectHUIdsByPage;
 
 	private final SqlViewRowIdsOrderedSelectionFactory viewSelectionFactory;
 	private final AtomicReference<ViewRowIdsOrderedSelection> defaultSelectionRef;
+	/** Selections derived from default selection, by order bys */
+	private final ConcurrentHashMap<ImmutableList<DocumentQueryOrderBy>, ViewRowIdsOrderedSelection> selectionsByOrderBys = new ConcurrentHashMap<>();
+	/** Selection IDs which are no longer used but which shall be deleted when the view is closed */
+	private final Set<String> obsoleteSelectionIds = ConcurrentHashMap.newKeySet();
 
 	private final CCache<DocumentId, HUEditorRow> cache_huRowsById = CCache.newLRUCache(I_M_HU.Table_Name + "#HUEditorRows#by#Id", 100, 2);
 
@@ -96,11 +109,30 @@ public class HUEditorViewBuffer_HighVolume implements HUEditorViewBuffer
 		return defaultSelectionRef.get();
 	}
 
-	private boolean changeDefaultSelection(final UnaryOperator<ViewRowIdsOrderedSelection> mapper)
+	/**
+	 * NOTE: synchronized with {@link #getSelection(List)}, so a selection derived from the old default selection is not cached while the default selection is changing.
+	 */
+	private synchronized boolean changeDefaultSelection(final UnaryOperator<ViewRowIdsOrderedSelection> mapper)
 	{
 		final ViewRowIdsOrderedSelection defaultSelectionOld = defaultSelectionRef.get();
 		final ViewRowIdsOrderedSelection defaultSelectionNew = defaultSelectionRef.updateAndGet(mapper);
-		return Objects.equals(defaultSelectionOld, defaultSelectionNew);
+
+		// Selections which were derived from the old default selection are no longer valid
+		invalidateSelectionsByOrderBys();
+
+		return !Objects.equals(defaultSelectionOld, defaultSelectionNew);
+	}
+
+	private void invalidateSelectionsByOrderBys()
+	{
+		for (final ImmutableList<DocumentQueryOrderBy> orderBys : ImmutableList.copyOf(selectionsByOrderBys.keySet()))
+		{
+			final ViewRowIdsOrderedSelection selection = selectionsByOrderBys.remove(orderBys);
+			if (selection != null)
+			{
+				obsoleteSelectionIds.add(selection.getSelectionId());
+			}
+		}
 	}
 
 	@Override
@@ -109,6 +141,16 @@ public class HUEditorViewBuffer_HighVolume implements HUEditorViewBuffer
 		return getDefaultSelection().getViewId();
 	}
 
+	@Override
+	public Set<String> getSelectionIds()
+	{
+		return ImmutableSet.<String> builder()
+				.add(getDefaultSelection().getSelectionId())
+				.addAll(selectionsByOrderBys.values().stream().map(ViewRowIdsOrderedSelection::getSelectionId).iterator())
+				.addAll(obsoleteSelectionIds)
+				.build();
+	}
+
 	@Override
 	public long size()
 	{
@@ -161,16 +203,76 @@ public class HUEditorViewBuffer_HighVolume implements HUEditorViewBuffer
 	}
 
 	@Override
-	public Stream<HUEditorRow> streamAllRecursive() throws UnsupportedOperationException
+	public Stream<HUEditorRow> streamAllRecursive()
 	{
-		final ViewRowIdsOrderedSelection defaultSelection = getDefaultSelection();
-		if (defaultSelection.getSize() > STREAM_ALL_MAX_SIZE)
+		return streamAll()
+				.flatMap(row -> row.streamRecursive());
+	}
+
+	/** @return all top level rows, in default selection's order, loaded chunk by chunk */
+	private Stream<HUEditorRow> streamAll()
+	{
+		final String selectionId = getDefaultSelection().getSelectionId();
+
+		// NOTE: we are paging by Line (keyset) and not by row number, because removing rows from selection is leaving gaps in Line numbers
+		final AbstractIterator<List<Integer>> huIdsChunks = new AbstractIterator<List<Integer>>()
 		{
-			throw new UnsupportedOperationException("Streaming all rows when selection is bigger than " + STREAM_ALL_MAX_SIZE + " is not allowed");
-		}
+			private int lastLine = 0;
 
-		return streamPage(0, STREAM_ALL_MAX_SIZE, defaultSelection.getOrderBys())
-				.flatMap(row -> row.streamRecursive());
+			@Override
+			protected List<Integer> computeNext()
+			{
+				final List<Integer> huIds = new ArrayList<>(STREAM_CHUNK_SIZE);
+				lastLine = retrieveHUIdsAfterLine(selectionId, lastLine, STREAM_CHUNK_SIZE, huIds);
+				return huIds.isEmpty() ? endOfData() : huIds;
+			}
+		};
+
+		return Streams.stream(huIdsChunks)
+				.flatMap(huIds -> streamByIds(HUEditorRow.rowIdsFromM_HU_IDs(huIds)));
+	}
+
+	/**
+	 * Retrieves the next <code>limit</code> HU IDs from given selection, which are after given Line.
+	 *
+	 * @param huIds where the HU IDs will be collected
+	 * @return the Line of the last retrieved HU ID or <code>afterLine</code> if nothing was retrieved
+	 */
+	private static int retrieveHUIdsAfterLine(final String selectionId, final int afterLine, final int limit, final List<Integer> huIds)
+	{
+		final List<Object> sqlParams = new ArrayList<>();
+		final String sql = SqlViewSelectionQueryBuilder.buildSqlRetrieveRecordIdsAfterLine(sqlParams, selectionId, afterLine, limit);
+
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_ThreadInherited);
+			DB.setParameters(pstmt, sqlParams.toArray());
+			rs = pstmt.executeQuery();
+
+			int lastLine = afterLine;
+			while (rs.next())
+			{
+				final int huId = rs.getInt(1);
+				lastLine = rs.getInt(2);
+				if (huId > 0)
+				{
+					huIds.add(huId);
+				}
+			}
+
+			return lastLine;
+		}
+		catch (final SQLException ex)
+		{
+			throw DBException.wrapIfNeeded(ex)
+					.setSqlIfAbsent(sql, sqlParams.toArray());
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
 	}
 
 	@Override
@@ -191,17 +293,23 @@ public class HUEditorViewBuffer_HighVolume implements HUEditorViewBuffer
 			return Stream.empty();
 		}
 
-		// TODO: implement support for ALL rowIds
 		if (rowIds.isAll())
 		{
-			throw new UnsupportedOperationException("streaming all rowIds is not supported");
+			return streamAll();
 		}
 
+		// NOTE: load the rows chunk by chunk, so we don't hold all of them in memory
+		return Streams.stream(Iterables.partition(rowIds.toSet(), STREAM_CHUNK_SIZE))
+				.flatMap(rowIdsChunk -> streamByIdsChunk(rowIdsChunk));
+	}
+
+	private Stream<HUEditorRow> streamByIdsChunk(final List<DocumentId> rowIds)
+	{
 		final HUEditorRow[] rows = new HUEditorRow[rowIds.size()];
 		final Map<DocumentId, Integer> rowIdToLoad2index = new HashMap<>();
 		{
 			int idx = 0;
-			for (final DocumentId rowId : rowIds.toSet())
+			for (final DocumentId rowId : rowIds)
 			{
 				final HUEditorRow row = cache_huRowsById.get(rowId);
 				if (row == null)
@@ -249,7 +357,7 @@ public class HUEditorViewBuffer_HighVolume implements HUEditorViewBuffer
 		return streamByIds(rowIds);
 	}
 
-	private ViewRowIdsOrderedSelection getSelection(final List<DocumentQueryOrderBy> orderBys)
+	private synchronized ViewRowIdsOrderedSelection getSelection(final List<DocumentQueryOrderBy> orderBys)
 	{
 		final ViewRowIdsOrderedSelection defaultSelection = getDefaultSelection();
 
@@ -258,12 +366,12 @@ public class HUEditorViewBuffer_HighVolume implements HUEditorViewBuffer
 			return defaultSelection;
 		}
 
-		if (!Objects.equals(orderBys, defaultSelection.getOrderBys()))
+		if (Objects.equals(orderBys, defaultSelection.getOrderBys()))
 		{
-			throw new UnsupportedOperationException("Sorting is not supported");
+			return defaultSelection;
 		}
 
-		return defaultSelection;
+		return selectionsByOrderBys.computeIfAbsent(ImmutableList.copyOf(orderBys), orderBysImmutable -> viewSelectionFactory.createOrderedSelectionFromSelection(ViewEvaluationCtx.of(Env.getCtx()), defaultSelection, orderBysImmutable));
 	}
 
 	private Set<Integer> retrieveHUIdsByPage(final int firstRow, final int pageLength, final List<DocumentQueryOrderBy> orderBys)
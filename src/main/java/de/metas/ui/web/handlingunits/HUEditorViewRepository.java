@@ -3,8 +3,10 @@ package de.metas.ui.web.handlingunits;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.adempiere.ad.dao.IQueryBL;
 import org.adempiere.ad.dao.IQueryBuilder;
 import org.adempiere.ad.dao.impl.TypedSqlQueryFilter;
 import org.adempiere.ad.service.IADReferenceDAO;
@@ -19,16 +21,15 @@ import org.compiere.util.Env;
 import org.slf4j.Logger;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
-import de.metas.handlingunits.IHandlingUnitsBL;
 import de.metas.handlingunits.IHandlingUnitsDAO;
 import de.metas.handlingunits.exceptions.HUException;
 import de.metas.handlingunits.model.I_M_HU;
+import de.metas.handlingunits.model.I_M_HU_Storage;
 import de.metas.handlingunits.model.X_M_HU;
 import de.metas.handlingunits.model.X_M_HU_PI_Version;
-import de.metas.handlingunits.storage.IHUProductStorage;
-import de.metas.handlingunits.storage.IHUStorage;
-import de.metas.handlingunits.storage.IHUStorageFactory;
 import de.metas.inoutcandidate.model.I_M_ReceiptSchedule;
 import de.metas.logging.LogManager;
 import de.metas.ui.web.document.filter.DocumentFilter;
@@ -99,9 +100,11 @@ public class HUEditorViewRepository
 
 	public List<HUEditorRow> retrieveHUEditorRows(final Set<Integer> huIds)
 	{
-		return retrieveTopLevelHUs(huIds)
+		final List<I_M_HU> topLevelHUs = retrieveTopLevelHUs(huIds);
+		final HUsHierarchy husHierarchy = HUsHierarchy.load(topLevelHUs);
+		return topLevelHUs
 				.stream()
-				.map(hu -> createHUEditorRow(hu, true))
+				.map(hu -> createHUEditorRow(hu, true, husHierarchy))
 				.collect(GuavaCollectors.toImmutableList());
 	}
 
@@ -121,7 +124,35 @@ public class HUEditorViewRepository
 		// TODO: check if the huId is part of our collection
 
 		final I_M_HU hu = InterfaceWrapperHelper.create(Env.getCtx(), huId, I_M_HU.class, ITrx.TRXNAME_None);
-		return createHUEditorRow(hu, true);
+		final HUsHierarchy husHierarchy = HUsHierarchy.load(ImmutableList.of(hu));
+		return createHUEditorRow(hu, true, husHierarchy);
+	}
+
+	/**
+	 * Retrieves the {@link HUEditorRow} hierarchies for given M_HU_IDs, even if they are not in scope or they are not top level HUs.
+	 * All HUs are loaded in bulk.
+	 * 
+	 * @param huIds
+	 * @return M_HU_ID to {@link HUEditorRow} map
+	 */
+	public Map<Integer, HUEditorRow> retrieveForHUIds(final Collection<Integer> huIds)
+	{
+		final Set<Integer> huIdsEffective = huIds.stream().filter(huId -> huId != null && huId > 0).collect(ImmutableSet.toImmutableSet());
+		if (huIdsEffective.isEmpty())
+		{
+			return ImmutableMap.of();
+		}
+
+		final List<I_M_HU> hus = Services.get(IQueryBL.class)
+				.createQueryBuilder(I_M_HU.class, Env.getCtx(), ITrx.TRXNAME_None)
+				.addInArrayFilter(I_M_HU.COLUMN_M_HU_ID, huIdsEffective)
+				.create()
+				.list(I_M_HU.class);
+
+		final HUsHierarchy husHierarchy = HUsHierarchy.load(hus);
+		return hus.stream()
+				.map(hu -> createHUEditorRow(hu, true, husHierarchy))
+				.collect(ImmutableMap.toImmutableMap(HUEditorRow::getM_HU_ID, row -> row));
 	}
 
 	private static List<I_M_HU> retrieveTopLevelHUs(final Collection<Integer> huIds)
@@ -147,11 +178,11 @@ public class HUEditorViewRepository
 				.list();
 	}
 
-	private HUEditorRow createHUEditorRow(final I_M_HU hu, final boolean topLevel)
+	private HUEditorRow createHUEditorRow(final I_M_HU hu, final boolean topLevel, final HUsHierarchy husHierarchy)
 	{
-		final boolean aggregatedTU = Services.get(IHandlingUnitsBL.class).isAggregateHU(hu);
+		final boolean aggregatedTU = husHierarchy.isAggregatedHU(hu);
 
-		final String huUnitTypeCode = hu.getM_HU_PI_Version().getHU_UnitType();
+		final String huUnitTypeCode = husHierarchy.getPIVersion(hu).getHU_UnitType();
 		final HUEditorRowType huRecordType;
 		if (aggregatedTU)
 		{
@@ -183,12 +214,12 @@ public class HUEditorViewRepository
 
 		//
 		// Product/UOM/Qty if there is only one product stored
-		final IHUProductStorage singleProductStorage = getSingleProductStorage(hu);
+		final I_M_HU_Storage singleProductStorage = husHierarchy.getSingleProductStorage(hu);
 		if (singleProductStorage != null)
 		{
 			huEditorRow
-					.setProduct(createProductLookupValue(singleProductStorage.getM_Product()))
-					.setUOM(createUOMLookupValue(singleProductStorage.getC_UOM()))
+					.setProduct(createProductLookupValue(husHierarchy.getProduct(singleProductStorage.getM_Product_ID())))
+					.setUOM(createUOMLookupValue(husHierarchy.getUOM(singleProductStorage.getC_UOM_ID())))
 					.setQtyCU(singleProductStorage.getQty());
 		}
 
@@ -196,32 +227,25 @@ public class HUEditorViewRepository
 		// Included HUs
 		if (aggregatedTU)
 		{
-			final IHUStorageFactory storageFactory = Services.get(IHandlingUnitsBL.class).getStorageFactory();
-			storageFactory
-					.getStorage(hu)
-					.getProductStorages()
+			husHierarchy.getStorages(hu)
 					.stream()
-					.map(huStorage -> createHUEditorRow(huId, huStorage, processed))
+					.map(huStorage -> createHUEditorRow(huId, huStorage, processed, husHierarchy))
 					.forEach(huEditorRow::addIncludedRow);
 
 		}
 		else if (X_M_HU_PI_Version.HU_UNITTYPE_LoadLogistiqueUnit.equals(huUnitTypeCode))
 		{
-			final IHandlingUnitsDAO handlingUnitsDAO = Services.get(IHandlingUnitsDAO.class);
-			handlingUnitsDAO.retrieveIncludedHUs(hu)
+			husHierarchy.getIncludedHUs(hu)
 					.stream()
-					.map(includedHU -> createHUEditorRow(includedHU, false))
+					.map(includedHU -> createHUEditorRow(includedHU, false, husHierarchy))
 					.forEach(huEditorRow::addIncludedRow);
 		}
 		else if (X_M_HU_PI_Version.HU_UNITTYPE_TransportUnit.equals(huUnitTypeCode))
 		{
-			final IHandlingUnitsDAO handlingUnitsDAO = Services.get(IHandlingUnitsDAO.class);
-			final IHUStorageFactory storageFactory = Services.get(IHandlingUnitsBL.class).getStorageFactory();
-			handlingUnitsDAO.retrieveIncludedHUs(hu)
+			husHierarchy.getIncludedHUs(hu)
 					.stream()
-					.map(includedVHU -> storageFactory.getStorage(includedVHU))
-					.flatMap(vhuStorage -> vhuStorage.getProductStorages().stream())
-					.map(vhuProductStorage -> createHUEditorRow(huId, vhuProductStorage, processed))
+					.flatMap(includedVHU -> husHierarchy.getStorages(includedVHU).stream())
+					.map(vhuStorage -> createHUEditorRow(huId, vhuStorage, processed, husHierarchy))
 					.forEach(huEditorRow::addIncludedRow);
 		}
 		else if (X_M_HU_PI_Version.HU_UNITTYPE_VirtualPI.equals(huUnitTypeCode))
@@ -274,30 +298,15 @@ public class HUEditorViewRepository
 		}
 	}
 
-	private IHUProductStorage getSingleProductStorage(final I_M_HU hu)
+	private HUEditorRow createHUEditorRow(final int parent_HU_ID, final I_M_HU_Storage huStorage, final boolean processed, final HUsHierarchy husHierarchy)
 	{
-		final IHUStorage huStorage = Services.get(IHandlingUnitsBL.class).getStorageFactory()
-				.getStorage(hu);
-
-		final I_M_Product product = huStorage.getSingleProductOrNull();
-		if (product == null)
-		{
-			return null;
-		}
-
-		final IHUProductStorage productStorage = huStorage.getProductStorage(product);
-		return productStorage;
-	}
-
-	private HUEditorRow createHUEditorRow(final int parent_HU_ID, final IHUProductStorage huStorage, final boolean processed)
-	{
-		final I_M_HU hu = huStorage.getM_HU();
-		final int huId = hu.getM_HU_ID();
-		final I_M_Product product = huStorage.getM_Product();
+		final int huId = huStorage.getM_HU_ID();
+		final I_M_HU hu = husHierarchy.getHU(huId);
+		final I_M_Product product = husHierarchy.getProduct(huStorage.getM_Product_ID());
 		final HUEditorRowAttributesProvider attributesProviderEffective = huId != parent_HU_ID ? attributesProvider : null;
 
 		return HUEditorRow.builder(windowId)
-				.setRowId(HUEditorRow.rowIdFromM_HU_Storage(huId, product.getM_Product_ID()))
+				.setRowId(HUEditorRow.rowIdFromM_HU_Storage(huId, huStorage.getM_Product_ID()))
 				.setType(HUEditorRowType.HUStorage)
 				.setTopLevel(false)
 				.setProcessed(processed)
@@ -309,7 +318,7 @@ public class HUEditorViewRepository
 				.setHUStatus(createHUStatusLookupValue(hu))
 				//
 				.setProduct(createProductLookupValue(product))
-				.setUOM(createUOMLookupValue(huStorage.getC_UOM()))
+				.setUOM(createUOMLookupValue(husHierarchy.getUOM(huStorage.getC_UOM_ID())))
 				.setQtyCU(huStorage.getQty())
 				//
 				.build();
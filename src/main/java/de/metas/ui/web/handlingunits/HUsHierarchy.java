@@ -0,0 +1,272 @@
+package de.metas.ui.web.handlingunits;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.model.ModelColumn;
+import org.adempiere.util.Services;
+import org.compiere.model.I_C_UOM;
+import org.compiere.model.I_M_Product;
+import org.compiere.util.Env;
+import org.slf4j.Logger;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
+import de.metas.handlingunits.model.I_M_HU;
+import de.metas.handlingunits.model.I_M_HU_Item;
+import de.metas.handlingunits.model.I_M_HU_PI_Version;
+import de.metas.handlingunits.model.I_M_HU_Storage;
+import de.metas.handlingunits.model.X_M_HU_Item;
+import de.metas.logging.LogManager;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Loads the whole HU hierarchy (LU -> TU -> VHU) of a given set of (usually top level) HUs, together with their storages, PI versions, products and UOMs,
+ * using a small number of set based queries (i.e. two queries per hierarchy level plus one query for each of the other tables).
+ * <p>
+ * The {@link HUEditorViewRepository} is then building the rows only from the data which was loaded here.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+final class HUsHierarchy
+{
+	/**
+	 * @param hus the HUs whose hierarchies shall be loaded; usually top level HUs, but included HUs (even included in one another) are also accepted
+	 */
+	public static HUsHierarchy load(@NonNull final Collection<I_M_HU> hus)
+	{
+		return new HUsHierarchy(hus);
+	}
+
+	private static final transient Logger logger = LogManager.getLogger(HUsHierarchy.class);
+
+	private static final int MaxIdsPerQuery = 1000;
+
+	private final Map<Integer, I_M_HU> husById = new HashMap<>();
+	private final Map<Integer, List<I_M_HU>> includedHUsByParentHUId = new HashMap<>();
+	private final Set<Integer> aggregatedHUIds = new LinkedHashSet<>();
+	private final Map<Integer, List<I_M_HU_Storage>> storagesByHUId = new HashMap<>();
+	private final Map<Integer, I_M_HU_PI_Version> piVersionsById;
+	private final Map<Integer, I_M_Product> productsById;
+	private final Map<Integer, I_C_UOM> uomsById;
+
+	private int queriesCount = 0;
+
+	private HUsHierarchy(final Collection<I_M_HU> hus)
+	{
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+
+		//
+		// HUs hierarchy, one level at a time
+		hus.forEach(hu -> husById.put(hu.getM_HU_ID(), hu));
+		final Set<Integer> huIdsWithParentItemLoaded = new HashSet<>();
+		Set<Integer> parentHUIds = ImmutableSet.copyOf(husById.keySet());
+		while (!parentHUIds.isEmpty())
+		{
+			parentHUIds = loadIncludedHUs(parentHUIds, huIdsWithParentItemLoaded);
+		}
+
+		//
+		// Aggregated flag of the given HUs which are included HUs but whose parents were not given
+		final Map<Integer, Integer> parentItemIdsByHUId = hus.stream()
+				.filter(hu -> hu.getM_HU_Item_Parent_ID() > 0)
+				.filter(hu -> !huIdsWithParentItemLoaded.contains(hu.getM_HU_ID()))
+				.collect(Collectors.toMap(I_M_HU::getM_HU_ID, I_M_HU::getM_HU_Item_Parent_ID, (huId1, huId2) -> huId1));
+		if (!parentItemIdsByHUId.isEmpty())
+		{
+			final Map<Integer, I_M_HU_Item> parentItemsById = retrieveMapByIds(I_M_HU_Item.class, I_M_HU_Item.COLUMN_M_HU_Item_ID, I_M_HU_Item::getM_HU_Item_ID,
+					ImmutableSet.copyOf(parentItemIdsByHUId.values()));
+			parentItemIdsByHUId.forEach((huId, parentItemId) -> {
+				final I_M_HU_Item parentItem = parentItemsById.get(parentItemId);
+				if (parentItem != null && X_M_HU_Item.ITEMTYPE_HUAggregate.equals(parentItem.getItemType()))
+				{
+					aggregatedHUIds.add(huId);
+				}
+			});
+		}
+
+		//
+		// Storages
+		retrieveByIds(I_M_HU_Storage.class, I_M_HU_Storage.COLUMN_M_HU_ID, husById.keySet())
+				.stream()
+				.sorted(Comparator.comparing(I_M_HU_Storage::getM_HU_Storage_ID))
+				.forEach(storage -> storagesByHUId.computeIfAbsent(storage.getM_HU_ID(), huId -> new ArrayList<>()).add(storage));
+
+		//
+		// PI versions, products, UOMs
+		piVersionsById = retrieveMapByIds(I_M_HU_PI_Version.class, I_M_HU_PI_Version.COLUMN_M_HU_PI_Version_ID, I_M_HU_PI_Version::getM_HU_PI_Version_ID,
+				extractIds(husById.values(), I_M_HU::getM_HU_PI_Version_ID));
+
+		final List<I_M_HU_Storage> allStorages = storagesByHUId.values().stream().flatMap(List::stream).collect(ImmutableList.toImmutableList());
+		productsById = retrieveMapByIds(I_M_Product.class, I_M_Product.COLUMN_M_Product_ID, I_M_Product::getM_Product_ID,
+				extractIds(allStorages, I_M_HU_Storage::getM_Product_ID));
+		uomsById = retrieveMapByIds(I_C_UOM.class, I_C_UOM.COLUMN_C_UOM_ID, I_C_UOM::getC_UOM_ID,
+				extractIds(allStorages, I_M_HU_Storage::getC_UOM_ID));
+
+		logger.debug("Loaded {} HUs (requested: {}) using {} queries in {}", husById.size(), hus.size(), queriesCount, stopwatch);
+	}
+
+	/**
+	 * @param huIdsWithParentItemLoaded collects the IDs of all included HUs, i.e. the HUs whose parent item was loaded here
+	 * @return IDs of the HUs which were loaded (i.e. which were not already loaded)
+	 */
+	private Set<Integer> loadIncludedHUs(final Set<Integer> parentHUIds, final Set<Integer> huIdsWithParentItemLoaded)
+	{
+		final Map<Integer, I_M_HU_Item> itemsById = new HashMap<>();
+		retrieveByIds(I_M_HU_Item.class, I_M_HU_Item.COLUMN_M_HU_ID, parentHUIds)
+				.forEach(item -> itemsById.put(item.getM_HU_Item_ID(), item));
+		if (itemsById.isEmpty())
+		{
+			return ImmutableSet.of();
+		}
+
+		final Set<Integer> includedHUIds = new LinkedHashSet<>();
+		retrieveByIds(I_M_HU.class, I_M_HU.COLUMN_M_HU_Item_Parent_ID, itemsById.keySet())
+				.stream()
+				.sorted(Comparator.comparing(I_M_HU::getM_HU_ID))
+				.forEach(includedHU -> {
+					final int includedHUId = includedHU.getM_HU_ID();
+
+					// NOTE: the HU could be already loaded if it was given together with its parent.
+					// In that case we still link it to its parent, but we don't load its included HUs again.
+					final I_M_HU includedHUExisting = husById.putIfAbsent(includedHUId, includedHU);
+					if (includedHUExisting == null)
+					{
+						includedHUIds.add(includedHUId);
+					}
+					huIdsWithParentItemLoaded.add(includedHUId);
+
+					final I_M_HU_Item parentItem = itemsById.get(includedHU.getM_HU_Item_Parent_ID());
+					includedHUsByParentHUId.computeIfAbsent(parentItem.getM_HU_ID(), parentHUId -> new ArrayList<>())
+							.add(includedHUExisting != null ? includedHUExisting : includedHU);
+					if (X_M_HU_Item.ITEMTYPE_HUAggregate.equals(parentItem.getItemType()))
+					{
+						aggregatedHUIds.add(includedHUId);
+					}
+				});
+
+		return includedHUIds;
+	}
+
+	private <T> List<T> retrieveByIds(final Class<T> modelClass, final ModelColumn<T, ?> column, final Collection<Integer> ids)
+	{
+		if (ids.isEmpty())
+		{
+			return ImmutableList.of();
+		}
+
+		final IQueryBL queryBL = Services.get(IQueryBL.class);
+		final List<T> result = new ArrayList<>();
+		for (final List<Integer> idsChunk : Iterables.partition(ids, MaxIdsPerQuery))
+		{
+			queriesCount++;
+			queryBL.createQueryBuilder(modelClass, Env.getCtx(), ITrx.TRXNAME_None)
+					.addOnlyActiveRecordsFilter()
+					.addInArrayFilter(column, idsChunk)
+					.create()
+					.list(modelClass)
+					.forEach(result::add);
+		}
+		return result;
+	}
+
+	private <T> Map<Integer, T> retrieveMapByIds(final Class<T> modelClass, final ModelColumn<T, ?> idColumn, final Function<T, Integer> idExtractor, final Collection<Integer> ids)
+	{
+		final Map<Integer, T> result = new HashMap<>();
+		retrieveByIds(modelClass, idColumn, ids).forEach(record -> result.put(idExtractor.apply(record), record));
+		return result;
+	}
+
+	private static <T> Set<Integer> extractIds(final Collection<T> records, final Function<T, Integer> idExtractor)
+	{
+		return records.stream()
+				.map(idExtractor)
+				.filter(id -> id != null && id > 0)
+				.collect(ImmutableSet.toImmutableSet());
+	}
+
+	public int getQueriesCount()
+	{
+		return queriesCount;
+	}
+
+	public I_M_HU getHU(final int huId)
+	{
+		return husById.get(huId);
+	}
+
+	public List<I_M_HU> getIncludedHUs(final I_M_HU hu)
+	{
+		return includedHUsByParentHUId.getOrDefault(hu.getM_HU_ID(), ImmutableList.of());
+	}
+
+	public boolean isAggregatedHU(final I_M_HU hu)
+	{
+		return aggregatedHUIds.contains(hu.getM_HU_ID());
+	}
+
+	public I_M_HU_PI_Version getPIVersion(final I_M_HU hu)
+	{
+		final I_M_HU_PI_Version piVersion = piVersionsById.get(hu.getM_HU_PI_Version_ID());
+		return piVersion != null ? piVersion : hu.getM_HU_PI_Version();
+	}
+
+	public List<I_M_HU_Storage> getStorages(final I_M_HU hu)
+	{
+		return storagesByHUId.getOrDefault(hu.getM_HU_ID(), ImmutableList.of());
+	}
+
+	/** @return the storage if the HU contains exactly one product, <code>null</code> otherwise */
+	public I_M_HU_Storage getSingleProductStorage(final I_M_HU hu)
+	{
+		final List<I_M_HU_Storage> storages = getStorages(hu);
+		return storages.size() == 1 ? storages.get(0) : null;
+	}
+
+	public I_M_Product getProduct(final int productId)
+	{
+		return productsById.get(productId);
+	}
+
+	public I_C_UOM getUOM(final int uomId)
+	{
+		return uomsById.get(uomId);
+	}
+}
@@ -40,6 +40,7 @@ import de.metas.ui.web.notification.UserNotificationsService;
 import de.metas.ui.web.session.UserSession;
 import de.metas.ui.web.window.datatypes.json.JSONLookupValue;
 import de.metas.ui.web.window.datatypes.json.JSONLookupValuesList;
+import de.metas.ui.web.window.model.DocumentCollection;
 
 /*
  * #%L
@@ -324,6 +325,8 @@ public class LoginRestController
 	{
 		@Autowired
 		private UserNotificationsService userNotificationsService;
+		@Autowired
+		private DocumentCollection documentCollection;
 
 		public SessionDestroyedListener()
 		{
@@ -335,6 +338,7 @@ public class LoginRestController
 		{
 			final String sessionId = event.getSessionId();
 			userNotificationsService.disableForSession(sessionId);
+			documentCollection.discardDocumentsInEditingOfSession(sessionId);
 		}
 
 	}
@@ -1,7 +1,7 @@
 package de.metas.ui.web.notification;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 
@@ -57,7 +57,7 @@ public class UserNotification
 	private final String detailPlain;
 	private final String detailADMessage;
 	private final Map<String, Object> detailADMessageParams;
-	private final Map<String, String> adLanguage2message = new HashMap<>();
+	private final Map<String, String> adLanguage2message = new ConcurrentHashMap<>();
 
 	//
 	// Mutable: read flag
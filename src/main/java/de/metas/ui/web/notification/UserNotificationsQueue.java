@@ -5,6 +5,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import org.adempiere.util.Check;
 import org.adempiere.util.GuavaCollectors;
@@ -48,20 +49,29 @@ public class UserNotificationsQueue
 
 	private final int adUserId;
 	private String adLanguage;
+	private final int capacity;
 	private final SimpMessagingTemplate websocketMessagingTemplate;
 	private final String websocketEndpoint;
 
 	private final Set<String> activeSessions = ConcurrentHashMap.newKeySet();
+	/** when the last active session was removed; 0 if there are active sessions */
+	private volatile long idleSinceMillis = 0;
 
 	private final ConcurrentHashMap<String, UserNotification> id2notification = new ConcurrentHashMap<>();
 	private final ConcurrentLinkedDeque<UserNotification> notifications = new ConcurrentLinkedDeque<>();
+	private final AtomicInteger size = new AtomicInteger(0);
 	private final AtomicInteger unreadCount = new AtomicInteger(0);
 
-	/* package */ UserNotificationsQueue(final int adUserId, final String adLanguage, final SimpMessagingTemplate websocketMessagingTemplate)
+	/**
+	 * @param capacity how many notifications to keep; when exceeded, the oldest notifications are dropped
+	 */
+	/* package */ UserNotificationsQueue(final int adUserId, final String adLanguage, final int capacity, final SimpMessagingTemplate websocketMessagingTemplate)
 	{
 		super();
+		Check.assume(capacity > 0, "capacity > 0");
 		this.adUserId = adUserId;
 		this.adLanguage = adLanguage;
+		this.capacity = capacity;
 		this.websocketMessagingTemplate = websocketMessagingTemplate;
 		websocketEndpoint = WebSocketConfig.buildNotificationsTopicName(adUserId);
 		
@@ -73,6 +83,7 @@ public class UserNotificationsQueue
 	{
 		return MoreObjects.toStringHelper(this)
 				.add("websocketEndpoint", websocketEndpoint)
+				.add("size", size.get())
 				.add("unread", unreadCount.get())
 				.toString();
 	}
@@ -105,7 +116,7 @@ public class UserNotificationsQueue
 			final List<UserNotification> notifications = this.notifications.stream()
 					.limit(limit)
 					.collect(GuavaCollectors.toImmutableList());
-			return UserNotificationsList.of(notifications, this.notifications.size(), getUnreadCount());
+			return UserNotificationsList.of(notifications, size.get(), getUnreadCount());
 		}
 	}
 
@@ -113,13 +124,25 @@ public class UserNotificationsQueue
 	{
 		Check.assumeNotNull(sessionId, "Parameter sessionId is not null");
 		activeSessions.add(sessionId);
+		idleSinceMillis = 0;
 		logger.debug("Added sessionId '{}' to {}", sessionId, this);
 	}
 
-	public void removeActiveSessionId(final String sessionId)
+	/**
+	 * @return true if the session was active
+	 */
+	public boolean removeActiveSessionId(final String sessionId)
 	{
-		activeSessions.remove(sessionId);
-		logger.debug("Removed sessionId '{}' to {}", sessionId, this);
+		final boolean removed = activeSessions.remove(sessionId);
+		if (removed)
+		{
+			if (activeSessions.isEmpty())
+			{
+				idleSinceMillis = System.currentTimeMillis();
+			}
+			logger.debug("Removed sessionId '{}' from {}", sessionId, this);
+		}
+		return removed;
 	}
 
 	public boolean hasActiveSessions()
@@ -127,7 +150,26 @@ public class UserNotificationsQueue
 		return !activeSessions.isEmpty();
 	}
 
+	/**
+	 * @return true if there were no active sessions for at least given time
+	 */
+	public boolean isIdleLongerThan(final long millis)
+	{
+		final long idleSinceMillis = this.idleSinceMillis;
+		return !hasActiveSessions()
+				&& idleSinceMillis > 0
+				&& System.currentTimeMillis() - idleSinceMillis >= millis;
+	}
+
 	/* package */void addNotification(final UserNotification notification)
+	{
+		addNotification(notification, adLanguage -> JSONNotification.of(notification, adLanguage));
+	}
+
+	/**
+	 * @param jsonNotificationProvider provides the JSON representation of the given notification for a given language. Useful when the same notification is sent to many users, because it can be rendered once per language.
+	 */
+	/* package */synchronized void addNotification(final UserNotification notification, final Function<String, JSONNotification> jsonNotificationProvider)
 	{
 		Check.assumeNotNull(notification, "Parameter notification is not null");
 
@@ -141,6 +183,7 @@ public class UserNotificationsQueue
 			return;
 		}
 		notifications.addFirst(notification);
+		size.incrementAndGet();
 
 		//
 		// Update unreadCount
@@ -149,14 +192,41 @@ public class UserNotificationsQueue
 			unreadCount.incrementAndGet();
 		}
 
+		//
+		// Drop the oldest notifications if we exceeded the capacity
+		while (size.get() > capacity)
+		{
+			final UserNotification notificationToDrop = notifications.pollLast();
+			if (notificationToDrop == null)
+			{
+				break;
+			}
+			dropNotification(notificationToDrop);
+		}
+
 		logger.trace("Added notification to {}: {}", this, notification); // NOTE: log after updating unreadCount
 
 		//
 		// Notify on websocket
-		final JSONNotification jsonNotification = JSONNotification.of(notification, adLanguage);
+		final JSONNotification jsonNotification = jsonNotificationProvider.apply(adLanguage);
 		fireEventOnWebsocket(JSONNotificationEvent.eventNew(jsonNotification, unreadCount.get()));
 	}
 
+	private void dropNotification(final UserNotification notification)
+	{
+		id2notification.remove(notification.getId());
+		size.decrementAndGet();
+
+		// NOTE: we are flagging it as read to make sure it won't be considered anymore, even if somebody has a reference to it
+		final boolean alreadyRead = notification.setRead(true);
+		if (!alreadyRead)
+		{
+			unreadCount.decrementAndGet();
+		}
+
+		logger.trace("Dropped notification from {} because capacity={} was exceeded: {}", this, capacity, notification);
+	}
+
 	public void markAsRead(final String notificationId)
 	{
 		final UserNotification notification = id2notification.get(notificationId);
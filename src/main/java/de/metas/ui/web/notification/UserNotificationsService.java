@@ -1,11 +1,15 @@
 package de.metas.ui.web.notification;
 
+import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import org.adempiere.util.Services;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
@@ -14,6 +18,7 @@ import de.metas.event.Event;
 import de.metas.event.IEventBus;
 import de.metas.event.IEventBusFactory;
 import de.metas.logging.LogManager;
+import de.metas.ui.web.notification.json.JSONNotification;
 import de.metas.ui.web.session.UserSession.LanguagedChangedEvent;
 
 /*
@@ -46,6 +51,16 @@ public class UserNotificationsService
 	@Autowired
 	private SimpMessagingTemplate websocketMessagingTemplate;
 
+	@Value("${metasfresh.webui.notifications.maxPerUser:200}")
+	private int maxNotificationsPerUser;
+
+	/**
+	 * How long we keep the notifications queue of a user who has no more active sessions.
+	 * Meanwhile it's still collecting the notifications, so they are not lost if the user logs in again (e.g. after the session timed out).
+	 */
+	@Value("${metasfresh.webui.notifications.idleQueueTTLMinutes:30}")
+	private int idleQueueTTLMinutes;
+
 	private final ConcurrentHashMap<Integer, UserNotificationsQueue> adUserId2notifications = new ConcurrentHashMap<>();
 
 	private final AtomicBoolean subscribedToEventBus = new AtomicBoolean(false);
@@ -77,15 +92,35 @@ public class UserNotificationsService
 		logger.trace("Enabling for sessionId={}, adUserId={}, adLanguage={}", sessionId, adUserId, adLanguage);
 
 		final UserNotificationsQueue notificationsQueue = adUserId2notifications.computeIfAbsent(adUserId,
-				theSessionId -> new UserNotificationsQueue(adUserId, adLanguage, websocketMessagingTemplate));
+				theSessionId -> new UserNotificationsQueue(adUserId, adLanguage, maxNotificationsPerUser, websocketMessagingTemplate));
 		notificationsQueue.addActiveSessionId(sessionId);
 
 		subscribeToEventTopicsIfNeeded();
+		releaseIdleNotificationsQueues();
 	}
 
 	public synchronized void disableForSession(final String sessionId)
 	{
-		// TODO: implement
+		logger.trace("Disabling for sessionId={}", sessionId);
+
+		adUserId2notifications.values().forEach(notificationsQueue -> notificationsQueue.removeActiveSessionId(sessionId));
+
+		releaseIdleNotificationsQueues();
+	}
+
+	/** Releases the notifications queues of the users which had no active sessions for longer than {@link #idleQueueTTLMinutes} */
+	private synchronized void releaseIdleNotificationsQueues()
+	{
+		final long idleQueueTTLMillis = TimeUnit.MINUTES.toMillis(Math.max(idleQueueTTLMinutes, 0));
+		for (final Iterator<UserNotificationsQueue> it = adUserId2notifications.values().iterator(); it.hasNext();)
+		{
+			final UserNotificationsQueue notificationsQueue = it.next();
+			if (notificationsQueue.isIdleLongerThan(idleQueueTTLMillis))
+			{
+				it.remove();
+				logger.debug("Released {} because there were no active sessions for more than {} minutes", notificationsQueue, idleQueueTTLMinutes);
+			}
+		}
 	}
 
 	public String getWebsocketEndpoint(final int adUserId)
@@ -116,7 +151,12 @@ public class UserNotificationsService
 		if (event.isAllRecipients())
 		{
 			logger.trace("Sending event to ALL: {}", adUserId2notifications);
-			adUserId2notifications.forEachValue(100, notificationsQueue -> notificationsQueue.addNotification(notification.copy()));
+
+			// Render the notification once per language and share it between all recipients
+			final ConcurrentHashMap<String, JSONNotification> jsonNotificationsByLanguage = new ConcurrentHashMap<>();
+			final Function<String, JSONNotification> jsonNotificationProvider = adLanguage -> jsonNotificationsByLanguage.computeIfAbsent(adLanguage, k -> JSONNotification.of(notification, adLanguage));
+
+			adUserId2notifications.forEachValue(100, notificationsQueue -> notificationsQueue.addNotification(notification.copy(), jsonNotificationProvider));
 		}
 		else
 		{
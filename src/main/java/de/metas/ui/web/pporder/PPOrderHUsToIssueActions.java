@@ -8,6 +8,7 @@ import org.adempiere.ad.dao.IQueryBL;
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.exceptions.FillMandatoryException;
 import org.adempiere.util.Services;
+import org.adempiere.util.lang.impl.TableRecordReference;
 import org.compiere.Adempiere;
 import org.compiere.util.Env;
 
@@ -146,7 +147,7 @@ public final class PPOrderHUsToIssueActions
 				.createIssues(hus);
 
 		husView.removesHUsAndInvalidate(hus);
-		ppOrderView.invalidateAll();
+		ppOrderView.invalidateRecords(TableRecordReference.ofSet(hus)); // refresh only the affected issue lines
 	}
 
 	/**
@@ -188,7 +189,7 @@ public final class PPOrderHUsToIssueActions
 				.createIssues(extractedTUs);
 
 		husView.invalidateAll();
-		ppOrderView.invalidateAll();
+		ppOrderView.invalidateRecords(TableRecordReference.ofSet(extractedTUs)); // refresh only the affected issue lines
 	}
 
 	private static final Set<Integer> extractHUIds(final IView view, final DocumentIdsSelection selectedHURowIds)
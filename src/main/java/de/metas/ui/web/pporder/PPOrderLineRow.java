@@ -123,6 +123,11 @@ public class PPOrderLineRow implements IViewRow, IPPOrderBOMLine
 		return ppOrderQtyId;
 	}
 
+	public int getM_HU_ID()
+	{
+		return huId;
+	}
+
 	@Override
 	public DocumentId getId()
 	{
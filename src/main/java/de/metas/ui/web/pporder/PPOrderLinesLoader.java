@@ -3,6 +3,12 @@ package de.metas.ui.web.pporder;
 import java.math.BigDecimal;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
 
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.model.InterfaceWrapperHelper;
@@ -18,6 +24,7 @@ import org.eevolution.model.X_PP_Order_BOMLine;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ListMultimap;
 
 import de.metas.handlingunits.model.I_M_HU_LUTU_Configuration;
@@ -69,6 +76,13 @@ public class PPOrderLinesLoader
 		return new PPOrderLinesLoaderBuilder().viewWindowId(viewWindowId);
 	}
 
+	/** BOM line ID used for the main product row */
+	public static final int MAIN_PRODUCT_BOMLine_ID = 0;
+
+	private static final Comparator<PPOrderLineRow> ROWS_ORDER = Comparator.<PPOrderLineRow> comparingInt(row -> row.getType() == PPOrderLineType.MainProduct ? 0 : 1) // main product first
+			.thenComparingInt(row -> row.isReceipt() ? 0 : 1) // receipt lines first
+			.thenComparing(row -> row.getPP_Order_BOMLine_ID()); // BOM lines order
+
 	//
 	// Services
 	private final transient IPPOrderBOMDAO ppOrderBOMDAO = Services.get(IPPOrderBOMDAO.class);
@@ -108,27 +122,80 @@ public class PPOrderLinesLoader
 	{
 		final I_PP_Order ppOrder = InterfaceWrapperHelper.create(Env.getCtx(), ppOrderId, I_PP_Order.class, ITrx.TRXNAME_None);
 		final String ppOrder_planningStatus = ppOrder.getPlanningStatus();
-		final boolean readonly = X_PP_Order.PLANNINGSTATUS_Complete.equals(ppOrder_planningStatus);
 
-		final int mainProductBOMLineId = 0;
-		final ListMultimap<Integer, I_PP_Order_Qty> ppOrderQtysByBOMLineId = ppOrderQtyDAO.streamOrderQtys(ppOrderId)
-				.collect(GuavaCollectors.toImmutableListMultimap(ppOrderQty -> Util.firstGreaterThanZero(ppOrderQty.getPP_Order_BOMLine_ID(), mainProductBOMLineId)));
+		final List<PPOrderLineRow> records = retrieveRows(ppOrder, ppOrderBOMLineId -> true);
+		return new PPOrderLinesViewData(ppOrder_planningStatus, records);
+	}
+
+	/**
+	 * Reloads only the top level rows of given BOM lines and keeps the other rows of <code>data</code>.
+	 * If the planning status of the manufacturing order changed, all rows are reloaded.
+	 *
+	 * @param ppOrderBOMLineIds BOM line IDs to reload; use {@link #MAIN_PRODUCT_BOMLine_ID} for the main product row
+	 */
+	public PPOrderLinesViewData retrieveDataChanges(final PPOrderLinesViewData data, final int ppOrderId, final Set<Integer> ppOrderBOMLineIds)
+	{
+		final I_PP_Order ppOrder = InterfaceWrapperHelper.create(Env.getCtx(), ppOrderId, I_PP_Order.class, ITrx.TRXNAME_None);
+		final String ppOrder_planningStatus = ppOrder.getPlanningStatus();
+		if (!Objects.equals(ppOrder_planningStatus, data.getPlanningStatus()))
+		{
+			// all rows are affected (e.g. processed flag)
+			return new PPOrderLinesViewData(ppOrder_planningStatus, retrieveRows(ppOrder, ppOrderBOMLineId -> true));
+		}
+
+		final List<PPOrderLineRow> records = Stream.concat(
+				data.stream().filter(row -> !ppOrderBOMLineIds.contains(extractPPOrderBOMLineId(row))),
+				retrieveRows(ppOrder, ppOrderBOMLineIds::contains).stream())
+				.sorted(ROWS_ORDER)
+				.collect(ImmutableList.toImmutableList());
+		return new PPOrderLinesViewData(ppOrder_planningStatus, records);
+	}
+
+	/** @return the PP_Order_BOMLine_ID of given top level row or {@link #MAIN_PRODUCT_BOMLine_ID} */
+	public static int extractPPOrderBOMLineId(final PPOrderLineRow row)
+	{
+		return Util.firstGreaterThanZero(row.getPP_Order_BOMLine_ID(), MAIN_PRODUCT_BOMLine_ID);
+	}
+
+	/** @return the PP_Order_BOMLine_ID of given issue/receipt candidate or {@link #MAIN_PRODUCT_BOMLine_ID} */
+	public static int extractPPOrderBOMLineId(final I_PP_Order_Qty ppOrderQty)
+	{
+		return Util.firstGreaterThanZero(ppOrderQty.getPP_Order_BOMLine_ID(), MAIN_PRODUCT_BOMLine_ID);
+	}
+
+	private List<PPOrderLineRow> retrieveRows(final I_PP_Order ppOrder, final IntPredicate ppOrderBOMLineIdFilter)
+	{
+		final boolean readonly = X_PP_Order.PLANNINGSTATUS_Complete.equals(ppOrder.getPlanningStatus());
+
+		final ListMultimap<Integer, I_PP_Order_Qty> ppOrderQtysByBOMLineId = ppOrderQtyDAO.streamOrderQtys(ppOrder.getPP_Order_ID())
+				.filter(ppOrderQty -> ppOrderBOMLineIdFilter.test(extractPPOrderBOMLineId(ppOrderQty)))
+				.collect(GuavaCollectors.toImmutableListMultimap(ppOrderQty -> extractPPOrderBOMLineId(ppOrderQty)));
+
+		// Load all issued/received HUs at once
+		final Map<Integer, HUEditorRow> huEditorRowsByHUId = huEditorRepo.retrieveForHUIds(ppOrderQtysByBOMLineId.values()
+				.stream()
+				.map(I_PP_Order_Qty::getM_HU_ID)
+				.collect(ImmutableSet.toImmutableSet()));
+		final Function<I_PP_Order_Qty, PPOrderLineRow> qtyRowFactory = ppOrderQty -> createForQty(ppOrderQty, huEditorRowsByHUId.get(ppOrderQty.getM_HU_ID()), readonly);
 
 		final ImmutableList.Builder<PPOrderLineRow> records = ImmutableList.builder();
 
 		// Main product
-		records.add(createForMainProduct(ppOrder, readonly, ppOrderQtysByBOMLineId.get(mainProductBOMLineId)));
+		if (ppOrderBOMLineIdFilter.test(MAIN_PRODUCT_BOMLine_ID))
+		{
+			records.add(createForMainProduct(ppOrder, readonly, ppOrderQtysByBOMLineId.get(MAIN_PRODUCT_BOMLine_ID), qtyRowFactory));
+		}
 
 		//
 		// BOM lines
 		ppOrderBOMDAO.retrieveOrderBOMLines(ppOrder, I_PP_Order_BOMLine.class)
 				.stream()
-				.map(ppOrderBOMLine -> createForBOMLine(ppOrder, ppOrderBOMLine, readonly, ppOrderQtysByBOMLineId.get(ppOrderBOMLine.getPP_Order_BOMLine_ID())))
-				.sorted(Comparator.<PPOrderLineRow> comparingInt(row -> row.isReceipt() ? 0 : 1) // receipt lines first
-						.thenComparing(row -> row.getPP_Order_BOMLine_ID())) // BOM lines order
+				.filter(ppOrderBOMLine -> ppOrderBOMLineIdFilter.test(ppOrderBOMLine.getPP_Order_BOMLine_ID()))
+				.map(ppOrderBOMLine -> createForBOMLine(ppOrderBOMLine, readonly, ppOrderQtysByBOMLineId.get(ppOrderBOMLine.getPP_Order_BOMLine_ID()), qtyRowFactory))
+				.sorted(ROWS_ORDER)
 				.forEach(records::add);
 
-		return new PPOrderLinesViewData(ppOrder_planningStatus, records.build());
+		return records.build();
 	}
 
 	private static final String extractPackingInfoString(final I_M_HU_LUTU_Configuration lutuConfig)
@@ -156,7 +223,7 @@ public class PPOrderLinesLoader
 		}
 	}
 
-	private PPOrderLineRow createForMainProduct(final I_PP_Order ppOrder, final boolean readonly, final List<I_PP_Order_Qty> ppOrderQtys)
+	private PPOrderLineRow createForMainProduct(final I_PP_Order ppOrder, final boolean readonly, final List<I_PP_Order_Qty> ppOrderQtys, final Function<I_PP_Order_Qty, PPOrderLineRow> qtyRowFactory)
 	{
 		final DocumentId rowId = DocumentId.of(org.eevolution.model.I_PP_Order.Table_Name + "_" + ppOrder.getPP_Order_ID());
 
@@ -175,12 +242,12 @@ public class PPOrderLinesLoader
 				.setQtyAsSumOfIncludedQtys()
 				.setAttributesSupplier(createASIAttributesSupplier(rowId, ppOrder.getM_AttributeSetInstance_ID()))
 				//
-				.addIncludedDocumentFrom(ppOrderQtys, ppOrderQty -> createForQty(ppOrderQty, readonly))
+				.addIncludedDocumentFrom(ppOrderQtys, qtyRowFactory)
 				//
 				.build();
 	}
 
-	private PPOrderLineRow createForBOMLine(final I_PP_Order ppOrder, final I_PP_Order_BOMLine ppOrderBOMLine, final boolean readonly, final List<I_PP_Order_Qty> ppOrderQtys)
+	private PPOrderLineRow createForBOMLine(final I_PP_Order_BOMLine ppOrderBOMLine, final boolean readonly, final List<I_PP_Order_Qty> ppOrderQtys, final Function<I_PP_Order_Qty, PPOrderLineRow> qtyRowFactory)
 	{
 		final DocumentId rowId = DocumentId.of(org.eevolution.model.I_PP_Order_BOMLine.Table_Name + "_" + ppOrderBOMLine.getPP_Order_BOMLine_ID());
 
@@ -218,15 +285,14 @@ public class PPOrderLinesLoader
 				.setAttributesSupplier(createASIAttributesSupplier(rowId, ppOrderBOMLine.getM_AttributeSetInstance_ID()));
 
 		ppOrderQtys.stream()
-				.map(ppOrderQty -> createForQty(ppOrderQty, readonly))
+				.map(qtyRowFactory)
 				.forEach(huViewRecord -> builder.addIncludedDocument(huViewRecord));
 
 		return builder.build();
 	}
 
-	private PPOrderLineRow createForQty(final I_PP_Order_Qty ppOrderQty, final boolean readonly)
+	private PPOrderLineRow createForQty(final I_PP_Order_Qty ppOrderQty, final HUEditorRow huEditorRow, final boolean readonly)
 	{
-		final HUEditorRow huEditorRow = huEditorRepo.retrieveForHUId(ppOrderQty.getM_HU_ID());
 		final HUEditorRow parentHUViewRecord = null;
 		return createForHUViewRecordRecursivelly(ppOrderQty, huEditorRow, parentHUViewRecord, readonly);
 	}
@@ -1,23 +1,38 @@
 package de.metas.ui.web.pporder;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.util.GuavaCollectors;
+import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.util.Services;
-import org.adempiere.util.lang.ExtendedMemorizingSupplier;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.lang.IAutoCloseable;
 import org.adempiere.util.lang.impl.TableRecordReference;
 import org.compiere.Adempiere;
+import org.compiere.util.Env;
 import org.compiere.util.Evaluatee;
 import org.eevolution.model.X_PP_Order;
+import org.slf4j.Logger;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
+import de.metas.handlingunits.model.I_M_HU;
+import de.metas.handlingunits.model.I_PP_Order;
+import de.metas.handlingunits.model.I_PP_Order_BOMLine;
+import de.metas.handlingunits.model.I_PP_Order_Qty;
 import de.metas.handlingunits.pporder.api.IHUPPOrderBL;
+import de.metas.logging.LogManager;
 import de.metas.process.ProcessPreconditionsResolution;
 import de.metas.ui.web.document.filter.DocumentFilter;
 import de.metas.ui.web.exceptions.EntityNotFoundException;
@@ -37,7 +52,6 @@ import de.metas.ui.web.window.datatypes.DocumentId;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
 import de.metas.ui.web.window.datatypes.DocumentPath;
 import de.metas.ui.web.window.datatypes.LookupValuesList;
-import de.metas.ui.web.window.datatypes.WindowId;
 import de.metas.ui.web.window.model.DocumentQueryOrderBy;
 import lombok.Builder;
 import lombok.NonNull;
@@ -66,6 +80,8 @@ import lombok.NonNull;
 
 public class PPOrderLinesView implements IView
 {
+	private static final Logger logger = LogManager.getLogger(PPOrderLinesView.class);
+
 	public static PPOrderLinesView cast(final IView view)
 	{
 		return (PPOrderLinesView)view;
@@ -79,8 +95,26 @@ public class PPOrderLinesView implements IView
 
 	private final int ppOrderId;
 
+	private static final ImmutableSet<String> TABLENAMES_TO_NOTIFY_ON_RECORDS_CHANGED = ImmutableSet.of(
+			I_PP_Order.Table_Name,
+			I_PP_Order_BOMLine.Table_Name,
+			I_PP_Order_Qty.Table_Name,
+			I_M_HU.Table_Name);
+
+	/** How long we are collecting the changed records before refreshing the affected rows, see {@link #notifyRecordsChanged(Set)} */
+	private static final long RECORDS_CHANGED_DELAY_MILLIS = 500;
+	private static final ScheduledExecutorService recordsChangedScheduler = Executors.newSingleThreadScheduledExecutor(CustomizableThreadFactory.builder()
+			.setThreadNamePrefix(PPOrderLinesView.class.getName() + "-recordsChanged")
+			.setDaemon(true)
+			.build());
+
 	private final ASIViewRowAttributesProvider asiAttributesProvider;
-	private final ExtendedMemorizingSupplier<PPOrderLinesViewData> dataSupplier;
+	/** Loaded data or <code>null</code> if not loaded yet or invalidated */
+	private volatile PPOrderLinesViewData _data;
+
+	/** Changed records which were not checked yet; guarded by itself */
+	private final Set<TableRecordReference> pendingChangedRecordRefs = new HashSet<>();
+	private boolean pendingChangedRecordsScheduled = false;
 
 	@Builder
 	private PPOrderLinesView( //
@@ -101,12 +135,13 @@ public class PPOrderLinesView implements IView
 		this.ppOrderId = ppOrderId;
 
 		this.asiAttributesProvider = asiAttributesProvider;
+	}
 
-		final WindowId viewWindowId = viewId.getWindowId();
-		dataSupplier = ExtendedMemorizingSupplier.of(() -> PPOrderLinesLoader.builder(viewWindowId)
+	private PPOrderLinesLoader newLoader()
+	{
+		return PPOrderLinesLoader.builder(viewId.getWindowId())
 				.asiAttributesProvider(asiAttributesProvider)
-				.build()
-				.retrieveData(ppOrderId));
+				.build();
 	}
 
 	public String getPlanningStatus()
@@ -261,10 +296,213 @@ public class PPOrderLinesView implements IView
 		return getData().streamRecursive();
 	}
 
+	@Override
+	public Set<String> getTableNamesToNotifyOnRecordsChanged()
+	{
+		return TABLENAMES_TO_NOTIFY_ON_RECORDS_CHANGED;
+	}
+
+	/**
+	 * Collects the changed records and refreshes the affected rows after {@link #RECORDS_CHANGED_DELAY_MILLIS}, on a background thread.
+	 * <p>
+	 * NOTE: the tables we are listening to are changed very often (mostly by other orders), so we are batching the notifications
+	 * in order to check them with a few queries and to reload each affected row only once.
+	 */
 	@Override
 	public void notifyRecordsChanged(final Set<TableRecordReference> recordRefs)
 	{
-		// TODO: notifyRecordsChanged: identify the sub-trees which could be affected and invalidate only those
+		if (_data == null)
+		{
+			// not loaded yet => nothing to refresh
+			return;
+		}
+
+		synchronized (pendingChangedRecordRefs)
+		{
+			pendingChangedRecordRefs.addAll(recordRefs);
+			if (pendingChangedRecordsScheduled)
+			{
+				return;
+			}
+			pendingChangedRecordsScheduled = true;
+		}
+
+		// NOTE: the rows are loaded on another thread, so we have to pass it the current context
+		final Properties ctx = Env.copyCtx(Env.getCtx());
+		recordsChangedScheduler.schedule(() -> {
+			try (final IAutoCloseable ctxRestorer = Env.switchContext(ctx))
+			{
+				processPendingChangedRecords();
+			}
+			catch (final Exception ex)
+			{
+				logger.warn("Failed refreshing {} after records changed. Ignored.", this, ex);
+			}
+		}, RECORDS_CHANGED_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	private void processPendingChangedRecords()
+	{
+		final Set<TableRecordReference> recordRefs;
+		synchronized (pendingChangedRecordRefs)
+		{
+			recordRefs = ImmutableSet.copyOf(pendingChangedRecordRefs);
+			pendingChangedRecordRefs.clear();
+			pendingChangedRecordsScheduled = false;
+		}
+
+		invalidateRecords(recordRefs);
+	}
+
+	/**
+	 * Synchronously refreshes the rows which are affected by given record changes.
+	 * To be used by actions of this view, which want to see their changes right away.
+	 */
+	public void invalidateRecords(final Set<TableRecordReference> recordRefs)
+	{
+		final PPOrderLinesViewData data = _data;
+		if (data == null)
+		{
+			// not loaded yet => nothing to refresh
+			return;
+		}
+
+		final Set<Integer> ppOrderBOMLineIds = extractAffectedPPOrderBOMLineIds(data, recordRefs);
+		if (ppOrderBOMLineIds.isEmpty())
+		{
+			return;
+		}
+
+		invalidatePPOrderBOMLines(ppOrderBOMLineIds);
+	}
+
+	/** @return the PP_Order_BOMLine_IDs (see {@link PPOrderLinesLoader#extractPPOrderBOMLineId(PPOrderLineRow)}) of the top level rows which are affected by given record changes */
+	private Set<Integer> extractAffectedPPOrderBOMLineIds(final PPOrderLinesViewData data, final Set<TableRecordReference> recordRefs)
+	{
+		final Set<Integer> ppOrderBOMLineIds = new HashSet<>();
+		final Set<Integer> unknownPPOrderBOMLineIds = new HashSet<>();
+		final Set<Integer> unknownPPOrderQtyIds = new HashSet<>();
+		final Set<Integer> unknownHUIds = new HashSet<>();
+		for (final TableRecordReference recordRef : recordRefs)
+		{
+			final String tableName = recordRef.getTableName();
+			final int recordId = recordRef.getRecord_ID();
+			if (I_PP_Order.Table_Name.equals(tableName))
+			{
+				if (recordId == ppOrderId)
+				{
+					ppOrderBOMLineIds.add(PPOrderLinesLoader.MAIN_PRODUCT_BOMLine_ID);
+				}
+			}
+			else if (I_PP_Order_BOMLine.Table_Name.equals(tableName))
+			{
+				if (data.hasPPOrderBOMLineId(recordId))
+				{
+					ppOrderBOMLineIds.add(recordId);
+				}
+				else
+				{
+					unknownPPOrderBOMLineIds.add(recordId); // maybe a new BOM line
+				}
+			}
+			else if (I_PP_Order_Qty.Table_Name.equals(tableName))
+			{
+				final Integer ppOrderBOMLineId = data.getPPOrderBOMLineIdByPPOrderQtyId(recordId);
+				if (ppOrderBOMLineId != null)
+				{
+					ppOrderBOMLineIds.add(ppOrderBOMLineId);
+				}
+				else
+				{
+					unknownPPOrderQtyIds.add(recordId); // maybe a new issue/receipt candidate
+				}
+			}
+			else if (I_M_HU.Table_Name.equals(tableName))
+			{
+				final Integer ppOrderBOMLineId = data.getPPOrderBOMLineIdByHUId(recordId);
+				if (ppOrderBOMLineId != null)
+				{
+					ppOrderBOMLineIds.add(ppOrderBOMLineId);
+				}
+				else
+				{
+					unknownHUIds.add(recordId);
+				}
+			}
+		}
+
+		//
+		// BOM lines which are not in our view yet: check, with one query, which of them are of our order
+		if (!unknownPPOrderBOMLineIds.isEmpty())
+		{
+			Services.get(IQueryBL.class).createQueryBuilder(I_PP_Order_BOMLine.class, Env.getCtx(), ITrx.TRXNAME_None)
+					.addEqualsFilter(I_PP_Order_BOMLine.COLUMNNAME_PP_Order_ID, ppOrderId)
+					.addInArrayFilter(I_PP_Order_BOMLine.COLUMNNAME_PP_Order_BOMLine_ID, unknownPPOrderBOMLineIds)
+					.create()
+					.listIds()
+					.forEach(ppOrderBOMLineIds::add);
+		}
+
+		//
+		// Issue/receipt candidates and HUs which are not in our view yet (e.g. just issued/received).
+		// NOTE: most of them are not related to our order at all, so we are looking up only those records, restricted to our order,
+		// instead of fetching all issue/receipt candidates of our order.
+		if (!unknownPPOrderQtyIds.isEmpty())
+		{
+			retrievePPOrderBOMLineIdsOfOrderQtys(I_PP_Order_Qty.COLUMNNAME_PP_Order_Qty_ID, unknownPPOrderQtyIds)
+					.forEach(ppOrderBOMLineIds::add);
+		}
+		if (!unknownHUIds.isEmpty())
+		{
+			retrievePPOrderBOMLineIdsOfOrderQtys(I_PP_Order_Qty.COLUMNNAME_M_HU_ID, unknownHUIds)
+					.forEach(ppOrderBOMLineIds::add);
+		}
+
+		return ppOrderBOMLineIds;
+	}
+
+	/** @return the PP_Order_BOMLine_IDs of this order's issue/receipt candidates, whose given column is one of given IDs */
+	private Stream<Integer> retrievePPOrderBOMLineIdsOfOrderQtys(final String columnName, final Set<Integer> ids)
+	{
+		return Services.get(IQueryBL.class).createQueryBuilder(I_PP_Order_Qty.class, Env.getCtx(), ITrx.TRXNAME_None)
+				.addEqualsFilter(I_PP_Order_Qty.COLUMNNAME_PP_Order_ID, ppOrderId)
+				.addInArrayFilter(columnName, ids)
+				.create()
+				.list(I_PP_Order_Qty.class)
+				.stream()
+				.map(PPOrderLinesLoader::extractPPOrderBOMLineId);
+	}
+
+	/**
+	 * Reloads only the top level rows of given BOM lines (including their issued/received HUs) and notifies the frontend about them.
+	 *
+	 * @param ppOrderBOMLineIds BOM line IDs; use {@link PPOrderLinesLoader#MAIN_PRODUCT_BOMLine_ID} for the main product row
+	 */
+	public void invalidatePPOrderBOMLines(final Set<Integer> ppOrderBOMLineIds)
+	{
+		final PPOrderLinesViewData newData;
+		synchronized (this)
+		{
+			final PPOrderLinesViewData data = _data;
+			if (data == null)
+			{
+				return; // not loaded yet, will be fully loaded on demand
+			}
+
+			newData = _data = newLoader().retrieveDataChanges(data, ppOrderId, ppOrderBOMLineIds);
+		}
+
+		final DocumentIdsSelection rowIds = newData.stream()
+				.filter(row -> ppOrderBOMLineIds.contains(PPOrderLinesLoader.extractPPOrderBOMLineId(row)))
+				.map(PPOrderLineRow::getId)
+				.collect(DocumentIdsSelection.toDocumentIdsSelection());
+		if (rowIds.isEmpty())
+		{
+			return;
+		}
+
+		ViewChangesCollector.getCurrentOrAutoflush()
+				.collectRowsChanged(this, rowIds);
 	}
 
 	public void invalidateAll()
@@ -282,12 +520,27 @@ public class PPOrderLinesView implements IView
 			asiAttributesProvider.invalidateAll();
 		}
 
-		dataSupplier.forget();
+		synchronized (this)
+		{
+			_data = null;
+		}
 	}
 
 	private PPOrderLinesViewData getData()
 	{
-		return dataSupplier.get();
+		PPOrderLinesViewData data = _data;
+		if (data == null)
+		{
+			synchronized (this)
+			{
+				data = _data;
+				if (data == null)
+				{
+					data = _data = newLoader().retrieveData(ppOrderId);
+				}
+			}
+		}
+		return data;
 	}
 
 	@ViewAction(caption = "PPOrderLinesView.openViewsToIssue", precondition = IsSingleIssueLine.class)
@@ -1,12 +1,15 @@
 package de.metas.ui.web.pporder;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import javax.annotation.concurrent.Immutable;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import de.metas.ui.web.exceptions.EntityNotFoundException;
 import de.metas.ui.web.window.datatypes.DocumentId;
@@ -50,6 +53,12 @@ import lombok.NonNull;
 	private final ImmutableList<PPOrderLineRow> records;
 	/** All records (included ones too) indexed by DocumentId */
 	private final ImmutableMap<DocumentId, PPOrderLineRow> allRecordsById;
+	/** PP_Order_BOMLine_IDs of top level records (see {@link PPOrderLinesLoader#extractPPOrderBOMLineId(PPOrderLineRow)}) */
+	private final ImmutableSet<Integer> ppOrderBOMLineIds;
+	/** PP_Order_Qty_ID to top level record's PP_Order_BOMLine_ID */
+	private final ImmutableMap<Integer, Integer> ppOrderQtyId2ppOrderBOMLineId;
+	/** M_HU_ID to top level record's PP_Order_BOMLine_ID */
+	private final ImmutableMap<Integer, Integer> huId2ppOrderBOMLineId;
 
 	PPOrderLinesViewData(@NonNull final String planningStatus, final List<PPOrderLineRow> records)
 	{
@@ -57,6 +66,28 @@ import lombok.NonNull;
 		this.planningStatus = planningStatus;
 		this.records = ImmutableList.copyOf(records);
 		allRecordsById = buildRecordsByIdMap(this.records);
+
+		ppOrderBOMLineIds = this.records.stream()
+				.map(PPOrderLinesLoader::extractPPOrderBOMLineId)
+				.collect(ImmutableSet.toImmutableSet());
+
+		final Map<Integer, Integer> ppOrderQtyId2ppOrderBOMLineId = new HashMap<>();
+		final Map<Integer, Integer> huId2ppOrderBOMLineId = new HashMap<>();
+		this.records.forEach(record -> {
+			final int ppOrderBOMLineId = PPOrderLinesLoader.extractPPOrderBOMLineId(record);
+			streamRecursive(record).forEach(includedRecord -> {
+				if (includedRecord.getPP_Order_Qty_ID() > 0)
+				{
+					ppOrderQtyId2ppOrderBOMLineId.put(includedRecord.getPP_Order_Qty_ID(), ppOrderBOMLineId);
+				}
+				if (includedRecord.getM_HU_ID() > 0)
+				{
+					huId2ppOrderBOMLineId.put(includedRecord.getM_HU_ID(), ppOrderBOMLineId);
+				}
+			});
+		});
+		this.ppOrderQtyId2ppOrderBOMLineId = ImmutableMap.copyOf(ppOrderQtyId2ppOrderBOMLineId);
+		this.huId2ppOrderBOMLineId = ImmutableMap.copyOf(huId2ppOrderBOMLineId);
 	}
 
 	public String getPlanningStatus()
@@ -64,6 +95,23 @@ import lombok.NonNull;
 		return planningStatus;
 	}
 
+	public boolean hasPPOrderBOMLineId(final int ppOrderBOMLineId)
+	{
+		return ppOrderBOMLineIds.contains(ppOrderBOMLineId);
+	}
+
+	/** @return top level record's PP_Order_BOMLine_ID which contains given PP_Order_Qty_ID or <code>null</code> */
+	public Integer getPPOrderBOMLineIdByPPOrderQtyId(final int ppOrderQtyId)
+	{
+		return ppOrderQtyId2ppOrderBOMLineId.get(ppOrderQtyId);
+	}
+
+	/** @return top level record's PP_Order_BOMLine_ID which contains given M_HU_ID or <code>null</code> */
+	public Integer getPPOrderBOMLineIdByHUId(final int huId)
+	{
+		return huId2ppOrderBOMLineId.get(huId);
+	}
+
 	public PPOrderLineRow getById(final DocumentId documentId)
 	{
 		final PPOrderLineRow record = allRecordsById.get(documentId);
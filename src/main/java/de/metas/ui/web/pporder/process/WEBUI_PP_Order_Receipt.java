@@ -6,9 +6,12 @@ import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.model.InterfaceWrapperHelper;
 import org.adempiere.util.Services;
+import org.adempiere.util.lang.impl.TableRecordReference;
 import org.compiere.Adempiere;
 import org.eevolution.model.I_PP_Order_BOMLine;
 
+import com.google.common.collect.ImmutableSet;
+
 import de.metas.handlingunits.impl.IDocumentLUTUConfigurationManager;
 import de.metas.handlingunits.model.I_M_HU_LUTU_Configuration;
 import de.metas.handlingunits.model.I_PP_Order;
@@ -23,6 +26,7 @@ import de.metas.process.ProcessPreconditionsResolution;
 import de.metas.process.RunOutOfTrx;
 import de.metas.ui.web.pporder.PPOrderLineRow;
 import de.metas.ui.web.pporder.PPOrderLineType;
+import de.metas.ui.web.pporder.PPOrderLinesLoader;
 import de.metas.ui.web.pporder.PPOrderLinesView;
 import de.metas.ui.web.view.IViewsRepository;
 
@@ -203,10 +207,18 @@ public class WEBUI_PP_Order_Receipt
 	@Override
 	protected void postProcess(boolean success)
 	{
-		// Invalidate the view because for sure we have changes
+		// Notify the order and the receipt line because for sure we have changes.
+		// NOTE: we are not refreshing our view directly, because it will be notified too and each affected row shall be reloaded only once.
 		final PPOrderLinesView ppOrderLinesView = getView();
-		ppOrderLinesView.invalidateAll();
+		final ImmutableSet.Builder<TableRecordReference> changedRecordRefs = ImmutableSet.builder();
+		changedRecordRefs.add(TableRecordReference.of(I_PP_Order.Table_Name, ppOrderLinesView.getPP_Order_ID()));
+
+		final int ppOrderBOMLineId = PPOrderLinesLoader.extractPPOrderBOMLineId(getSingleSelectedRow());
+		if (ppOrderBOMLineId != PPOrderLinesLoader.MAIN_PRODUCT_BOMLine_ID)
+		{
+			changedRecordRefs.add(TableRecordReference.of(I_PP_Order_BOMLine.Table_Name, ppOrderBOMLineId));
+		}
 
-		viewsRepo.notifyRecordChanged(I_PP_Order.Table_Name, ppOrderLinesView.getPP_Order_ID());
+		viewsRepo.notifyRecordsChanged(changedRecordRefs.build());
 	}
 }
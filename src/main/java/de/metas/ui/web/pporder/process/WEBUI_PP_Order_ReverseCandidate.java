@@ -1,6 +1,9 @@
 package de.metas.ui.web.pporder.process;
 
 import org.adempiere.util.Services;
+import org.adempiere.util.lang.impl.TableRecordReference;
+
+import com.google.common.collect.ImmutableSet;
 
 import de.metas.handlingunits.model.I_PP_Order_Qty;
 import de.metas.handlingunits.pporder.api.IHUPPOrderQtyBL;
@@ -82,6 +85,8 @@ public class WEBUI_PP_Order_ReverseCandidate
 	@Override
 	protected void postProcess(final boolean success)
 	{
-		getView().invalidateAll();
+		// refresh only the issue/receipt line of the reversed candidate
+		final int ppOrderQtyId = getSingleSelectedRow().getPP_Order_Qty_ID();
+		getView().invalidateRecords(ImmutableSet.of(TableRecordReference.of(I_PP_Order_Qty.Table_Name, ppOrderQtyId)));
 	}
 }
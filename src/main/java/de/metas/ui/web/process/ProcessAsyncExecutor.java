@@ -0,0 +1,237 @@
+package de.metas.ui.web.process;
+
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.compiere.util.Env;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import de.metas.logging.LogManager;
+import de.metas.ui.web.exceptions.EntityNotFoundException;
+import de.metas.ui.web.process.json.JSONProcessInstanceResult;
+import de.metas.ui.web.process.json.JSONProcessInstanceStatus;
+import de.metas.ui.web.websocket.WebSocketConfig;
+import de.metas.ui.web.window.datatypes.DocumentId;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Executes process instances asynchronously, on a bounded thread pool.
+ * <p>
+ * The number of processes which are running (and waiting to run) on this node is limited, so long running processes/reports are not blocking the servlet threads.
+ * Each status change is published on process instance's websocket topic (see {@link WebSocketConfig#buildProcessTopicName(int, String)}, which is specific to the user who started it)
+ * and it can also be polled using {@link #getStatus(ProcessId, DocumentId, int)}.
+ * Only the status transitions (queued, running, done/error) are published; intermediate progress of a running process is not reported.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Component
+public class ProcessAsyncExecutor
+{
+	private static final Logger logger = LogManager.getLogger(ProcessAsyncExecutor.class);
+
+	@Autowired
+	private SimpMessagingTemplate websocketMessagingTemplate;
+
+	private final ThreadPoolExecutor executor;
+
+	/** Executions by AD_PInstance_ID */
+	private final Cache<DocumentId, AsyncExecution> executionsByPInstanceId;
+
+	public ProcessAsyncExecutor(
+			@Value("${metasfresh.webui.process.async.threads:4}") final int threads,
+			@Value("${metasfresh.webui.process.async.maxQueued:20}") final int maxQueued,
+			@Value("${metasfresh.webui.process.async.statusExpireMinutes:60}") final int statusExpireMinutes)
+	{
+		executor = new ThreadPoolExecutor(
+				threads, threads, // max concurrent processes on this node
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(Math.max(maxQueued, 1)),
+				CustomizableThreadFactory.builder()
+						.setThreadNamePrefix(getClass().getName())
+						.setDaemon(true)
+						.build());
+
+		executionsByPInstanceId = CacheBuilder.newBuilder()
+				.expireAfterWrite(statusExpireMinutes, TimeUnit.MINUTES)
+				.build();
+
+		logger.info("threads={}, maxQueued={}, statusExpireMinutes={}", threads, maxQueued, statusExpireMinutes);
+	}
+
+	@PreDestroy
+	private void shutdown()
+	{
+		executor.shutdownNow();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ProcessAsyncExecutor[running=" + executor.getActiveCount()
+				+ ", queued=" + executor.getQueue().size()
+				+ ", completed=" + executor.getCompletedTaskCount()
+				+ "]";
+	}
+
+	/**
+	 * Enqueues given process instance execution.
+	 *
+	 * @param processId
+	 * @param pinstanceId
+	 * @param adUserId the user who started the process; only this user will be allowed to get its status
+	 * @param processExecutor the actual execution; it will be called using current context and request attributes
+	 * @return the (queued) status
+	 * @throws AdempiereException if the process instance is already queued/running or if there are too many processes running/queued on this node
+	 */
+	public JSONProcessInstanceStatus submit(
+			@NonNull final ProcessId processId,
+			@NonNull final DocumentId pinstanceId,
+			final int adUserId,
+			@NonNull final Callable<JSONProcessInstanceResult> processExecutor)
+	{
+		//
+		// Atomically check if it was not already started and register it as queued
+		final AsyncExecution queuedExecution = new AsyncExecution(processId.toJson(), adUserId, JSONProcessInstanceStatus.queued(pinstanceId));
+		final AsyncExecution currentExecution = executionsByPInstanceId.asMap().compute(pinstanceId, (k, existingExecution) -> {
+			if (existingExecution != null && !existingExecution.getStatus().isFinished())
+			{
+				return existingExecution;
+			}
+			return queuedExecution;
+		});
+		if (currentExecution != queuedExecution)
+		{
+			throw new AdempiereException("Process instance " + pinstanceId + " was already started");
+		}
+		publishStatus(pinstanceId, queuedExecution);
+
+		// NOTE: the process is executed on another thread, so we have to pass it the current user's context.
+		// We also pass the current request attributes, because the user session (and the user's permissions, see UserSession#getCurrentPermissions())
+		// are resolved from them, e.g. when a process is creating or fetching views.
+		final Properties ctx = Env.copyCtx(Env.getCtx());
+		final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+
+		try
+		{
+			executor.execute(() -> {
+				RequestContextHolder.setRequestAttributes(requestAttributes);
+				try (final IAutoCloseable ctxRestorer = Env.switchContext(ctx))
+				{
+					updateStatus(pinstanceId, queuedExecution, JSONProcessInstanceStatus.running(pinstanceId));
+					final JSONProcessInstanceResult result = processExecutor.call();
+					updateStatus(pinstanceId, queuedExecution, JSONProcessInstanceStatus.done(pinstanceId, result));
+				}
+				catch (final Throwable ex)
+				{
+					logger.warn("Failed executing process instance {}", pinstanceId, ex);
+					updateStatus(pinstanceId, queuedExecution, JSONProcessInstanceStatus.error(pinstanceId, ex.getLocalizedMessage()));
+				}
+				finally
+				{
+					RequestContextHolder.resetRequestAttributes();
+				}
+			});
+		}
+		catch (final RejectedExecutionException ex)
+		{
+			executionsByPInstanceId.asMap().remove(pinstanceId, queuedExecution);
+			throw new AdempiereException("Too many processes are running. Please try again later.", ex);
+		}
+
+		return queuedExecution.getStatus();
+	}
+
+	/**
+	 * @return last known status of an asynchronously started process instance
+	 * @throws EntityNotFoundException if the process instance was not started asynchronously (by given user, for given process) or its status expired
+	 */
+	public JSONProcessInstanceStatus getStatus(@NonNull final ProcessId processId, @NonNull final DocumentId pinstanceId, final int adUserId)
+	{
+		final AsyncExecution execution = executionsByPInstanceId.getIfPresent(pinstanceId);
+
+		// NOTE: we are not telling the caller if the process instance exists but it's not his/hers
+		if (execution == null
+				|| !execution.getProcessId().equals(processId.toJson())
+				|| execution.getAdUserId() != adUserId)
+		{
+			throw new EntityNotFoundException("No asynchronous execution found for pinstanceId=" + pinstanceId);
+		}
+
+		return execution.getStatus();
+	}
+
+	private void updateStatus(final DocumentId pinstanceId, final AsyncExecution execution, final JSONProcessInstanceStatus status)
+	{
+		final AsyncExecution executionNew = execution.withStatus(status);
+		executionsByPInstanceId.put(pinstanceId, executionNew);
+		publishStatus(pinstanceId, executionNew);
+	}
+
+	private void publishStatus(final DocumentId pinstanceId, final AsyncExecution execution)
+	{
+		final JSONProcessInstanceStatus status = execution.getStatus();
+		try
+		{
+			final String endpoint = WebSocketConfig.buildProcessTopicName(execution.getAdUserId(), pinstanceId.toJson());
+			websocketMessagingTemplate.convertAndSend(endpoint, status);
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed publishing {}. Ignored.", status, ex);
+		}
+	}
+
+	@lombok.Value
+	private static final class AsyncExecution
+	{
+		private final String processId;
+		private final int adUserId;
+		private final JSONProcessInstanceStatus status;
+
+		public AsyncExecution withStatus(final JSONProcessInstanceStatus status)
+		{
+			return new AsyncExecution(processId, adUserId, status);
+		}
+	}
+}
@@ -32,6 +32,7 @@ import de.metas.ui.web.process.descriptor.WebuiRelatedProcessDescriptor;
 import de.metas.ui.web.process.json.JSONCreateProcessInstanceRequest;
 import de.metas.ui.web.process.json.JSONProcessInstance;
 import de.metas.ui.web.process.json.JSONProcessInstanceResult;
+import de.metas.ui.web.process.json.JSONProcessInstanceStatus;
 import de.metas.ui.web.process.json.JSONProcessLayout;
 import de.metas.ui.web.session.UserSession;
 import de.metas.ui.web.view.IView;
@@ -88,6 +89,9 @@ public class ProcessRestController
 	@Autowired
 	private IViewsRepository viewsRepo;
 
+	@Autowired
+	private ProcessAsyncExecutor processAsyncExecutor;
+
 	private final ConcurrentHashMap<String, IProcessInstancesRepository> pinstancesRepositoriesByHandlerType = new ConcurrentHashMap<>();
 
 	private static final ReasonSupplier REASON_Value_DirectSetFromCommitAPI = () -> "direct set from commit API";
@@ -252,6 +256,47 @@ public class ProcessRestController
 				});
 	}
 
+	/**
+	 * Starts the process asynchronously and returns immediately.
+	 * The status changes (including the result) are published on process instance's websocket topic and can also be polled using {@link #getProcessStatus(String, String)}.
+	 */
+	@RequestMapping(value = "/{processId}/{pinstanceId}/startAsync", method = RequestMethod.GET)
+	public JSONProcessInstanceStatus startProcessAsync(
+			@PathVariable("processId") final String processIdStr //
+			, @PathVariable("pinstanceId") final String pinstanceIdStr //
+	)
+	{
+		userSession.assertLoggedIn();
+
+		final ProcessId processId = ProcessId.fromJson(processIdStr);
+		final DocumentId pinstanceId = DocumentId.of(pinstanceIdStr);
+
+		final IProcessInstancesRepository instancesRepository = getRepository(processId);
+
+		return processAsyncExecutor.submit(processId, pinstanceId, userSession.getAD_User_ID(), () -> Execution.prepareNewExecution()
+				.outOfTransaction()
+				.execute(() -> {
+					final IDocumentChangesCollector changesCollector = NullDocumentChangesCollector.instance;
+					return instancesRepository.forProcessInstanceWritable(pinstanceId, changesCollector, processInstance -> {
+						final ProcessInstanceResult result = processInstance.startProcess();
+						return JSONProcessInstanceResult.of(result);
+					});
+				}));
+	}
+
+	@RequestMapping(value = "/{processId}/{pinstanceId}/status", method = RequestMethod.GET)
+	public JSONProcessInstanceStatus getProcessStatus(
+			@PathVariable("processId") final String processIdStr //
+			, @PathVariable("pinstanceId") final String pinstanceIdStr //
+	)
+	{
+		userSession.assertLoggedIn();
+
+		final ProcessId processId = ProcessId.fromJson(processIdStr);
+		final DocumentId pinstanceId = DocumentId.of(pinstanceIdStr);
+		return processAsyncExecutor.getStatus(processId, pinstanceId, userSession.getAD_User_ID());
+	}
+
 	@RequestMapping(value = "/{processId}/{pinstanceId}/print/{filename:.*}", method = RequestMethod.GET)
 	public ResponseEntity<byte[]> getReport(
 			@PathVariable("processId") final String processIdStr //
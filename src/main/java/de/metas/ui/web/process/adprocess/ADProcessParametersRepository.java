@@ -219,6 +219,12 @@ import de.metas.ui.web.window.model.lookup.LookupValueByIdSupplier;
 		throw new UnsupportedOperationException();
 	}
 
+	@Override
+	public int retrieveCount(final DocumentQuery query)
+	{
+		throw new UnsupportedOperationException();
+	}
+
 	private static final class ProcessInfoParameterDocumentValuesSupplier implements DocumentValuesSupplier
 	{
 		private final DocumentId adPInstanceId;
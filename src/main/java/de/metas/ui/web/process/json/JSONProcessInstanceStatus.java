@@ -0,0 +1,108 @@
+package de.metas.ui.web.process.json;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import de.metas.ui.web.window.datatypes.DocumentId;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Status of a process instance which was started asynchronously.
+ * It's published on process instance's websocket topic and it's also returned when polling for the status.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@SuppressWarnings("serial")
+@JsonAutoDetect(fieldVisibility = Visibility.ANY, getterVisibility = Visibility.NONE, isGetterVisibility = Visibility.NONE, setterVisibility = Visibility.NONE)
+public final class JSONProcessInstanceStatus implements Serializable
+{
+	public static final JSONProcessInstanceStatus queued(@NonNull final DocumentId pinstanceId)
+	{
+		return new JSONProcessInstanceStatus(pinstanceId.toJson(), Status.queued, null, null);
+	}
+
+	public static final JSONProcessInstanceStatus running(@NonNull final DocumentId pinstanceId)
+	{
+		return new JSONProcessInstanceStatus(pinstanceId.toJson(), Status.running, null, null);
+	}
+
+	public static final JSONProcessInstanceStatus done(@NonNull final DocumentId pinstanceId, @NonNull final JSONProcessInstanceResult result)
+	{
+		return new JSONProcessInstanceStatus(pinstanceId.toJson(), Status.done, result, null);
+	}
+
+	public static final JSONProcessInstanceStatus error(@NonNull final DocumentId pinstanceId, final String errorMessage)
+	{
+		return new JSONProcessInstanceStatus(pinstanceId.toJson(), Status.error, null, errorMessage);
+	}
+
+	public static enum Status
+	{
+		queued, running, done, error
+	}
+
+	@JsonProperty("pinstanceId")
+	private final String pinstanceId;
+
+	@JsonProperty("status")
+	private final Status status;
+
+	@JsonProperty("result")
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private final JSONProcessInstanceResult result;
+
+	@JsonProperty("errorMessage")
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	private final String errorMessage;
+
+	private JSONProcessInstanceStatus(final String pinstanceId, final Status status, final JSONProcessInstanceResult result, final String errorMessage)
+	{
+		this.pinstanceId = pinstanceId;
+		this.status = status;
+		this.result = result;
+		this.errorMessage = errorMessage;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "JSONProcessInstanceStatus[" + pinstanceId + ", " + status + (errorMessage != null ? ", " + errorMessage : "") + "]";
+	}
+
+	public Status getStatus()
+	{
+		return status;
+	}
+
+	public boolean isFinished()
+	{
+		return status == Status.done || status == Status.error;
+	}
+}
@@ -6,10 +6,13 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
 
+import org.adempiere.ad.security.UserRolePermissionsKey;
 import org.adempiere.util.lang.impl.TableRecordReference;
 import org.compiere.util.CCache;
 import org.compiere.util.Env;
@@ -80,6 +83,8 @@ public class DefaultView implements IView
 	private final JSONViewDataType viewType;
 	private final ImmutableSet<DocumentPath> referencingDocumentPaths;
 
+	/** permissions used to create the {@link #defaultSelection} */
+	private final UserRolePermissionsKey permissionsKey;
 	private final transient ViewRowIdsOrderedSelection defaultSelection;
 	private final transient ConcurrentHashMap<ImmutableList<DocumentQueryOrderBy>, ViewRowIdsOrderedSelection> selectionsByOrderBys = new ConcurrentHashMap<>();
 
@@ -98,7 +103,7 @@ public class DefaultView implements IView
 	//
 	// Caching
 	private final transient CCache<DocumentId, IViewRow> cache_rowsById;
-
+	private final transient ViewPageCache cache_pages;
 
 	private DefaultView(final Builder builder)
 	{
@@ -119,25 +124,86 @@ public class DefaultView implements IView
 			final ViewEvaluationCtx evalCtx = ViewEvaluationCtx.of(Env.getCtx());
 			// orderedSelectionFactory = viewDataRepository.createOrderedSelectionFactory(evalCtx);
 
-			defaultSelection = viewDataRepository.createOrderedSelection(
-					evalCtx //
-					, builder.getWindowId() //
-					, ImmutableList.copyOf(Iterables.concat(stickyFilters, filters)) //
-			);
+			permissionsKey = evalCtx.getPermissionsKey();
+			defaultSelection = createDefaultSelection(evalCtx, builder.getWindowId(), builder.getNarrowingFromView());
 			selectionsByOrderBys.put(defaultSelection.getOrderBys(), defaultSelection);
 		}
 
 		//
 		// Cache
 		cache_rowsById = CCache.newLRUCache( //
-				viewDataRepository.getTableName() + "#rowById#viewId=" + defaultSelection.getSelectionId() // cache name
+				viewDataRepository.getTableName() + "#rowById#viewId=" + defaultSelection.getViewId().getViewId() // cache name
 				, 100 // maxSize
 				, 2 // expireAfterMinutes
 		);
+		cache_pages = new ViewPageCache(builder.getPageCacheMaxPages(), builder.getPageCacheExpireAfterWriteSeconds(), builder.isPageCachePrefetch());
 
 		logger.debug("View created: {}", this);
 	}
 
+	private ViewRowIdsOrderedSelection createDefaultSelection(final ViewEvaluationCtx evalCtx, final WindowId windowId, @Nullable final DefaultView narrowingFromView)
+	{
+		final List<DocumentFilter> allFilters = ImmutableList.copyOf(Iterables.concat(stickyFilters, filters));
+
+		//
+		// If we are only adding some filters to an existing view,
+		// create our selection from that view's selection instead of scanning the whole table.
+		if (narrowingFromView != null)
+		{
+			final List<DocumentFilter> addedFilters = narrowingFromView.getAddedFiltersIfNarrowing(evalCtx, windowId, stickyFilters, filters);
+			if (addedFilters != null)
+			{
+				logger.debug("Creating selection by narrowing {} with {}", narrowingFromView, addedFilters);
+				return viewDataRepository.createOrderedSelectionNarrowed(evalCtx, narrowingFromView.defaultSelection, addedFilters);
+			}
+		}
+
+		return viewDataRepository.createOrderedSelection(evalCtx, windowId, allFilters);
+	}
+
+	/**
+	 * NOTE: the new view is narrowed from our selection as it is, i.e. the rows which were inserted after our selection was created are not considered,
+	 * same as when the user is looking at this view.
+	 *
+	 * @return the filters which were added on top of this view's filters, or <code>null</code> if the given filters are not just narrowing this view
+	 */
+	private List<DocumentFilter> getAddedFiltersIfNarrowing(final ViewEvaluationCtx evalCtx, final WindowId windowId, final List<DocumentFilter> newStickyFilters, final List<DocumentFilter> newFilters)
+	{
+		if (closed.get())
+		{
+			return null;
+		}
+		if (!Objects.equals(getViewId().getWindowId(), windowId))
+		{
+			return null;
+		}
+		// our selection was created for other permissions
+		if (!Objects.equals(permissionsKey, evalCtx.getPermissionsKey()))
+		{
+			return null;
+		}
+		// our selection was truncated, so it does not contain all the rows which are matching our filters
+		if (isQueryLimitHit())
+		{
+			return null;
+		}
+
+		if (!ImmutableSet.copyOf(stickyFilters).equals(ImmutableSet.copyOf(newStickyFilters)))
+		{
+			return null;
+		}
+		if (!newFilters.containsAll(filters))
+		{
+			return null;
+		}
+
+		final List<DocumentFilter> addedFilters = newFilters.stream()
+				.filter(newFilter -> !filters.contains(newFilter))
+				.distinct()
+				.collect(ImmutableList.toImmutableList());
+		return !addedFilters.isEmpty() ? addedFilters : null;
+	}
+
 	@Override
 	public String toString()
 	{
@@ -229,12 +295,20 @@ public class DefaultView implements IView
 			return; // already closed
 		}
 
-		// nothing now.
-		// TODO in future me might notify somebody to remove the temporary selections from database
+		// NOTE: the selections will be deleted from database by ViewsRepository, see getSelectionIds()
 
 		logger.debug("View closed: {}", this);
 	}
 
+	@Override
+	public Set<String> getSelectionIds()
+	{
+		return selectionsByOrderBys.values()
+				.stream()
+				.map(ViewRowIdsOrderedSelection::getSelectionId)
+				.collect(ImmutableSet.toImmutableSet());
+	}
+
 	private final void assertNotClosed()
 	{
 		if (closed.get())
@@ -251,7 +325,8 @@ public class DefaultView implements IView
 		final ViewEvaluationCtx evalCtx = ViewEvaluationCtx.of(Env.getCtx());
 		final ViewRowIdsOrderedSelection orderedSelection = getOrderedSelection(orderBys);
 
-		final List<IViewRow> page = viewDataRepository.retrievePage(evalCtx, orderedSelection, firstRow, pageLength);
+		final List<IViewRow> page = cache_pages.getPage(orderedSelection, firstRow, pageLength,
+				(selection, pageFirstRow, pageLengthToLoad) -> viewDataRepository.retrievePage(evalCtx, selection, pageFirstRow, pageLengthToLoad));
 
 		// Add to cache
 		page.forEach(row -> cache_rowsById.put(row.getId(), row));
@@ -259,6 +334,16 @@ public class DefaultView implements IView
 		return ViewResult.ofViewAndPage(this, firstRow, pageLength, orderedSelection.getOrderBys(), page);
 	}
 
+	@Override
+	public void forEachRow(final List<DocumentQueryOrderBy> orderBys, final Consumer<? super IViewRow> consumer)
+	{
+		assertNotClosed();
+
+		final ViewEvaluationCtx evalCtx = ViewEvaluationCtx.of(Env.getCtx());
+		final ViewRowIdsOrderedSelection orderedSelection = getOrderedSelection(orderBys);
+		viewDataRepository.forEachRow(evalCtx, orderedSelection, consumer);
+	}
+
 	@Override
 	public IViewRow getById(final DocumentId rowId)
 	{
@@ -270,7 +355,7 @@ public class DefaultView implements IView
 	{
 		return cache_rowsById.getOrLoad(rowId, () -> {
 			final ViewEvaluationCtx evalCtx = ViewEvaluationCtx.of(Env.getCtx());
-			return viewDataRepository.retrieveById(evalCtx, getViewId(), rowId);
+			return viewDataRepository.retrieveById(evalCtx, defaultSelection, rowId);
 		});
 	}
 
@@ -289,10 +374,15 @@ public class DefaultView implements IView
 		return selectionsByOrderBys.computeIfAbsent(ImmutableList.copyOf(orderBys), orderBysImmutable -> viewDataRepository.createOrderedSelectionFromSelection(ViewEvaluationCtx.of(Env.getCtx()), defaultSelection, orderBysImmutable));
 	}
 
+	public ViewPageCache.Stats getPageCacheStats()
+	{
+		return cache_pages.getStats();
+	}
+
 	@Override
 	public String getSqlWhereClause(final DocumentIdsSelection rowIds)
 	{
-		return viewDataRepository.getSqlWhereClause(getViewId(), rowIds);
+		return viewDataRepository.getSqlWhereClause(defaultSelection, rowIds);
 	}
 
 	@Override
@@ -330,9 +420,17 @@ public class DefaultView implements IView
 		{
 			return Stream.empty();
 		}
-		else if(rowIds.isAll())
+		else if (rowIds.isAll())
 		{
-			throw new UnsupportedOperationException("Streaming all rows is not supported");
+			// NOTE: we are streaming page by page, in default order, so we never load the whole view in memory.
+			// The pages are loaded directly, bypassing the page cache (and the prefetching), because they are read only once and they would evict the pages the user is looking at.
+			final ViewEvaluationCtx evalCtx = ViewEvaluationCtx.of(Env.getCtx());
+			final long size = defaultSelection.getSize();
+			final int pageLength = FOR_EACH_ROW_PageLength;
+			final int pagesCount = (int)((size + pageLength - 1) / pageLength);
+			return IntStream.range(0, pagesCount)
+					.mapToObj(pageIndex -> viewDataRepository.retrievePage(evalCtx, defaultSelection, pageIndex * pageLength, pageLength))
+					.flatMap(List::stream);
 		}
 
 		// NOTE: we get/retrive one by one because we assume the "selected documents" were recently retrieved,
@@ -355,7 +453,7 @@ public class DefaultView implements IView
 	@Override
 	public <T> List<T> retrieveModelsByIds(final DocumentIdsSelection rowIds, final Class<T> modelClass)
 	{
-		return viewDataRepository.retrieveModelsByIds(getViewId(), rowIds, modelClass);
+		return viewDataRepository.retrieveModelsByIds(defaultSelection, rowIds, modelClass);
 	}
 
 	@Override
@@ -373,8 +471,9 @@ public class DefaultView implements IView
 			return;
 		}
 
-		// Invalidate local rowsById cache
+		// Invalidate local caches
 		rowIds.forEach(cache_rowsById::remove);
+		cache_pages.invalidateAll();
 
 		// Collect event
 		// TODO: check which rowIds are contained in this view and fire events only for those
@@ -398,6 +497,12 @@ public class DefaultView implements IView
 		private List<DocumentFilter> _stickyFilters;
 		private List<DocumentFilter> _filters;
 
+		private int pageCacheMaxPages = 0;
+		private int pageCacheExpireAfterWriteSeconds = 0;
+		private boolean pageCachePrefetch = false;
+
+		private DefaultView narrowingFromView;
+
 		private Builder(@NonNull final IViewDataRepository viewDataRepository)
 		{
 			this.viewDataRepository = viewDataRepository;
@@ -516,5 +621,48 @@ public class DefaultView implements IView
 		{
 			return _filters == null ? ImmutableList.of() : ImmutableList.copyOf(_filters);
 		}
+
+		/**
+		 * @param pageCacheMaxPages how many pages to keep in memory, for each ordered selection; zero or negative means no page caching
+		 * @param expireAfterWriteSeconds how long a cached page is served; zero or negative means no expiration
+		 * @param prefetch if true, the next page will be prefetched asynchronously when the user is scrolling sequentially
+		 */
+		public Builder setPageCache(final int pageCacheMaxPages, final int expireAfterWriteSeconds, final boolean prefetch)
+		{
+			this.pageCacheMaxPages = pageCacheMaxPages;
+			this.pageCacheExpireAfterWriteSeconds = expireAfterWriteSeconds;
+			this.pageCachePrefetch = prefetch;
+			return this;
+		}
+
+		private int getPageCacheMaxPages()
+		{
+			return pageCacheMaxPages;
+		}
+
+		private int getPageCacheExpireAfterWriteSeconds()
+		{
+			return pageCacheExpireAfterWriteSeconds;
+		}
+
+		private boolean isPageCachePrefetch()
+		{
+			return pageCacheMaxPages > 0 && pageCachePrefetch;
+		}
+
+		/**
+		 * Sets the view from which we are filtering.
+		 * If the new filters are only narrowing that view, the new selection will be created from that view's selection, instead of scanning the whole table.
+		 */
+		public Builder setNarrowingFromView(@Nullable final DefaultView narrowingFromView)
+		{
+			this.narrowingFromView = narrowingFromView;
+			return this;
+		}
+
+		private DefaultView getNarrowingFromView()
+		{
+			return narrowingFromView;
+		}
 	}
 }
@@ -2,12 +2,14 @@ package de.metas.ui.web.view;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import org.adempiere.util.lang.impl.TableRecordReference;
 import org.compiere.util.Evaluatee;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import de.metas.ui.web.document.filter.DocumentFilter;
 import de.metas.ui.web.exceptions.EntityNotFoundException;
@@ -68,6 +70,14 @@ public interface IView
 
 	void close();
 
+	/**
+	 * @return IDs of the database selections (i.e. T_WEBUI_ViewSelection.UUID) used by this view, which shall be deleted after this view was closed
+	 */
+	default Set<String> getSelectionIds()
+	{
+		return ImmutableSet.of();
+	}
+
 	int getQueryLimit();
 
 	boolean isQueryLimitHit();
@@ -80,6 +90,30 @@ public interface IView
 		return getPage(firstRow, pageLength, orderBys);
 	}
 
+	/** Page length used by {@link #forEachRow(List, Consumer)} */
+	int FOR_EACH_ROW_PageLength = 500;
+
+	/**
+	 * Iterates all rows of this view, in given order, and passes them one by one to given consumer.
+	 * The rows are fetched page by page, so the whole view is never loaded in memory.
+	 */
+	default void forEachRow(final List<DocumentQueryOrderBy> orderBys, final Consumer<? super IViewRow> consumer)
+	{
+		final int pageLength = FOR_EACH_ROW_PageLength;
+		int firstRow = 0;
+		while (true)
+		{
+			final List<IViewRow> page = getPage(firstRow, pageLength, orderBys).getPage();
+			page.forEach(consumer);
+
+			if (page.size() < pageLength)
+			{
+				break;
+			}
+			firstRow += pageLength;
+		}
+	}
+
 	IViewRow getById(DocumentId rowId) throws EntityNotFoundException;
 
 	default List<? extends IViewRow> getByIds(final DocumentIdsSelection rowId)
@@ -122,6 +156,16 @@ public interface IView
 	 */
 	void notifyRecordsChanged(Set<TableRecordReference> recordRefs);
 
+	/**
+	 * @return the names of the tables whose record changes are relevant for this view, i.e. only changes of those tables will be passed to {@link #notifyRecordsChanged(Set)}.
+	 *         By default, it's the view's table name, if any.
+	 */
+	default Set<String> getTableNamesToNotifyOnRecordsChanged()
+	{
+		final String tableName = getTableName();
+		return tableName != null ? ImmutableSet.of(tableName) : ImmutableSet.of();
+	}
+
 	/** @return actions which were registered particularly for this view instance */
 	default ViewActionDescriptorsList getActions()
 	{
@@ -1,6 +1,7 @@
 package de.metas.ui.web.view;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.adempiere.exceptions.DBException;
 
@@ -44,17 +45,35 @@ public interface IViewDataRepository
 {
 	String getTableName();
 
-	String getSqlWhereClause(ViewId viewId, DocumentIdsSelection rowIds);
+	String getSqlWhereClause(ViewRowIdsOrderedSelection selection, DocumentIdsSelection rowIds);
 	
 	DocumentFilterDescriptorsProvider getViewFilterDescriptors();
 
-	IViewRow retrieveById(ViewEvaluationCtx viewEvalCtx, ViewId viewId, DocumentId rowId);
+	IViewRow retrieveById(ViewEvaluationCtx viewEvalCtx, ViewRowIdsOrderedSelection selection, DocumentId rowId);
 
 	List<IViewRow> retrievePage(ViewEvaluationCtx viewEvalCtx, ViewRowIdsOrderedSelection orderedSelection, int firstRow, int pageLength) throws DBException;
 
-	<T> List<T> retrieveModelsByIds(ViewId viewId, DocumentIdsSelection rowIds, Class<T> modelClass);
+	/**
+	 * Retrieves all rows of given selection, in selection's order, and passes them one by one to given consumer.
+	 * The rows are fetched from database page by page, so the whole selection is never loaded in memory
+	 * and no database cursor is kept open while the consumer is processing the rows.
+	 */
+	void forEachRow(ViewEvaluationCtx viewEvalCtx, ViewRowIdsOrderedSelection orderedSelection, Consumer<? super IViewRow> consumer) throws DBException;
+
+	<T> List<T> retrieveModelsByIds(ViewRowIdsOrderedSelection selection, DocumentIdsSelection rowIds, Class<T> modelClass);
 
 	ViewRowIdsOrderedSelection createOrderedSelection(ViewEvaluationCtx viewEvalCtx, WindowId windowId, List<DocumentFilter> filters);
 
+	/**
+	 * Creates a new selection which contains only the rows of an existing selection which are matching the added filters.
+	 * <p>
+	 * The existing selection is only read, so it can also be a selection which is shared with other views.
+	 * The new selection is not shared, because it contains only the rows which were in <code>fromSelection</code>.
+	 *
+	 * @param fromSelection the selection of the view which is narrowed
+	 * @param addedFilters the filters which were not considered when <code>fromSelection</code> was created
+	 */
+	ViewRowIdsOrderedSelection createOrderedSelectionNarrowed(ViewEvaluationCtx viewEvalCtx, ViewRowIdsOrderedSelection fromSelection, List<DocumentFilter> addedFilters);
+
 	ViewRowIdsOrderedSelection createOrderedSelectionFromSelection(final ViewEvaluationCtx viewEvalCtx, ViewRowIdsOrderedSelection fromSelection, List<DocumentQueryOrderBy> orderBys);
 }
@@ -93,4 +93,9 @@ public interface IViewsRepository
 		notifyRecordsChanged(ImmutableSet.of(TableRecordReference.of(tableName, recordId)));
 	}
 
+	/**
+	 * @return statistics about how the changed records were dispatched to views, per table
+	 */
+	List<ViewsRecordsChangedStats> getRecordsChangedStats();
+
 }
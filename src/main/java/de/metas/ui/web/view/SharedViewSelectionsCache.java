@@ -0,0 +1,346 @@
+package de.metas.ui.web.view;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.adempiere.ad.security.UserRolePermissionsKey;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.logging.LogManager;
+import de.metas.ui.web.document.filter.DocumentFilter;
+import de.metas.ui.web.window.datatypes.WindowId;
+import de.metas.ui.web.window.model.DocumentQueryOrderBy;
+import lombok.Builder;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Shares the database selections (i.e. T_WEBUI_ViewSelection) between views which were created for the same window, filters, order, permissions
+ * and values of all context variables used when the selection was created (see {@link SharedSelectionKey}).
+ * <p>
+ * A shared selection is reused by new views only for a short time after it was created, and only until a record of view's table was changed.
+ * It is reference counted and it's scheduled to be deleted when the last view which is using it was closed.
+ * <p>
+ * NOTE: the views which are sharing a selection shall not change it.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Component
+public class SharedViewSelectionsCache
+{
+	private static final Logger logger = LogManager.getLogger(SharedViewSelectionsCache.class);
+
+	private final ViewSelectionsReclaimer viewSelectionsReclaimer;
+	private final boolean enabled;
+	private final long reuseMillis;
+
+	/** Selections which can be reused by new views */
+	private final Map<SharedSelectionKey, SharedSelection> reusableSelectionsByKey = new HashMap<>();
+	/** All shared selections which are used by at least one view or which can be reused */
+	private final Map<String, SharedSelection> selectionsById = new HashMap<>();
+
+	public SharedViewSelectionsCache(
+			final ViewSelectionsReclaimer viewSelectionsReclaimer,
+			@Value("${metasfresh.webui.view.selections.shared.enabled:true}") final boolean enabled,
+			@Value("${metasfresh.webui.view.selections.shared.reuseSeconds:60}") final int reuseSeconds)
+	{
+		this.viewSelectionsReclaimer = viewSelectionsReclaimer;
+		viewSelectionsReclaimer.registerSelectionIdsInUseSupplier(this::getSelectionIds);
+		this.enabled = enabled && reuseSeconds > 0;
+		reuseMillis = TimeUnit.SECONDS.toMillis(reuseSeconds);
+		logger.info("Shared view selections: enabled={}, reuseSeconds={}", this.enabled, reuseSeconds);
+	}
+
+	/**
+	 * Gets a reusable selection for given key or creates a new one.
+	 * The returned selection is acquired, so the caller shall call {@link #release(Collection)} when it's no longer needed.
+	 */
+	public ViewRowIdsOrderedSelection getOrCreate(@NonNull final SharedSelectionKey key, @NonNull final Supplier<ViewRowIdsOrderedSelection> selectionFactory)
+	{
+		if (!enabled)
+		{
+			return selectionFactory.get();
+		}
+
+		synchronized (this)
+		{
+			retireExpiredSelections();
+
+			final SharedSelection sharedSelection = reusableSelectionsByKey.get(key);
+			if (sharedSelection != null)
+			{
+				sharedSelection.acquire();
+				logger.debug("Reusing {} for {}", sharedSelection, key);
+				return sharedSelection.getSelection();
+			}
+		}
+
+		//
+		// Create the selection outside of our lock.
+		// NOTE: in case more views are concurrently requesting a selection for the same key, more selections will be created, but only the last one will be reused.
+		final ViewRowIdsOrderedSelection selection = selectionFactory.get();
+
+		synchronized (this)
+		{
+			final SharedSelection sharedSelection = new SharedSelection(key, selection, System.currentTimeMillis() + reuseMillis);
+			sharedSelection.acquire();
+			selectionsById.put(selection.getSelectionId(), sharedSelection);
+
+			final SharedSelection sharedSelectionPrevious = reusableSelectionsByKey.put(key, sharedSelection);
+			if (sharedSelectionPrevious != null)
+			{
+				retire(sharedSelectionPrevious);
+			}
+
+			logger.debug("Created {}", sharedSelection);
+		}
+
+		return selection;
+	}
+
+	/**
+	 * Releases given selections. The selections which are not used anymore and the selections which are not shared are scheduled to be deleted.
+	 */
+	public void release(final Collection<String> selectionIds)
+	{
+		if (selectionIds == null || selectionIds.isEmpty())
+		{
+			return;
+		}
+
+		final List<String> selectionIdsToDelete = new ArrayList<>();
+		synchronized (this)
+		{
+			for (final String selectionId : selectionIds)
+			{
+				final SharedSelection sharedSelection = selectionsById.get(selectionId);
+				if (sharedSelection == null)
+				{
+					// not a shared selection
+					selectionIdsToDelete.add(selectionId);
+					continue;
+				}
+
+				sharedSelection.release();
+				if (sharedSelection.isRetired() && !sharedSelection.isInUse())
+				{
+					selectionsById.remove(selectionId);
+					selectionIdsToDelete.add(selectionId);
+				}
+			}
+
+			retireExpiredSelections();
+		}
+
+		viewSelectionsReclaimer.scheduleDelete(selectionIdsToDelete);
+	}
+
+	/**
+	 * @return true if given selection is a shared selection which can still be reused,
+	 *         i.e. it was created recently and no record of its table was changed since then (as far as we were notified)
+	 */
+	public boolean isReusable(@NonNull final String selectionId)
+	{
+		if (!enabled)
+		{
+			return false;
+		}
+
+		synchronized (this)
+		{
+			retireExpiredSelections();
+
+			final SharedSelection sharedSelection = selectionsById.get(selectionId);
+			return sharedSelection != null && !sharedSelection.isRetired();
+		}
+	}
+
+	/** @return IDs of all shared selections, in use or reusable */
+	private synchronized Set<String> getSelectionIds()
+	{
+		return ImmutableSet.copyOf(selectionsById.keySet());
+	}
+
+	/**
+	 * Makes sure the selections of given tables are not reused anymore.
+	 */
+	public void invalidateByTableNames(@NonNull final Set<String> tableNames)
+	{
+		if (tableNames.isEmpty())
+		{
+			return;
+		}
+
+		synchronized (this)
+		{
+			if (reusableSelectionsByKey.isEmpty())
+			{
+				return;
+			}
+
+			final List<SharedSelection> sharedSelectionsToRetire = reusableSelectionsByKey.values()
+					.stream()
+					.filter(sharedSelection -> tableNames.contains(sharedSelection.getKey().getTableName()))
+					.collect(ImmutableList.toImmutableList());
+			sharedSelectionsToRetire.forEach(this::retire);
+		}
+	}
+
+	private void retireExpiredSelections()
+	{
+		if (reusableSelectionsByKey.isEmpty())
+		{
+			return;
+		}
+
+		final long now = System.currentTimeMillis();
+		final List<SharedSelection> sharedSelectionsToRetire = reusableSelectionsByKey.values()
+				.stream()
+				.filter(sharedSelection -> sharedSelection.isExpired(now))
+				.collect(ImmutableList.toImmutableList());
+		sharedSelectionsToRetire.forEach(this::retire);
+	}
+
+	/** Makes sure given selection is not reused anymore. If it's not used by any view, it's scheduled to be deleted. */
+	private void retire(final SharedSelection sharedSelection)
+	{
+		reusableSelectionsByKey.remove(sharedSelection.getKey(), sharedSelection);
+		sharedSelection.markRetired();
+
+		if (!sharedSelection.isInUse())
+		{
+			final String selectionId = sharedSelection.getSelectionId();
+			selectionsById.remove(selectionId);
+			viewSelectionsReclaimer.scheduleDelete(ImmutableList.of(selectionId));
+		}
+
+		logger.debug("Retired {}", sharedSelection);
+	}
+
+	@lombok.Value
+	@Builder
+	public static final class SharedSelectionKey
+	{
+		@NonNull
+		private final String tableName;
+		@NonNull
+		private final WindowId windowId;
+		@NonNull
+		private final ImmutableList<DocumentFilter> filters;
+		@NonNull
+		private final ImmutableList<DocumentQueryOrderBy> orderBys;
+		/** permissions (user, role, client, date) which were used to build the access SQL */
+		@NonNull
+		private final UserRolePermissionsKey permissionsKey;
+		/** values of the context variables (e.g. #AD_Org_ID) which were evaluated in selection's SQL */
+		@NonNull
+		private final ImmutableMap<String, String> sqlContextValues;
+		@NonNull
+		private final String adLanguage;
+	}
+
+	private static final class SharedSelection
+	{
+		private final SharedSelectionKey key;
+		private final ViewRowIdsOrderedSelection selection;
+		private final long expireAtMillis;
+
+		private int refCount = 0;
+		private boolean retired = false;
+
+		private SharedSelection(final SharedSelectionKey key, final ViewRowIdsOrderedSelection selection, final long expireAtMillis)
+		{
+			this.key = key;
+			this.selection = selection;
+			this.expireAtMillis = expireAtMillis;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "SharedSelection[" + selection.getSelectionId() + ", refCount=" + refCount + ", retired=" + retired + "]";
+		}
+
+		public SharedSelectionKey getKey()
+		{
+			return key;
+		}
+
+		public ViewRowIdsOrderedSelection getSelection()
+		{
+			return selection;
+		}
+
+		public String getSelectionId()
+		{
+			return selection.getSelectionId();
+		}
+
+		public void acquire()
+		{
+			refCount++;
+		}
+
+		public void release()
+		{
+			if (refCount > 0)
+			{
+				refCount--;
+			}
+		}
+
+		public boolean isInUse()
+		{
+			return refCount > 0;
+		}
+
+		public boolean isExpired(final long now)
+		{
+			return now >= expireAtMillis;
+		}
+
+		public void markRetired()
+		{
+			retired = true;
+		}
+
+		public boolean isRetired()
+		{
+			return retired;
+		}
+	}
+}
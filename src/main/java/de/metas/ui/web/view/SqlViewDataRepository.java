@@ -6,6 +6,8 @@ import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.adempiere.ad.dao.IQueryBL;
 import org.adempiere.ad.dao.impl.TypedSqlQueryFilter;
@@ -17,19 +19,23 @@ import org.adempiere.model.PlainContextAware;
 import org.adempiere.util.Check;
 import org.adempiere.util.Services;
 import org.compiere.util.DB;
+import org.compiere.util.Evaluatee;
 import org.slf4j.Logger;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
 
 import de.metas.logging.LogManager;
 import de.metas.ui.web.document.filter.DocumentFilter;
 import de.metas.ui.web.document.filter.DocumentFilterDescriptorsProvider;
 import de.metas.ui.web.exceptions.EntityNotFoundException;
+import de.metas.ui.web.view.SharedViewSelectionsCache.SharedSelectionKey;
 import de.metas.ui.web.view.descriptor.SqlViewBinding;
 import de.metas.ui.web.view.descriptor.SqlViewRowFieldBinding;
 import de.metas.ui.web.view.descriptor.SqlViewRowFieldBinding.SqlViewRowFieldLoader;
+import de.metas.ui.web.view.descriptor.SqlViewSelectionQueryBuilder;
 import de.metas.ui.web.window.datatypes.DocumentId;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
 import de.metas.ui.web.window.datatypes.WindowId;
@@ -66,20 +72,24 @@ class SqlViewDataRepository implements IViewDataRepository
 	private final IStringExpression sqlSelectById;
 	private final IStringExpression sqlSelectByPage;
 	private final ViewRowIdsOrderedSelectionFactory viewRowIdsOrderedSelectionFactory;
+	private final SharedViewSelectionsCache sharedViewSelections;
 	private final DocumentFilterDescriptorsProvider viewFilterDescriptors;
 	private final List<DocumentQueryOrderBy> defaultOrderBys;
+	private final SqlViewBinding sqlBindings;
 
 	private final String keyFieldName;
 	private final ImmutableMap<String, SqlViewRowFieldLoader> rowFieldLoaders;
 
-	SqlViewDataRepository(@NonNull final SqlViewBinding sqlBindings)
+	SqlViewDataRepository(@NonNull final SqlViewBinding sqlBindings, @NonNull final SharedViewSelectionsCache sharedViewSelections)
 	{
 		tableName = sqlBindings.getTableName();
 		sqlSelectById = sqlBindings.getSqlSelectById();
 		sqlSelectByPage = sqlBindings.getSqlSelectByPage();
 		viewFilterDescriptors = sqlBindings.getViewFilterDescriptors();
 		viewRowIdsOrderedSelectionFactory = SqlViewRowIdsOrderedSelectionFactory.of(sqlBindings);
+		this.sharedViewSelections = sharedViewSelections;
 		defaultOrderBys = sqlBindings.getDefaultOrderBys();
+		this.sqlBindings = sqlBindings;
 
 		String keyFieldName = null;
 		final ImmutableMap.Builder<String, SqlViewRowFieldLoader> rowFieldLoaders = ImmutableMap.builder();
@@ -114,15 +124,63 @@ class SqlViewDataRepository implements IViewDataRepository
 	}
 
 	@Override
-	public String getSqlWhereClause(final ViewId viewId, final DocumentIdsSelection rowIds)
+	public String getSqlWhereClause(final ViewRowIdsOrderedSelection selection, final DocumentIdsSelection rowIds)
 	{
-		return viewRowIdsOrderedSelectionFactory.getSqlWhereClause(viewId, rowIds);
+		return viewRowIdsOrderedSelectionFactory.getSqlWhereClause(selection.getSelectionId(), rowIds);
 	}
 
 	@Override
 	public ViewRowIdsOrderedSelection createOrderedSelection(final ViewEvaluationCtx viewEvalCtx, final WindowId windowId, final List<DocumentFilter> filters)
 	{
-		return viewRowIdsOrderedSelectionFactory.createOrderedSelection(viewEvalCtx, windowId, filters, defaultOrderBys);
+		final ViewRowIdsOrderedSelection selection = sharedViewSelections.getOrCreate(createSharedSelectionKey(viewEvalCtx, windowId, filters),
+				() -> viewRowIdsOrderedSelectionFactory.createOrderedSelection(viewEvalCtx, windowId, filters, defaultOrderBys));
+
+		// Each view has it's own ID, even if it's sharing the database selection with other views
+		return selection.toBuilder()
+				.setViewId(ViewId.random(windowId))
+				.build();
+	}
+
+	/**
+	 * NOTE: the narrowed selection is not registered in {@link SharedViewSelectionsCache}, because it contains only the rows which were in <code>fromSelection</code>,
+	 * so it's not the same as a selection created from scratch for the same filters.
+	 */
+	@Override
+	public ViewRowIdsOrderedSelection createOrderedSelectionNarrowed(final ViewEvaluationCtx viewEvalCtx, final ViewRowIdsOrderedSelection fromSelection, final List<DocumentFilter> addedFilters)
+	{
+		return viewRowIdsOrderedSelectionFactory.createOrderedSelectionNarrowed(viewEvalCtx, fromSelection, addedFilters);
+	}
+
+	private SharedSelectionKey createSharedSelectionKey(final ViewEvaluationCtx viewEvalCtx, final WindowId windowId, final List<DocumentFilter> filters)
+	{
+		return SharedSelectionKey.builder()
+				.tableName(tableName)
+				.windowId(windowId)
+				.filters(ImmutableList.copyOf(filters))
+				.orderBys(ImmutableList.copyOf(defaultOrderBys))
+				.permissionsKey(viewEvalCtx.getPermissionsKey())
+				.sqlContextValues(extractSqlContextValues(viewEvalCtx, filters))
+				.adLanguage(viewEvalCtx.getAD_Language())
+				.build();
+	}
+
+	/** @return the values of all context variables which are evaluated when the selection is created */
+	private ImmutableMap<String, String> extractSqlContextValues(final ViewEvaluationCtx viewEvalCtx, final List<DocumentFilter> filters)
+	{
+		final Set<String> parameterNames = SqlViewSelectionQueryBuilder.newInstance(sqlBindings).getSqlWhereClauseParameterNames(filters);
+		if (parameterNames.isEmpty())
+		{
+			return ImmutableMap.of();
+		}
+
+		final Evaluatee evalCtx = viewEvalCtx.toEvaluatee();
+		final ImmutableMap.Builder<String, String> sqlContextValues = ImmutableMap.builder();
+		for (final String parameterName : ImmutableSortedSet.copyOf(parameterNames))
+		{
+			final String value = evalCtx.get_ValueAsString(parameterName);
+			sqlContextValues.put(parameterName, value != null ? value : "");
+		}
+		return sqlContextValues.build();
 	}
 
 	@Override
@@ -132,10 +190,10 @@ class SqlViewDataRepository implements IViewDataRepository
 	}
 
 	@Override
-	public IViewRow retrieveById(final ViewEvaluationCtx viewEvalCtx, final ViewId viewId, final DocumentId rowId)
+	public IViewRow retrieveById(final ViewEvaluationCtx viewEvalCtx, final ViewRowIdsOrderedSelection selection, final DocumentId rowId)
 	{
-		final WindowId windowId = viewId.getWindowId();
-		final String viewSelectionId = viewId.getViewId();
+		final WindowId windowId = selection.getWindowId();
+		final String viewSelectionId = selection.getSelectionId();
 		final String adLanguage = viewEvalCtx.getAD_Language();
 
 		final String sql = sqlSelectById.evaluate(viewEvalCtx.toEvaluatee(), OnVariableNotFound.Fail);
@@ -277,17 +335,40 @@ class SqlViewDataRepository implements IViewDataRepository
 	}
 
 	@Override
-	public <T> List<T> retrieveModelsByIds(final ViewId viewId, final DocumentIdsSelection rowIds, final Class<T> modelClass)
+	public void forEachRow(final ViewEvaluationCtx viewEvalCtx, final ViewRowIdsOrderedSelection orderedSelection, final Consumer<? super IViewRow> consumer) throws DBException
+	{
+		logger.debug("Iterating all rows of {}", orderedSelection);
+
+		//
+		// Fetch the rows page by page, using the selection's SeqNo range (i.e. the same query as for fetching a page).
+		// NOTE: we are not keeping a cursor (and it's transaction) open while the consumer is processing the rows,
+		// because the consumer might be slow (e.g. writing to a slow client).
+		final int pageLength = IView.FOR_EACH_ROW_PageLength;
+		final long size = orderedSelection.getSize();
+		for (int firstRow = 0; size < 0 || firstRow < size; firstRow += pageLength)
+		{
+			final List<IViewRow> page = retrievePage(viewEvalCtx, orderedSelection, firstRow, pageLength);
+			if (page.isEmpty() && size < 0)
+			{
+				break;
+			}
+
+			page.forEach(consumer);
+		}
+	}
+
+	@Override
+	public <T> List<T> retrieveModelsByIds(final ViewRowIdsOrderedSelection selection, final DocumentIdsSelection rowIds, final Class<T> modelClass)
 	{
 		if (rowIds.isEmpty())
 		{
 			return ImmutableList.of();
 		}
 
-		final String sqlWhereClause = getSqlWhereClause(viewId, rowIds);
+		final String sqlWhereClause = getSqlWhereClause(selection, rowIds);
 		if (Check.isEmpty(sqlWhereClause, true))
 		{
-			logger.warn("Could get the SQL where clause for {}/{}. Returning empty", viewId, rowIds);
+			logger.warn("Could get the SQL where clause for {}/{}. Returning empty", selection, rowIds);
 			return ImmutableList.of();
 		}
 
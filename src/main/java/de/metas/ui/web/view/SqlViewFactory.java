@@ -17,6 +17,7 @@ import de.metas.ui.web.view.descriptor.SqlViewBinding;
 import de.metas.ui.web.view.descriptor.SqlViewRowFieldBinding;
 import de.metas.ui.web.view.descriptor.SqlViewRowFieldBinding.SqlViewRowFieldLoader;
 import de.metas.ui.web.view.descriptor.ViewLayout;
+import de.metas.ui.web.view.json.JSONFilterViewRequest;
 import de.metas.ui.web.view.json.JSONViewDataType;
 import de.metas.ui.web.window.datatypes.DocumentPath;
 import de.metas.ui.web.window.datatypes.Values;
@@ -67,6 +68,15 @@ public class SqlViewFactory implements IViewFactory
 	private DocumentDescriptorFactory documentDescriptorFactory;
 	@Autowired
 	private DocumentReferencesService documentReferencesService;
+	@Autowired
+	private SharedViewSelectionsCache sharedViewSelections;
+
+	@org.springframework.beans.factory.annotation.Value("${metasfresh.webui.view.pageCache.maxPages:5}")
+	private int pageCacheMaxPages;
+	@org.springframework.beans.factory.annotation.Value("${metasfresh.webui.view.pageCache.expireAfterWriteSeconds:5}")
+	private int pageCacheExpireAfterWriteSeconds;
+	@org.springframework.beans.factory.annotation.Value("${metasfresh.webui.view.pageCache.prefetch:true}")
+	private boolean pageCachePrefetch;
 
 	@Value
 	private static final class SqlViewBindingKey
@@ -95,6 +105,19 @@ public class SqlViewFactory implements IViewFactory
 
 	@Override
 	public IView createView(final CreateViewRequest request)
+	{
+		return createView(request, null);
+	}
+
+	@Override
+	public IView filterView(final IView view, final JSONFilterViewRequest filterViewRequest)
+	{
+		final CreateViewRequest request = CreateViewRequest.filterViewBuilder(view, filterViewRequest).build();
+		final DefaultView narrowingFromView = view instanceof DefaultView ? (DefaultView)view : null;
+		return createView(request, narrowingFromView);
+	}
+
+	private IView createView(final CreateViewRequest request, final DefaultView narrowingFromView)
 	{
 		if (!request.getFilterOnlyIds().isEmpty())
 		{
@@ -103,7 +126,7 @@ public class SqlViewFactory implements IViewFactory
 
 		final SqlViewBindingKey sqlViewBindingKey = new SqlViewBindingKey(request.getWindowId(), request.getViewTypeRequiredFieldCharacteristic());
 		final SqlViewBinding sqlViewBinding = getViewBinding(sqlViewBindingKey);
-		final SqlViewDataRepository sqlViewDataRepository = new SqlViewDataRepository(sqlViewBinding);
+		final SqlViewDataRepository sqlViewDataRepository = new SqlViewDataRepository(sqlViewBinding, sharedViewSelections);
 
 		return DefaultView.builder(sqlViewDataRepository)
 				.setWindowId(request.getWindowId())
@@ -113,6 +136,8 @@ public class SqlViewFactory implements IViewFactory
 				.addStickyFilters(request.getStickyFilters())
 				.addStickyFilter(extractReferencedDocumentFilter(request.getWindowId(), request.getSingleReferencingDocumentPathOrNull()))
 				.setFiltersFromJSON(request.getFilters())
+				.setPageCache(pageCacheMaxPages, pageCacheExpireAfterWriteSeconds, pageCachePrefetch)
+				.setNarrowingFromView(narrowingFromView)
 				.build();
 	}
 
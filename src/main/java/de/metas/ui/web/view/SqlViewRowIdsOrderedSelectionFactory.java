@@ -18,7 +18,6 @@ import com.google.common.base.Stopwatch;
 import de.metas.logging.LogManager;
 import de.metas.ui.web.document.filter.DocumentFilter;
 import de.metas.ui.web.view.descriptor.SqlViewSelectionQueryBuilder;
-import de.metas.ui.web.window.datatypes.DocumentId;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
 import de.metas.ui.web.window.datatypes.WindowId;
 import de.metas.ui.web.window.descriptor.sql.SqlEntityBinding;
@@ -69,9 +68,9 @@ public class SqlViewRowIdsOrderedSelectionFactory implements ViewRowIdsOrderedSe
 	}
 
 	@Override
-	public String getSqlWhereClause(final ViewId viewId, final DocumentIdsSelection rowIds)
+	public String getSqlWhereClause(final String selectionId, final DocumentIdsSelection rowIds)
 	{
-		return newSqlViewSelectionQueryBuilder().buildSqlWhereClause(viewId.getViewId(), rowIds);
+		return newSqlViewSelectionQueryBuilder().buildSqlWhereClause(selectionId, rowIds);
 	}
 
 	@Override
@@ -126,6 +125,28 @@ public class SqlViewRowIdsOrderedSelectionFactory implements ViewRowIdsOrderedSe
 				.build();
 	}
 
+	@Override
+	public ViewRowIdsOrderedSelection createOrderedSelectionNarrowed(final ViewEvaluationCtx viewEvalCtx, final ViewRowIdsOrderedSelection fromSelection, final List<DocumentFilter> addedFilters)
+	{
+		final WindowId windowId = fromSelection.getWindowId();
+		final ViewId newViewId = ViewId.random(windowId);
+
+		final List<Object> sqlParams = new ArrayList<>();
+		final String sql = newSqlViewSelectionQueryBuilder().buildSqlCreateSelectionFromSelectionNarrowed(sqlParams, viewEvalCtx, newViewId, fromSelection.getSelectionId(), addedFilters);
+
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		final long rowsCount = DB.executeUpdateEx(sql, sqlParams.toArray(), ITrx.TRXNAME_ThreadInherited);
+		stopwatch.stop();
+		logger.trace("Created selection {} narrowed from {}, rowsCount={}, duration={} \n SQL: {} -- {}", newViewId, fromSelection, rowsCount, stopwatch, sql, sqlParams);
+
+		return ViewRowIdsOrderedSelection.builder()
+				.setViewId(newViewId)
+				.setSize(rowsCount)
+				.setOrderBys(fromSelection.getOrderBys())
+				.setQueryLimit(fromSelection.getQueryLimit())
+				.build();
+	}
+
 	@Override
 	public ViewRowIdsOrderedSelection addRowIdsToSelection(final ViewRowIdsOrderedSelection selection, final DocumentIdsSelection rowIds)
 	{
@@ -140,32 +161,16 @@ public class SqlViewRowIdsOrderedSelectionFactory implements ViewRowIdsOrderedSe
 		}
 
 		//
-		// Add
-		boolean hasChanges = false;
-		final String selectionId = selection.getSelectionId();
-		for (final DocumentId rowId : rowIds.toSet())
-		{
-			final List<Object> sqlParams = new ArrayList<>();
-			final String sqlAdd = newSqlViewSelectionQueryBuilder().buildSqlAddRowIdsFromSelection(sqlParams, selectionId, rowId);
-			final int added = DB.executeUpdateEx(sqlAdd, sqlParams.toArray(), ITrx.TRXNAME_ThreadInherited);
-			if (added <= 0)
-			{
-				continue;
-			}
-
-			hasChanges = true;
-		}
-		if (!hasChanges)
+		// Add and get the new size, in one statement
+		final List<Object> sqlParams = new ArrayList<>();
+		final String sqlAdd = newSqlViewSelectionQueryBuilder().buildSqlAddRowIdsFromSelection(sqlParams, selection.getSelectionId(), rowIds);
+		final int size = DB.getSQLValueEx(ITrx.TRXNAME_ThreadInherited, sqlAdd, sqlParams);
+		if (size == selection.getSize())
 		{
 			// nothing changed
 			return selection;
 		}
 
-		//
-		// Retrieve current size
-		// NOTE: we are querying it instead of adding how many we added to current "size" because it might be that the size is staled
-		final int size = retrieveSize(selectionId);
-
 		return selection.toBuilder()
 				.setSize(size)
 				.build();
@@ -182,26 +187,29 @@ public class SqlViewRowIdsOrderedSelectionFactory implements ViewRowIdsOrderedSe
 
 		//
 		// Delete
+		final String sqlDelete = newSqlViewSelectionQueryBuilder().buildSqlDeleteRowIdsFromSelection(selection.getSelectionId(), rowIds);
+		final int deleted = DB.executeUpdateEx(sqlDelete, ITrx.TRXNAME_ThreadInherited);
+		if (deleted <= 0)
 		{
-			final String sqlDelete = newSqlViewSelectionQueryBuilder().buildSqlDeleteRowIdsFromSelection(selection.getSelectionId(), rowIds);
-			final int deleted = DB.executeUpdateEx(sqlDelete, ITrx.TRXNAME_ThreadInherited);
-			if (deleted <= 0)
-			{
-				// nothing changed
-				return selection;
-			}
+			// nothing changed
+			return selection;
 		}
 
 		//
-		// Retrieve current size
-		// NOTE: we are querying it instead of subtracting "deleted" from current "size" because it might be that the size is staled
-		final int size = retrieveSize(selection.getSelectionId());
-
+		// Update the size
+		// NOTE: the selection is changed only by us, so it's safe to decrement the current size instead of counting again
 		return selection.toBuilder()
-				.setSize(size)
+				.setSize(Math.max(getSize(selection) - deleted, 0))
 				.build();
 	}
 
+	/** @return current selection size; if the size is not known, it will be retrieved from database */
+	private final long getSize(final ViewRowIdsOrderedSelection selection)
+	{
+		final long size = selection.getSize();
+		return size >= 0 ? size : retrieveSize(selection.getSelectionId());
+	}
+
 	private final int retrieveSize(final String selectionId)
 	{
 		final List<Object> sqlParams = new ArrayList<>();
@@ -0,0 +1,236 @@
+package de.metas.ui.web.view;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+
+import de.metas.ui.web.view.descriptor.ViewLayout;
+import de.metas.ui.web.view.json.JSONViewRow;
+import de.metas.ui.web.window.datatypes.json.JSONLookupValue;
+import de.metas.ui.web.window.descriptor.DocumentLayoutElementDescriptor;
+import de.metas.ui.web.window.descriptor.DocumentLayoutElementFieldDescriptor;
+import de.metas.ui.web.window.model.DocumentQueryOrderBy;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Writes all rows of a view to a given {@link Writer}, row by row, without loading the whole view in memory.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+final class ViewExporter
+{
+	public static enum Format
+	{
+		/** Comma separated values, having a header with field names */
+		csv("text/csv"),
+		/** One JSON row per line */
+		ndjson("application/x-ndjson");
+
+		private final String contentType;
+
+		private Format(final String contentType)
+		{
+			this.contentType = contentType;
+		}
+
+		public String getContentType()
+		{
+			return contentType;
+		}
+
+		public String getFileExtension()
+		{
+			return name();
+		}
+	}
+
+	private static final char CSV_Separator = ',';
+	private static final char CSV_Quote = '"';
+	private static final String LINE_Separator = "\r\n";
+
+	private final IView view;
+	private final ViewLayout viewLayout;
+	private final List<DocumentQueryOrderBy> orderBys;
+	private final ObjectMapper jsonObjectMapper;
+
+	public ViewExporter(
+			@NonNull final IView view,
+			@NonNull final ViewLayout viewLayout,
+			final List<DocumentQueryOrderBy> orderBys,
+			@NonNull final ObjectMapper jsonObjectMapper)
+	{
+		this.view = view;
+		this.viewLayout = viewLayout;
+		this.orderBys = orderBys != null ? ImmutableList.copyOf(orderBys) : ImmutableList.of();
+		this.jsonObjectMapper = jsonObjectMapper;
+	}
+
+	public void export(@NonNull final Format format, @NonNull final Writer writer)
+	{
+		try
+		{
+			if (format == Format.csv)
+			{
+				exportCSV(writer);
+			}
+			else if (format == Format.ndjson)
+			{
+				exportNDJSON(writer);
+			}
+			else
+			{
+				throw new IllegalArgumentException("Unknown export format: " + format);
+			}
+
+			writer.flush();
+		}
+		catch (final IOException ex)
+		{
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private void exportCSV(final Writer writer) throws IOException
+	{
+		final List<String> fieldNames = extractFieldNames(viewLayout);
+
+		writeCSVLine(writer, fieldNames);
+
+		view.forEachRow(orderBys, row -> {
+			final Map<String, Object> values = row.getFieldNameAndJsonValues();
+			final String[] line = new String[fieldNames.size()];
+			for (int i = 0; i < line.length; i++)
+			{
+				line[i] = toCSVValue(values.get(fieldNames.get(i)));
+			}
+
+			try
+			{
+				writeCSVLine(writer, Arrays.asList(line));
+			}
+			catch (final IOException ex)
+			{
+				throw new UncheckedIOException(ex);
+			}
+		});
+	}
+
+	private void exportNDJSON(final Writer writer)
+	{
+		view.forEachRow(orderBys, row -> {
+			try
+			{
+				writer.write(jsonObjectMapper.writeValueAsString(JSONViewRow.ofRow(row)));
+				writer.write(LINE_Separator);
+			}
+			catch (final IOException ex)
+			{
+				throw new UncheckedIOException(ex);
+			}
+		});
+	}
+
+	private static List<String> extractFieldNames(final ViewLayout viewLayout)
+	{
+		final ImmutableList.Builder<String> fieldNames = ImmutableList.builder();
+		for (final DocumentLayoutElementDescriptor element : viewLayout.getElements())
+		{
+			for (final DocumentLayoutElementFieldDescriptor field : element.getFields())
+			{
+				fieldNames.add(field.getField());
+			}
+		}
+		return fieldNames.build();
+	}
+
+	private static String toCSVValue(final Object jsonValue)
+	{
+		if (jsonValue == null)
+		{
+			return "";
+		}
+		else if (jsonValue instanceof JSONLookupValue)
+		{
+			return ((JSONLookupValue)jsonValue).getName();
+		}
+		else
+		{
+			return jsonValue.toString();
+		}
+	}
+
+	/* package */ static void writeCSVLine(final Writer writer, final List<String> values) throws IOException
+	{
+		boolean first = true;
+		for (final String value : values)
+		{
+			if (!first)
+			{
+				writer.write(CSV_Separator);
+			}
+			first = false;
+
+			writeCSVValue(writer, value);
+		}
+		writer.write(LINE_Separator);
+	}
+
+	private static void writeCSVValue(final Writer writer, final String value) throws IOException
+	{
+		if (value == null || value.isEmpty())
+		{
+			return;
+		}
+
+		final boolean quote = value.indexOf(CSV_Separator) >= 0
+				|| value.indexOf(CSV_Quote) >= 0
+				|| value.indexOf('\n') >= 0
+				|| value.indexOf('\r') >= 0;
+		if (!quote)
+		{
+			writer.write(value);
+			return;
+		}
+
+		writer.write(CSV_Quote);
+		for (int i = 0, len = value.length(); i < len; i++)
+		{
+			final char ch = value.charAt(i);
+			if (ch == CSV_Quote)
+			{
+				writer.write(CSV_Quote);
+			}
+			writer.write(ch);
+		}
+		writer.write(CSV_Quote);
+	}
+}
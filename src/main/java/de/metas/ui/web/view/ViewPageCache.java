@@ -0,0 +1,269 @@
+package de.metas.ui.web.view;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.compiere.util.Env;
+import org.slf4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import de.metas.logging.LogManager;
+import lombok.Builder;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Keeps the last pages which were fetched for a given view, for each of view's ordered selections.
+ * <p>
+ * If the user is scrolling sequentially, the next page is fetched asynchronously, in advance.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+public final class ViewPageCache
+{
+	private static final Logger logger = LogManager.getLogger(ViewPageCache.class);
+
+	/** Executor shared by all views, used to prefetch the next pages. If it's busy, the prefetch requests are discarded. */
+	private static final ThreadPoolExecutor prefetchExecutor = new ThreadPoolExecutor(
+			2, 2, // corePoolSize, maximumPoolSize
+			0, TimeUnit.MILLISECONDS, // keepAliveTime
+			new ArrayBlockingQueue<>(100),
+			CustomizableThreadFactory.builder()
+					.setThreadNamePrefix(ViewPageCache.class.getName())
+					.setDaemon(true)
+					.build());
+
+	@FunctionalInterface
+	public interface PageLoader
+	{
+		List<IViewRow> retrievePage(ViewRowIdsOrderedSelection orderedSelection, int firstRow, int pageLength);
+	}
+
+	private final int maxPagesPerSelection;
+	private final int expireAfterWriteSeconds;
+	private final boolean prefetchEnabled;
+
+	private final ConcurrentHashMap<String, SelectionPages> pagesBySelectionId = new ConcurrentHashMap<>();
+	/** Incremented each time the cache is invalidated. Used to discard the pages which were prefetched before invalidation. */
+	private final AtomicInteger generation = new AtomicInteger();
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder prefetchCount = new LongAdder();
+	private final LongAdder prefetchHitCount = new LongAdder();
+
+	/**
+	 * @param maxPagesPerSelection how many pages to keep in memory, for each ordered selection; zero or negative means no page caching
+	 * @param expireAfterWriteSeconds how long a cached page is served, even if the underlying records were changed by somebody else (e.g. a background process); zero or negative means no expiration
+	 * @param prefetchEnabled if true, the next page will be prefetched asynchronously when the user is scrolling sequentially
+	 */
+	public ViewPageCache(final int maxPagesPerSelection, final int expireAfterWriteSeconds, final boolean prefetchEnabled)
+	{
+		this.maxPagesPerSelection = maxPagesPerSelection;
+		this.expireAfterWriteSeconds = expireAfterWriteSeconds;
+		this.prefetchEnabled = prefetchEnabled;
+	}
+
+	public List<IViewRow> getPage(
+			@NonNull final ViewRowIdsOrderedSelection orderedSelection,
+			final int firstRow,
+			final int pageLength,
+			@NonNull final PageLoader loader)
+	{
+		if (maxPagesPerSelection <= 0)
+		{
+			return loader.retrievePage(orderedSelection, firstRow, pageLength);
+		}
+
+		final SelectionPages selectionPages = pagesBySelectionId.computeIfAbsent(orderedSelection.getSelectionId(), selectionId -> new SelectionPages(maxPagesPerSelection, expireAfterWriteSeconds));
+		final PageKey pageKey = PageKey.of(firstRow, pageLength);
+
+		List<IViewRow> page = selectionPages.pages.getIfPresent(pageKey);
+		if (page != null)
+		{
+			hitCount.increment();
+			if (selectionPages.prefetchedPageKeys.remove(pageKey))
+			{
+				prefetchHitCount.increment();
+			}
+		}
+		else
+		{
+			missCount.increment();
+			final int generationAtLoad = generation.get();
+			page = loader.retrievePage(orderedSelection, firstRow, pageLength);
+			if (generationAtLoad == generation.get())
+			{
+				selectionPages.pages.put(pageKey, page);
+			}
+		}
+
+		//
+		// If the user is scrolling forward, sequentially, prefetch the next page
+		final PageKey previousPageKey = selectionPages.lastRequestedPageKey.getAndSet(pageKey);
+		if (prefetchEnabled && pageKey.isNextPageOf(previousPageKey))
+		{
+			prefetchPage(selectionPages, orderedSelection, pageKey.nextPage(), loader);
+		}
+
+		return page;
+	}
+
+	private void prefetchPage(final SelectionPages selectionPages, final ViewRowIdsOrderedSelection orderedSelection, final PageKey pageKey, final PageLoader loader)
+	{
+		if (orderedSelection.getSize() >= 0 && pageKey.getFirstRow() >= orderedSelection.getSize())
+		{
+			return; // we are at the end of the selection
+		}
+		if (selectionPages.pages.getIfPresent(pageKey) != null)
+		{
+			return; // already loaded
+		}
+		if (!selectionPages.prefetchingPageKeys.add(pageKey))
+		{
+			return; // already prefetching
+		}
+
+		// NOTE: the page is loaded on another thread, so we have to pass it the current user's context
+		final Properties ctx = Env.copyCtx(Env.getCtx());
+		final int generationAtLoad = generation.get();
+		final Runnable prefetchTask = () -> {
+			try (final IAutoCloseable ctxRestorer = Env.switchContext(ctx))
+			{
+				final List<IViewRow> page = loader.retrievePage(orderedSelection, pageKey.getFirstRow(), pageKey.getPageLength());
+				if (generationAtLoad == generation.get())
+				{
+					selectionPages.pages.put(pageKey, page);
+					selectionPages.prefetchedPageKeys.add(pageKey);
+					prefetchCount.increment();
+				}
+			}
+			catch (final Exception ex)
+			{
+				logger.warn("Failed prefetching {} for {}. Ignored.", pageKey, orderedSelection, ex);
+			}
+			finally
+			{
+				selectionPages.prefetchingPageKeys.remove(pageKey);
+			}
+		};
+
+		try
+		{
+			prefetchExecutor.execute(prefetchTask);
+		}
+		catch (final RejectedExecutionException ex)
+		{
+			// executor is busy => discard the prefetch request
+			selectionPages.prefetchingPageKeys.remove(pageKey);
+		}
+	}
+
+	public void invalidateAll()
+	{
+		generation.incrementAndGet();
+		pagesBySelectionId.clear();
+	}
+
+	public Stats getStats()
+	{
+		return Stats.builder()
+				.maxPagesPerSelection(maxPagesPerSelection)
+				.expireAfterWriteSeconds(expireAfterWriteSeconds)
+				.pagesCount(pagesBySelectionId.values().stream().mapToLong(selectionPages -> selectionPages.pages.size()).sum())
+				.hitCount(hitCount.sum())
+				.missCount(missCount.sum())
+				.prefetchCount(prefetchCount.sum())
+				.prefetchHitCount(prefetchHitCount.sum())
+				.build();
+	}
+
+	@lombok.Value
+	@Builder
+	public static final class Stats
+	{
+		private final int maxPagesPerSelection;
+		private final int expireAfterWriteSeconds;
+		private final long pagesCount;
+		private final long hitCount;
+		private final long missCount;
+		private final long prefetchCount;
+		private final long prefetchHitCount;
+	}
+
+	@lombok.Value(staticConstructor = "of")
+	private static final class PageKey
+	{
+		private final int firstRow;
+		private final int pageLength;
+
+		public boolean isNextPageOf(final PageKey previousPageKey)
+		{
+			return previousPageKey != null
+					&& pageLength == previousPageKey.pageLength
+					&& firstRow == previousPageKey.firstRow + previousPageKey.pageLength;
+		}
+
+		public PageKey nextPage()
+		{
+			return of(firstRow + pageLength, pageLength);
+		}
+	}
+
+	private static final class SelectionPages
+	{
+		private final Cache<PageKey, List<IViewRow>> pages;
+		private final AtomicReference<PageKey> lastRequestedPageKey = new AtomicReference<>();
+		private final Set<PageKey> prefetchingPageKeys = ConcurrentHashMap.newKeySet();
+		private final Set<PageKey> prefetchedPageKeys = ConcurrentHashMap.newKeySet();
+
+		private SelectionPages(final int maxPages, final int expireAfterWriteSeconds)
+		{
+			final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+					.maximumSize(maxPages);
+			if (expireAfterWriteSeconds > 0)
+			{
+				cacheBuilder.expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS);
+			}
+
+			pages = cacheBuilder
+					.removalListener(notification -> prefetchedPageKeys.remove(notification.getKey()))
+					.build();
+		}
+	}
+}
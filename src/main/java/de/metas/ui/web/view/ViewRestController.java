@@ -1,10 +1,18 @@
 package de.metas.ui.web.view;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Stream;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,6 +24,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.WebRequest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 
 import de.metas.process.IProcessPreconditionsContext;
@@ -95,6 +104,9 @@ public class ViewRestController
 	@Autowired
 	private WindowRestController windowRestController;
 
+	@Autowired
+	private ObjectMapper jsonObjectMapper;
+
 	private JSONOptions newJSONOptions()
 	{
 		return JSONOptions.of(userSession);
@@ -192,6 +204,36 @@ public class ViewRestController
 		return JSONViewResult.of(result);
 	}
 
+	/**
+	 * Exports all rows of given view.
+	 * The rows are streamed directly to the response, page by page, so the whole view is never loaded in memory.
+	 */
+	@GetMapping("/{viewId}/export")
+	public void exportView(
+			@PathVariable(PARAM_WindowId) final String windowId //
+			, @PathVariable("viewId") final String viewIdStr//
+			, @RequestParam(name = "format", required = false, defaultValue = "csv") @ApiParam("csv or ndjson") final ViewExporter.Format format //
+			, @RequestParam(name = PARAM_OrderBy, required = false) @ApiParam(PARAM_OrderBy_Description) final String orderBysListStr //
+			, final HttpServletResponse response //
+	) throws IOException
+	{
+		userSession.assertLoggedIn();
+
+		final ViewId viewId = ViewId.of(windowId, viewIdStr);
+		final IView view = viewsRepo.getView(viewId);
+		final ViewLayout viewLayout = viewsRepo.getViewLayout(viewId.getWindowId(), view.getViewType());
+		final List<DocumentQueryOrderBy> orderBys = DocumentQueryOrderBy.parseOrderBysList(orderBysListStr);
+
+		response.setContentType(format.getContentType());
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + viewId.getViewId() + "." + format.getFileExtension() + "\"");
+
+		// NOTE: we are writing synchronously, on request's thread, because the view rows are fetched using the current user's session context.
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+		new ViewExporter(view, viewLayout, orderBys, jsonObjectMapper)
+				.export(format, writer);
+	}
+
 	@GetMapping("/layout")
 	public ResponseEntity<JSONViewLayout> getViewLayout(
 			@PathVariable(PARAM_WindowId) final String windowIdStr,
@@ -1,6 +1,7 @@
 package de.metas.ui.web.view;
 
 import java.util.List;
+import java.util.Objects;
 
 import javax.annotation.concurrent.Immutable;
 
@@ -45,6 +46,7 @@ public final class ViewRowIdsOrderedSelection
 	}
 
 	private final ViewId viewId;
+	private final String selectionId;
 	private final long size;
 	private final ImmutableList<DocumentQueryOrderBy> orderBys;
 
@@ -55,6 +57,7 @@ public final class ViewRowIdsOrderedSelection
 	{
 		super();
 		viewId = builder.getViewId();
+		selectionId = builder.getSelectionId();
 		size = builder.getSize();
 		orderBys = builder.getOrderBys();
 
@@ -68,6 +71,7 @@ public final class ViewRowIdsOrderedSelection
 		return MoreObjects.toStringHelper(this)
 				.omitNullValues()
 				.add("viewId", viewId)
+				.add("selectionId", Objects.equals(viewId.getViewId(), selectionId) ? null : selectionId)
 				.add("size", size)
 				.add("orderBys", orderBys.isEmpty() ? null : orderBys)
 				.toString();
@@ -77,6 +81,7 @@ public final class ViewRowIdsOrderedSelection
 	{
 		return builder()
 				.setViewId(viewId)
+				.setSelectionId(selectionId)
 				.setSize(size)
 				.setOrderBys(orderBys)
 				.setQueryLimit(queryLimit);
@@ -92,9 +97,12 @@ public final class ViewRowIdsOrderedSelection
 		return viewId.getWindowId();
 	}
 	
+	/**
+	 * @return database selection ID (i.e. T_WEBUI_ViewSelection.UUID); usually it's the same as view's ID, but it could differ when the selection is shared between more views
+	 */
 	public String getSelectionId()
 	{
-		return viewId.getViewId();
+		return selectionId;
 	}
 
 	public long getSize()
@@ -120,6 +128,7 @@ public final class ViewRowIdsOrderedSelection
 	public static final class Builder
 	{
 		private ViewId viewId;
+		private String selectionId;
 		private long size = -1;
 		private List<DocumentQueryOrderBy> orderBys;
 
@@ -146,6 +155,20 @@ public final class ViewRowIdsOrderedSelection
 			return this;
 		}
 
+		private String getSelectionId()
+		{
+			return selectionId != null ? selectionId : getViewId().getViewId();
+		}
+
+		/**
+		 * Sets the database selection ID. If not set, the view's ID will be used.
+		 */
+		public Builder setSelectionId(final String selectionId)
+		{
+			this.selectionId = selectionId;
+			return this;
+		}
+
 		private long getSize()
 		{
 			return size;
@@ -35,7 +35,13 @@ public interface ViewRowIdsOrderedSelectionFactory
 
 	ViewRowIdsOrderedSelection createOrderedSelectionFromSelection(ViewEvaluationCtx viewEvalCtx, ViewRowIdsOrderedSelection fromSelection, List<DocumentQueryOrderBy> orderBys);
 
-	String getSqlWhereClause(ViewId viewId, DocumentIdsSelection rowIds);
+	/**
+	 * Creates a new selection which contains only the rows of given selection which are also matching the given (additional) filters.
+	 * The order of given selection is preserved.
+	 */
+	ViewRowIdsOrderedSelection createOrderedSelectionNarrowed(ViewEvaluationCtx viewEvalCtx, ViewRowIdsOrderedSelection fromSelection, List<DocumentFilter> addedFilters);
+
+	String getSqlWhereClause(String selectionId, DocumentIdsSelection rowIds);
 
 	ViewRowIdsOrderedSelection addRowIdsToSelection(ViewRowIdsOrderedSelection selection, DocumentIdsSelection rowIds);
 
@@ -0,0 +1,292 @@
+package de.metas.ui.web.view;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.exceptions.DBException;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.compiere.util.DB;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import com.google.common.base.Stopwatch;
+
+import de.metas.logging.LogManager;
+import de.metas.ui.web.WebRestApiApplication;
+import de.metas.ui.web.view.descriptor.SqlViewSelectionQueryBuilder;
+import lombok.Builder;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Deletes, asynchronously, the T_WEBUI_ViewSelection rows of the views which were closed.
+ * <p>
+ * Selection IDs are enqueued by {@link ViewsRepository} when a view is removed and they are deleted in chunks, on a background thread.
+ * Each DELETE is bounded by <code>metasfresh.webui.view.selections.reclaimer.maxRowsPerQuery</code>, so a chunk with huge selections does not hold the locks for long.
+ * <p>
+ * Optionally (see <code>metasfresh.webui.view.selections.reclaimer.sweepOrphansOnStartup</code>, disabled by default),
+ * the selections found in database which are not used by this node are considered orphans (i.e. left over by a previous run) and are enqueued too.
+ * That sweep runs on the background thread, chunk by chunk, so it's not delaying the startup.
+ * <b>Enable it only if this is the only webui node using the database</b>, because the selections of the views of other nodes are not known here.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Component
+@DependsOn(WebRestApiApplication.BEANNAME_Adempiere)
+public class ViewSelectionsReclaimer
+{
+	private static final Logger logger = LogManager.getLogger(ViewSelectionsReclaimer.class);
+
+	private final int maxSelectionsPerQuery;
+	private final int maxRowsPerQuery;
+	private final int delayMillis;
+	private final boolean sweepOrphansOnStartup;
+
+	private final ScheduledExecutorService scheduler;
+	private final LinkedBlockingQueue<String> selectionIdsToDelete = new LinkedBlockingQueue<>();
+	private final CopyOnWriteArrayList<Supplier<? extends Collection<String>>> selectionIdsInUseSuppliers = new CopyOnWriteArrayList<>();
+
+	private final AtomicLong deletedSelectionsCount = new AtomicLong();
+	private final AtomicLong deletedRowsCount = new AtomicLong();
+	private final AtomicLong failedSelectionsCount = new AtomicLong();
+
+	public ViewSelectionsReclaimer(
+			@Value("${metasfresh.webui.view.selections.reclaimer.maxSelectionsPerQuery:100}") final int maxSelectionsPerQuery,
+			@Value("${metasfresh.webui.view.selections.reclaimer.maxRowsPerQuery:10000}") final int maxRowsPerQuery,
+			@Value("${metasfresh.webui.view.selections.reclaimer.delayMillis:5000}") final int delayMillis,
+			@Value("${metasfresh.webui.view.selections.reclaimer.sweepOrphansOnStartup:false}") final boolean sweepOrphansOnStartup)
+	{
+		this.maxSelectionsPerQuery = maxSelectionsPerQuery > 0 ? maxSelectionsPerQuery : 100;
+		this.maxRowsPerQuery = maxRowsPerQuery > 0 ? maxRowsPerQuery : 10000;
+		this.delayMillis = delayMillis > 0 ? delayMillis : 5000;
+		this.sweepOrphansOnStartup = sweepOrphansOnStartup;
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(getClass().getName())
+				.setDaemon(true)
+				.build());
+	}
+
+	@PostConstruct
+	private void start()
+	{
+		//
+		// Enqueue the selections left over by previous runs, in background
+		if (sweepOrphansOnStartup)
+		{
+			scheduler.execute(() -> sweepOrphanSelections(null));
+		}
+
+		scheduler.scheduleWithFixedDelay(this::deletePendingSelections, delayMillis, delayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	private void stop()
+	{
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * Enqueues given selections to be deleted.
+	 */
+	public void scheduleDelete(final Collection<String> selectionIds)
+	{
+		if (selectionIds == null || selectionIds.isEmpty())
+		{
+			return;
+		}
+
+		selectionIdsToDelete.addAll(selectionIds);
+		logger.trace("Enqueued selections to be deleted: {}", selectionIds);
+	}
+
+	/**
+	 * Registers a supplier of the selection IDs which are currently used on this node and which shall not be swept as orphans.
+	 */
+	public void registerSelectionIdsInUseSupplier(@NonNull final Supplier<? extends Collection<String>> selectionIdsInUseSupplier)
+	{
+		selectionIdsInUseSuppliers.add(selectionIdsInUseSupplier);
+	}
+
+	/**
+	 * Retrieves the next chunk of selection IDs (after <code>afterSelectionId</code>) and, after {@link #delayMillis},
+	 * enqueues the ones which are not used on this node and continues with the next chunk.
+	 * <p>
+	 * NOTE: a selection is visible to us only after the transaction which created it was committed, which is right before its view is registered.
+	 * That's why we are checking if the selections are in use only after a delay.
+	 */
+	private void sweepOrphanSelections(final String afterSelectionId)
+	{
+		final List<String> selectionIds;
+		try
+		{
+			selectionIds = retrieveSelectionIds(afterSelectionId, maxSelectionsPerQuery);
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed retrieving orphan selections after {}. Stopped sweeping.", afterSelectionId, ex);
+			return;
+		}
+
+		if (selectionIds.isEmpty())
+		{
+			logger.info("Sweeping orphan selections done");
+			return;
+		}
+
+		scheduler.schedule(() -> {
+			final Set<String> selectionIdsInUse = getSelectionIdsInUse();
+			final List<String> orphanSelectionIds = new ArrayList<>(selectionIds);
+			orphanSelectionIds.removeAll(selectionIdsInUse);
+			selectionIdsToDelete.addAll(orphanSelectionIds);
+			logger.debug("Enqueued {} orphan selections to be deleted", orphanSelectionIds.size());
+
+			sweepOrphanSelections(selectionIds.get(selectionIds.size() - 1));
+		}, delayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private Set<String> getSelectionIdsInUse()
+	{
+		final Set<String> selectionIdsInUse = new HashSet<>();
+		for (final Supplier<? extends Collection<String>> selectionIdsInUseSupplier : selectionIdsInUseSuppliers)
+		{
+			selectionIdsInUse.addAll(selectionIdsInUseSupplier.get());
+		}
+		return selectionIdsInUse;
+	}
+
+	private void deletePendingSelections()
+	{
+		final List<String> selectionIds = new ArrayList<>(maxSelectionsPerQuery);
+		while (selectionIdsToDelete.drainTo(selectionIds, maxSelectionsPerQuery) > 0)
+		{
+			try
+			{
+				deleteSelections(selectionIds);
+			}
+			catch (final Exception ex)
+			{
+				// NOTE: don't propagate the exception because that would stop our scheduled task.
+				// Those selections will be picked up by next startup's orphans sweeping (if enabled).
+				failedSelectionsCount.addAndGet(selectionIds.size());
+				logger.warn("Failed deleting selections: {}. Skipped.", selectionIds, ex);
+			}
+
+			selectionIds.clear();
+		}
+	}
+
+	/**
+	 * Deletes given selections, at most {@link #maxRowsPerQuery} rows at a time, each DELETE in its own transaction.
+	 */
+	private void deleteSelections(final List<String> selectionIds)
+	{
+		final List<Object> sqlParams = new ArrayList<>();
+		final String sql = SqlViewSelectionQueryBuilder.buildSqlDeleteSelections(sqlParams, selectionIds, maxRowsPerQuery);
+
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		int deletedRows = 0;
+		int deletedRowsLastQuery;
+		do
+		{
+			deletedRowsLastQuery = DB.executeUpdateEx(sql, sqlParams.toArray(), ITrx.TRXNAME_None);
+			deletedRows += deletedRowsLastQuery;
+			deletedRowsCount.addAndGet(deletedRowsLastQuery);
+		}
+		while (deletedRowsLastQuery >= maxRowsPerQuery);
+		stopwatch.stop();
+
+		deletedSelectionsCount.addAndGet(selectionIds.size());
+		logger.debug("Deleted {} selections ({} rows) in {}", selectionIds.size(), deletedRows, stopwatch);
+	}
+
+	private static List<String> retrieveSelectionIds(final String afterSelectionId, final int limit)
+	{
+		final List<Object> sqlParams = new ArrayList<>();
+		final String sql = SqlViewSelectionQueryBuilder.buildSqlRetrieveSelectionIds(sqlParams, afterSelectionId, limit);
+
+		final List<String> selectionIds = new ArrayList<>(limit);
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_None);
+			DB.setParameters(pstmt, sqlParams.toArray());
+			rs = pstmt.executeQuery();
+			while (rs.next())
+			{
+				selectionIds.add(rs.getString(1));
+			}
+			return selectionIds;
+		}
+		catch (final SQLException ex)
+		{
+			throw DBException.wrapIfNeeded(ex).setSqlIfAbsent(sql, sqlParams.toArray());
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+	}
+
+	public Stats getStats()
+	{
+		return Stats.builder()
+				.pendingSelectionsCount(selectionIdsToDelete.size())
+				.deletedSelectionsCount(deletedSelectionsCount.get())
+				.deletedRowsCount(deletedRowsCount.get())
+				.failedSelectionsCount(failedSelectionsCount.get())
+				.build();
+	}
+
+	@lombok.Value
+	@Builder
+	public static final class Stats
+	{
+		private final int pendingSelectionsCount;
+		private final long deletedSelectionsCount;
+		private final long deletedRowsCount;
+		private final long failedSelectionsCount;
+	}
+}
@@ -0,0 +1,46 @@
+package de.metas.ui.web.view;
+
+import lombok.Builder;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Statistics about how the changed records notifications were dispatched to views, for a given table.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Value
+@Builder
+public final class ViewsRecordsChangedStats
+{
+	private final String tableName;
+
+	/** Number of views currently interested in this table's changes */
+	private final int viewsCount;
+	/** Number of changed records notified for this table */
+	private final long recordsCount;
+	/** Number of times a view was notified about this table's changes */
+	private final long dispatchCount;
+}
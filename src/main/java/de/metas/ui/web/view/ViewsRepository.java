@@ -1,10 +1,15 @@
 package de.metas.ui.web.view;
 
-import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.util.lang.impl.TableRecordReference;
@@ -20,6 +25,7 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import de.metas.logging.LogManager;
 import de.metas.ui.web.exceptions.EntityNotFoundException;
@@ -66,14 +72,24 @@ public class ViewsRepository implements IViewsRepository
 	@Autowired
 	private MenuTreeRepository menuTreeRepo;
 
+	private final SharedViewSelectionsCache sharedViewSelections;
+
 	private final Cache<String, IView> views = CacheBuilder.newBuilder()
 			.expireAfterAccess(1, TimeUnit.HOURS)
 			.removalListener(notification -> onViewRemoved(notification))
 			.build();
 
+	//
+	// Changed records routing: table name -> views which are interested in that table's changes
+	private final ConcurrentHashMap<String, Set<IView>> viewsByTableName = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, RecordsChangedCounters> recordsChangedCountersByTableName = new ConcurrentHashMap<>();
+
 	@Autowired
-	public ViewsRepository(final ApplicationContext context)
+	public ViewsRepository(final ApplicationContext context, final SharedViewSelectionsCache sharedViewSelections, final ViewSelectionsReclaimer viewSelectionsReclaimer)
 	{
+		this.sharedViewSelections = sharedViewSelections;
+		viewSelectionsReclaimer.registerSelectionIdsInUseSupplier(this::getSelectionIdsInUse);
+
 		//
 		// Discover context factories
 		for (final Object factoryObj : context.getBeansWithAnnotation(ViewFactory.class).values())
@@ -151,7 +167,7 @@ public class ViewsRepository implements IViewsRepository
 					.setParameter("factory", factory.toString());
 		}
 
-		views.put(view.getViewId().getViewId(), view);
+		addView(view);
 
 		return view;
 	}
@@ -179,14 +195,23 @@ public class ViewsRepository implements IViewsRepository
 		// NOTE: avoid adding if the factory returned the same view.
 		if (view != newView)
 		{
-			final ViewId newViewId = newView.getViewId();
-			views.put(newViewId.getViewId(), newView);
+			addView(newView);
 		}
 
 		// Return the newly created view
 		return newView;
 	}
 
+	private void addView(final IView view)
+	{
+		views.put(view.getViewId().getViewId(), view);
+
+		for (final String tableName : view.getTableNamesToNotifyOnRecordsChanged())
+		{
+			viewsByTableName.computeIfAbsent(tableName, k -> ConcurrentHashMap.newKeySet()).add(view);
+		}
+	}
+
 	@Override
 	public IView getViewIfExists(final ViewId viewId)
 	{
@@ -217,10 +242,30 @@ public class ViewsRepository implements IViewsRepository
 		views.invalidate(viewId.getViewId());
 	}
 
+	private Set<String> getSelectionIdsInUse()
+	{
+		return views.asMap().values()
+				.stream()
+				.flatMap(view -> view.getSelectionIds().stream())
+				.collect(ImmutableSet.toImmutableSet());
+	}
+
 	private final void onViewRemoved(final RemovalNotification<Object, Object> notification)
 	{
 		final IView view = (IView)notification.getValue();
+
+		for (final String tableName : view.getTableNamesToNotifyOnRecordsChanged())
+		{
+			viewsByTableName.computeIfPresent(tableName, (k, tableViews) -> {
+				tableViews.remove(view);
+				return tableViews.isEmpty() ? null : tableViews;
+			});
+		}
+
 		view.close();
+
+		// NOTE: the selections which are shared with other views will be deleted when the last view is released
+		sharedViewSelections.release(view.getSelectionIds());
 	}
 
 	@Override
@@ -232,13 +277,68 @@ public class ViewsRepository implements IViewsRepository
 			return;
 		}
 
-		final Collection<IView> views = this.views.asMap().values();
+		//
+		// Collect, for each view, only the changed records of the tables that view is interested in
+		final Map<IView, Set<TableRecordReference>> recordRefsByView = new IdentityHashMap<>();
+		final Map<String, List<TableRecordReference>> recordRefsByTableName = recordRefs.stream().collect(Collectors.groupingBy(TableRecordReference::getTableName));
+
+		// Make sure the new views will not reuse selections which might be outdated now
+		sharedViewSelections.invalidateByTableNames(recordRefsByTableName.keySet());
+
+		recordRefsByTableName.forEach((tableName, tableRecordRefs) -> {
+			final Set<IView> tableViews = viewsByTableName.get(tableName);
+			final int tableViewsCount = tableViews != null ? tableViews.size() : 0;
+			getRecordsChangedCounters(tableName).increment(tableRecordRefs.size(), tableViewsCount);
+			if (tableViewsCount <= 0)
+			{
+				return;
+			}
+
+			tableViews.forEach(view -> recordRefsByView.computeIfAbsent(view, k -> new HashSet<>()).addAll(tableRecordRefs));
+		});
 
 		if (logger.isDebugEnabled())
 		{
-			logger.debug("Notifing {} views about changed records: {}", views.size(), recordRefs);
+			logger.debug("Notifing {} views about changed records: {}", recordRefsByView.size(), recordRefs);
 		}
 
-		views.forEach(view -> view.notifyRecordsChanged(recordRefs));
+		recordRefsByView.forEach((view, viewRecordRefs) -> view.notifyRecordsChanged(ImmutableSet.copyOf(viewRecordRefs)));
+	}
+
+	private RecordsChangedCounters getRecordsChangedCounters(final String tableName)
+	{
+		return recordsChangedCountersByTableName.computeIfAbsent(tableName, k -> new RecordsChangedCounters());
+	}
+
+	@Override
+	public List<ViewsRecordsChangedStats> getRecordsChangedStats()
+	{
+		return recordsChangedCountersByTableName.entrySet()
+				.stream()
+				.map(tableNameAndCounters -> {
+					final String tableName = tableNameAndCounters.getKey();
+					final RecordsChangedCounters counters = tableNameAndCounters.getValue();
+					final Set<IView> tableViews = viewsByTableName.get(tableName);
+					return ViewsRecordsChangedStats.builder()
+							.tableName(tableName)
+							.viewsCount(tableViews != null ? tableViews.size() : 0)
+							.recordsCount(counters.recordsCount.sum())
+							.dispatchCount(counters.dispatchCount.sum())
+							.build();
+				})
+				.sorted(Comparator.comparing(ViewsRecordsChangedStats::getTableName))
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	private static final class RecordsChangedCounters
+	{
+		private final LongAdder recordsCount = new LongAdder();
+		private final LongAdder dispatchCount = new LongAdder();
+
+		public void increment(final int recordsCount, final int dispatchCount)
+		{
+			this.recordsCount.add(recordsCount);
+			this.dispatchCount.add(dispatchCount);
+		}
 	}
 }
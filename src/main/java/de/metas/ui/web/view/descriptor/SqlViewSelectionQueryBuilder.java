@@ -1,8 +1,10 @@
 package de.metas.ui.web.view.descriptor;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.adempiere.ad.dao.IQueryFilter;
 import org.adempiere.ad.dao.impl.TypedSqlQueryFilter;
@@ -174,6 +176,14 @@ public final class SqlViewSelectionQueryBuilder
 		return sql;
 	}
 
+	/**
+	 * @return names of the context variables which are evaluated when creating the selection for given filters (see {@link #buildSqlCreateSelectionFrom(List, ViewEvaluationCtx, ViewId, List, List, int)})
+	 */
+	public Set<String> getSqlWhereClauseParameterNames(final List<DocumentFilter> filters)
+	{
+		return buildSqlWhereClause(new ArrayList<>(), filters).getParameters();
+	}
+
 	private final IStringExpression buildSqlWhereClause(final List<Object> sqlParams, final List<DocumentFilter> filters)
 	{
 		final CompositeStringExpression.Builder sqlWhereClauseBuilder = IStringExpression.composer();
@@ -242,6 +252,71 @@ public final class SqlViewSelectionQueryBuilder
 		return sqlBuilder.toString();
 	}
 
+	/**
+	 * Builds the SQL which creates a new selection containing only the rows of given selection which are matching the given (additional) filters.
+	 * The rows order of the given selection is preserved.
+	 * <p>
+	 * NOTE: the entity where clause is not applied because we assume it was already applied when the given selection was created.
+	 */
+	public String buildSqlCreateSelectionFromSelectionNarrowed( //
+			final List<Object> sqlParams //
+			, final ViewEvaluationCtx viewEvalCtx //
+			, final ViewId newViewId //
+			, final String fromSelectionId //
+			, final List<DocumentFilter> addedFilters //
+	)
+	{
+		final String sqlTableName = getTableName();
+		final String sqlTableAlias = getTableAlias();
+		final String keyColumnNameFQ = sqlTableAlias + "." + getKeyColumnName();
+
+		//
+		// INSERT INTO T_WEBUI_ViewSelection (UUID, Line, Record_ID)
+		final CompositeStringExpression.Builder sqlBuilder = IStringExpression.composer()
+				.append("INSERT INTO " + I_T_WEBUI_ViewSelection.Table_Name + " ("\n						+ " " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID
+						+ ", " + I_T_WEBUI_ViewSelection.COLUMNNAME_Line
+						+ ", " + I_T_WEBUI_ViewSelection.COLUMNNAME_Record_ID
+						+ ")");
+
+		//
+		// SELECT ... FROM ourTable INNER JOIN T_WEBUI_ViewSelection sel ON (sel.UUID=[fromUUID] AND ...) WHERE 1=1
+		// NOTE: we are driving the query from the selection, so it's proportional to selection's size and not to table's size.
+		{
+			sqlBuilder.append(
+					IStringExpression.composer()
+							.append("\n SELECT ")
+							.append("\n  ?") // newUUID
+							.append("\n, ").append("row_number() OVER (ORDER BY sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_Line + ")") // Line
+							.append("\n, ").append(keyColumnNameFQ) // Record_ID
+							.append("\n FROM ").append(sqlTableName).append(" ").append(sqlTableAlias)
+							.append("\n INNER JOIN " + I_T_WEBUI_ViewSelection.Table_Name + " sel ON ("
+									+ "sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + "=?" // fromUUID
+									+ " AND sel." + I_T_WEBUI_ViewSelection.COLUMNNAME_Record_ID + "=" + keyColumnNameFQ
+									+ ")")
+							.append("\n WHERE 1=1 ")
+							.wrap(AccessSqlStringExpression.wrapper(sqlTableAlias, IUserRolePermissions.SQL_FULLYQUALIFIED, IUserRolePermissions.SQL_RO)) // security
+			);
+			sqlParams.add(newViewId.getViewId());
+			sqlParams.add(fromSelectionId);
+		}
+
+		//
+		// WHERE clause (only the added filters)
+		{
+			final String sqlFilters = SqlDocumentFilterConverters.createEntityBindingEffectiveConverter(entityBinding)
+					.getSql(sqlParams, addedFilters);
+			if (!Check.isEmpty(sqlFilters, true))
+			{
+				sqlBuilder.append("\n AND /* added filters */ (\n").append(sqlFilters).append("\n)");
+			}
+		}
+
+		//
+		// Evaluate the final SQL query
+		final String sql = sqlBuilder.build().evaluate(viewEvalCtx.toEvaluatee(), OnVariableNotFound.Fail);
+		return sql;
+	}
+
 	public String buildSqlWhereClause(final String selectionId, final DocumentIdsSelection rowIds)
 	{
 		final String sqlTableName = getTableName();
@@ -301,31 +376,112 @@ public final class SqlViewSelectionQueryBuilder
 		return sql.toString();
 	}
 
-	public String buildSqlAddRowIdsFromSelection(final List<Object> sqlParams, final String selectionId, final DocumentId rowId)
+	/**
+	 * Builds the SQL which deletes at most <code>limit</code> rows of given selections.
+	 * Execute it until it deletes less than <code>limit</code> rows in order to delete the selections completely.
+	 */
+	public static String buildSqlDeleteSelections(final List<Object> sqlParams, @NonNull final Collection<String> selectionIds, final int limit)
+	{
+		Check.assumeNotEmpty(selectionIds, "selectionIds is not empty");
+		Check.assume(limit > 0, "limit > 0");
+
+		final String sql = "DELETE FROM " + I_T_WEBUI_ViewSelection.Table_Name
+				+ " WHERE ctid IN ("
+				+ "SELECT ctid FROM " + I_T_WEBUI_ViewSelection.Table_Name
+				+ " WHERE " + DB.buildSqlList(I_T_WEBUI_ViewSelection.COLUMNNAME_UUID, selectionIds, sqlParams)
+				+ " LIMIT ?"
+				+ ")";
+		sqlParams.add(limit);
+		return sql;
+	}
+
+	/**
+	 * Builds the SQL which retrieves, in UUID order, at most <code>limit</code> selection IDs which are greater than <code>afterSelectionId</code>.
+	 *
+	 * @param afterSelectionId exclusive lower bound; <code>null</code> means from the beginning
+	 */
+	public static String buildSqlRetrieveSelectionIds(final List<Object> sqlParams, final String afterSelectionId, final int limit)
+	{
+		final StringBuilder sql = new StringBuilder("SELECT DISTINCT " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + " FROM " + I_T_WEBUI_ViewSelection.Table_Name);
+		if (afterSelectionId != null)
+		{
+			sql.append(" WHERE " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + ">?");
+			sqlParams.add(afterSelectionId);
+		}
+		sql.append(" ORDER BY " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + " LIMIT ?");
+		sqlParams.add(limit);
+
+		return sql.toString();
+	}
+
+	/**
+	 * Builds the SQL which adds all given <code>rowIds</code> to the end of the selection, in one go and in the given order.
+	 * The rowIds which are already in the selection are skipped and they are not leaving gaps in the Line numbers.
+	 * <p>
+	 * The SQL returns one row with the selection size after adding the rows.
+	 * <p>
+	 * NOTE: the rowIds are bound as one array parameter, so the SQL text is the same no matter how many rows are added.
+	 */
+	public String buildSqlAddRowIdsFromSelection(final List<Object> sqlParams, @NonNull final String selectionId, @NonNull final DocumentIdsSelection rowIds)
 	{
-		final int rowIdInt = rowId.toInt();
-		final String sql = "INSERT INTO " + I_T_WEBUI_ViewSelection.Table_Name + " ("
+		Check.assume(!rowIds.isAll(), "rowIds is not ALL");
+		final List<Integer> recordIds = rowIds.stream()
+				.map(DocumentId::toInt)
+				.collect(ImmutableList.toImmutableList());
+		Check.assumeNotEmpty(recordIds, "recordIds is not empty");
+
+		final String sql = "WITH inserted AS ("
+				+ "\n INSERT INTO " + I_T_WEBUI_ViewSelection.Table_Name + " ("
 				+ " " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID
 				+ ", " + I_T_WEBUI_ViewSelection.COLUMNNAME_Line
 				+ ", " + I_T_WEBUI_ViewSelection.COLUMNNAME_Record_ID
 				+ ")"
-				+ " SELECT "
-				+ " ? as UUID " // UUID
-				+ ", (select max(Line) from T_WEBUI_ViewSelection z where z.UUID=?) as Line" // Line
-				+ ", ? as Record_ID"  // Record_ID
-				+ " WHERE "
-				+ " NOT EXISTS(select 1 from " + I_T_WEBUI_ViewSelection.Table_Name + " z where z.UUID=? and z.Record_ID=?)";
+				+ "\n SELECT "
+				+ "\n  ? as UUID " // UUID
+				// NOTE: row_number() is evaluated after the WHERE clause, so only the actually inserted rows are numbered
+				+ "\n, coalesce((select max(z.Line) from " + I_T_WEBUI_ViewSelection.Table_Name + " z where z.UUID=?), 0) + row_number() OVER (ORDER BY t.SeqNo) as Line" // Line
+				+ "\n, t.Record_ID as Record_ID" // Record_ID
+				+ "\n FROM unnest(?::integer[]) WITH ORDINALITY AS t(Record_ID, SeqNo)"
+				+ "\n WHERE NOT EXISTS(select 1 from " + I_T_WEBUI_ViewSelection.Table_Name + " z where z.UUID=? and z.Record_ID=t.Record_ID)"
+				+ "\n RETURNING " + I_T_WEBUI_ViewSelection.COLUMNNAME_Record_ID
+				+ "\n)"
+				// NOTE: the main query does not see the rows inserted by the WITH clause, so we are adding them
+				+ "\n SELECT (select count(1) from " + I_T_WEBUI_ViewSelection.Table_Name + " z where z.UUID=?) + (select count(1) from inserted)";
 		// TODO: we should also validate if the rowId is allowed to be part of this selection (e.g. enforce entity binding's SQL where clause)
 
 		sqlParams.add(selectionId); // UUID
 		sqlParams.add(selectionId); // for Line
-		sqlParams.add(rowIdInt); // Record_ID
+		sqlParams.add(toSqlIntegerArray(recordIds)); // Record_IDs
 		sqlParams.add(selectionId); // for NOT EXISTS
-		sqlParams.add(rowIdInt); // for NOT EXISTS
+		sqlParams.add(selectionId); // for size
 
 		return sql;
 	}
 
+	/** @return given integers as a PostgreSQL array literal (e.g. <code>{1,2,3}</code>), to be bound as one parameter and cast to <code>integer[]</code> */
+	private static String toSqlIntegerArray(final List<Integer> values)
+	{
+		return values.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+	}
+
+	/**
+	 * Builds the SQL which retrieves the next <code>limit</code> record IDs (and their Line) which are after given line.
+	 *
+	 * NOTE: paging by a keyset (Line &gt; lastLine) is not affected by the gaps left in Line numbers when rows are removed from the selection.
+	 */
+	public static String buildSqlRetrieveRecordIdsAfterLine(final List<Object> sqlParams, @NonNull final String selectionId, final int afterLine, final int limit)
+	{
+		sqlParams.add(selectionId);
+		sqlParams.add(afterLine);
+		sqlParams.add(limit);
+		return "SELECT " + I_T_WEBUI_ViewSelection.COLUMNNAME_Record_ID + ", " + I_T_WEBUI_ViewSelection.COLUMNNAME_Line
+				+ " FROM " + I_T_WEBUI_ViewSelection.Table_Name
+				+ " WHERE " + I_T_WEBUI_ViewSelection.COLUMNNAME_UUID + "=?"
+				+ " AND " + I_T_WEBUI_ViewSelection.COLUMNNAME_Line + ">?"
+				+ " ORDER BY " + I_T_WEBUI_ViewSelection.COLUMNNAME_Line
+				+ " LIMIT ?";
+	}
+
 	public String buildSqlRetrieveSize(final List<Object> sqlParams, final String selectionId)
 	{
 		Check.assumeNotEmpty(selectionId, "selectionId is not empty");
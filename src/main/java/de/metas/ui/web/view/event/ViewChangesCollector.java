@@ -13,14 +13,12 @@ import org.compiere.Adempiere;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import com.google.common.collect.ImmutableList;
 
 import de.metas.logging.LogManager;
 import de.metas.ui.web.view.IView;
 import de.metas.ui.web.view.ViewId;
-import de.metas.ui.web.websocket.WebSocketConfig;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
 
 /*
@@ -108,7 +106,7 @@ public class ViewChangesCollector implements AutoCloseable
 
 	@Autowired
 	@Lazy
-	private SimpMessagingTemplate websocketMessagingTemplate;
+	private ViewChangesWebsocketSender websocketSender;
 
 	private final boolean autoflush;
 
@@ -221,8 +219,7 @@ public class ViewChangesCollector implements AutoCloseable
 			logger.trace("Flushing {} to websocket", this);
 			changesList.stream()
 					.filter(ViewChanges::hasChanges)
-					.map(JSONViewChanges::of)
-					.forEach(this::sendToWebsocket);
+					.forEach(websocketSender::sendViewChanges);
 		}
 	}
 
@@ -247,18 +244,4 @@ public class ViewChangesCollector implements AutoCloseable
 		viewChangesMap.clear();
 		return changesList;
 	}
-
-	private void sendToWebsocket(final JSONViewChanges jsonChangeEvent)
-	{
-		final String endpoint = WebSocketConfig.buildViewNotificationsTopicName(jsonChangeEvent.getViewId());
-		try
-		{
-			websocketMessagingTemplate.convertAndSend(endpoint, jsonChangeEvent);
-			logger.debug("Send to websocket {}: {}", endpoint, jsonChangeEvent);
-		}
-		catch (final Exception ex)
-		{
-			logger.warn("Failed sending to websocket {}: {}", endpoint, jsonChangeEvent, ex);
-		}
-	}
 }
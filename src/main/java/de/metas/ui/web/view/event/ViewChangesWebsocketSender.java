@@ -0,0 +1,243 @@
+package de.metas.ui.web.view.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import de.metas.logging.LogManager;
+import de.metas.ui.web.view.ViewId;
+import de.metas.ui.web.websocket.WebSocketConfig;
+import lombok.Builder;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Sends {@link ViewChanges} to websocket.
+ *
+ * The changes are not sent right away but they are coalesced by {@link ViewId} for a short time window, so a storm of small changes (e.g. while moving a lot of HUs)
+ * is sent as one message per view. If, after coalescing, there are too many changed rows, the view is reported as fully changed.
+ *
+ * All messages are sent from one thread, so the order of the messages sent to a given view's topic is preserved.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Component
+public class ViewChangesWebsocketSender
+{
+	private static final Logger logger = LogManager.getLogger(ViewChangesWebsocketSender.class);
+
+	@Autowired
+	@Lazy
+	private SimpMessagingTemplate websocketMessagingTemplate;
+
+	@Autowired(required = false)
+	@Lazy
+	@Qualifier("clientOutboundChannelExecutor")
+	private ThreadPoolTaskExecutor clientOutboundChannelExecutor;
+
+	private final int coalesceWindowMillis;
+	private final int maxChangedRowIds;
+
+	private final ScheduledExecutorService scheduler;
+	private final ConcurrentHashMap<ViewId, ViewChanges> pendingChangesByViewId = new ConcurrentHashMap<>();
+	private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+	// Stats
+	private final AtomicLong countReceived = new AtomicLong();
+	private final AtomicLong countSent = new AtomicLong();
+	private final AtomicLong countCollapsedToFullyChanged = new AtomicLong();
+	private final AtomicLong countErrors = new AtomicLong();
+	private final AtomicLong totalSendNanos = new AtomicLong();
+	private volatile long maxSendNanos;
+
+	public ViewChangesWebsocketSender(
+			@Value("${metasfresh.webui.view.websocket.coalesceWindowMillis:100}") final int coalesceWindowMillis,
+			@Value("${metasfresh.webui.view.websocket.maxChangedRowIds:200}") final int maxChangedRowIds)
+	{
+		this.coalesceWindowMillis = coalesceWindowMillis;
+		this.maxChangedRowIds = maxChangedRowIds;
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(getClass().getName())
+				.setDaemon(true)
+				.build());
+
+		logger.info("coalesceWindowMillis={}, maxChangedRowIds={}", coalesceWindowMillis, maxChangedRowIds);
+	}
+
+	@PreDestroy
+	private void shutdown()
+	{
+		scheduler.shutdownNow();
+	}
+
+	public void sendViewChanges(@NonNull final ViewChanges changes)
+	{
+		if (!changes.hasChanges())
+		{
+			return;
+		}
+
+		countReceived.incrementAndGet();
+
+		// NOTE: we are merging a copy because the given changes might be changed later by caller
+		pendingChangesByViewId.compute(changes.getViewId(), (viewId, pendingChanges) -> {
+			final ViewChanges pendingChangesEffective = pendingChanges != null ? pendingChanges : new ViewChanges(viewId);
+			pendingChangesEffective.collectFrom(changes);
+			return pendingChangesEffective;
+		});
+
+		scheduleFlush();
+	}
+
+	private void scheduleFlush()
+	{
+		if (!flushScheduled.compareAndSet(false, true))
+		{
+			return;
+		}
+
+		scheduler.schedule(this::flush, coalesceWindowMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private void flush()
+	{
+		// NOTE: reset the flag first, so changes which arrive while we are flushing will schedule a new flush
+		flushScheduled.set(false);
+
+		final List<ViewChanges> changesList = new ArrayList<>(pendingChangesByViewId.size());
+		for (final ViewId viewId : pendingChangesByViewId.keySet())
+		{
+			final ViewChanges changes = pendingChangesByViewId.remove(viewId);
+			if (changes != null)
+			{
+				changesList.add(changes);
+			}
+		}
+
+		changesList.forEach(this::sendToWebsocket);
+	}
+
+	private void sendToWebsocket(final ViewChanges changes)
+	{
+		if (!changes.isFullyChanged() && changes.getChangedRowIds().size() > maxChangedRowIds)
+		{
+			changes.setFullyChanged();
+			countCollapsedToFullyChanged.incrementAndGet();
+		}
+
+		final JSONViewChanges jsonChangeEvent = JSONViewChanges.of(changes);
+		final String endpoint = WebSocketConfig.buildViewNotificationsTopicName(jsonChangeEvent.getViewId());
+		try
+		{
+			final long startNanos = System.nanoTime();
+			websocketMessagingTemplate.convertAndSend(endpoint, jsonChangeEvent);
+			final long sendNanos = System.nanoTime() - startNanos;
+
+			countSent.incrementAndGet();
+			totalSendNanos.addAndGet(sendNanos);
+			if (sendNanos > maxSendNanos)
+			{
+				maxSendNanos = sendNanos;
+			}
+
+			logger.debug("Send to websocket {}: {}", endpoint, jsonChangeEvent);
+		}
+		catch (final Exception ex)
+		{
+			countErrors.incrementAndGet();
+			logger.warn("Failed sending to websocket {}: {}", endpoint, jsonChangeEvent, ex);
+		}
+	}
+
+	public Stats getStats()
+	{
+		final long countReceived = this.countReceived.get();
+		final long countSent = this.countSent.get();
+
+		return Stats.builder()
+				.pendingViewsCount(pendingChangesByViewId.size())
+				.outboundQueueSize(getOutboundQueueSize())
+				.countReceived(countReceived)
+				.countSent(countSent)
+				.coalescingRatio(countSent > 0 ? (double)countReceived / countSent : 0)
+				.countCollapsedToFullyChanged(countCollapsedToFullyChanged.get())
+				.countErrors(countErrors.get())
+				.avgSendMillis(countSent > 0 ? TimeUnit.NANOSECONDS.toMillis(totalSendNanos.get() / countSent) : 0)
+				.maxSendMillis(TimeUnit.NANOSECONDS.toMillis(maxSendNanos))
+				.build();
+	}
+
+	private int getOutboundQueueSize()
+	{
+		if (clientOutboundChannelExecutor == null)
+		{
+			return -1;
+		}
+
+		try
+		{
+			return clientOutboundChannelExecutor.getThreadPoolExecutor().getQueue().size();
+		}
+		catch (final Exception ex)
+		{
+			return -1;
+		}
+	}
+
+	@lombok.Value
+	@Builder
+	public static final class Stats
+	{
+		private final int pendingViewsCount;
+		/** websocket client outbound channel's queue size, or -1 if not available */
+		private final int outboundQueueSize;
+		private final long countReceived;
+		private final long countSent;
+		/** received changes / sent messages */
+		private final double coalescingRatio;
+		private final long countCollapsedToFullyChanged;
+		private final long countErrors;
+		private final long avgSendMillis;
+		private final long maxSendMillis;
+	}
+}
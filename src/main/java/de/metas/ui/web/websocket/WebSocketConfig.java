@@ -64,6 +64,7 @@ public class WebSocketConfig extends AbstractWebSocketMessageBrokerConfigurer
 	private static final String TOPIC_Notifications = "/notifications";
 	private static final String TOPIC_View = "/view";
 	public static final String TOPIC_Devices = "/devices";
+	private static final String TOPIC_Process = "/process";
 
 	public static final String buildNotificationsTopicName(final int adUserId)
 	{
@@ -76,6 +77,12 @@ public class WebSocketConfig extends AbstractWebSocketMessageBrokerConfigurer
 		return TOPIC_View + "/" + viewId;
 	}
 
+	public static final String buildProcessTopicName(final int adUserId, final String pinstanceId)
+	{
+		Check.assumeNotEmpty(pinstanceId, "pinstanceId is not empty");
+		return TOPIC_Process + "/" + adUserId + "/" + pinstanceId;
+	}
+
 	@Override
 	public void registerStompEndpoints(final StompEndpointRegistry registry)
 	{
@@ -96,6 +103,7 @@ public class WebSocketConfig extends AbstractWebSocketMessageBrokerConfigurer
 				TOPIC_Notifications //
 				, TOPIC_View //
 				, TOPIC_Devices //
+				, TOPIC_Process //
 		);
 
 		// use the /app prefix for others
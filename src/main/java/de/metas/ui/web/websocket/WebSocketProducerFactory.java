@@ -43,4 +43,12 @@ public interface WebSocketProducerFactory
 	 * @return
 	 */
 	WebSocketProducer createProducer(final String topicName);
+
+	/**
+	 * @return how often the producers created by this factory shall be called, in millis; if not positive, the registry's default period will be used
+	 */
+	default int getPollingPeriodMillis()
+	{
+		return -1;
+	}
 }
\ No newline at end of file
@@ -1,28 +1,38 @@
 package de.metas.ui.web.websocket;
 
 import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.adempiere.util.Check;
 import org.adempiere.util.concurrent.CustomizableThreadFactory;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
 
 import de.metas.logging.LogManager;
+import lombok.Builder;
 
 /*
  * #%L
@@ -55,6 +65,12 @@ import de.metas.logging.LogManager;
  * <li>as soon as there is a subscriber for a websocket topic it will create/start a {@link WebSocketProducer} and it will call it on a given rate.
  * </ul>
  *
+ * The producers are triggered by a single scheduler thread but they are executed on a bounded pool of worker threads,
+ * so a slow producer (e.g. a device which blocks while acquiring the value) is not delaying the other topics.
+ * A producer is never executed concurrently with itself: if the previous execution is still running when the next one is due, the execution is skipped (overrun),
+ * and if it's running for longer than the configured timeout, it's interrupted and counted as timed out.
+ * A timed out execution which is not reacting to interruption keeps its worker thread, so the producer is not executed again until that execution really exited.
+ *
  * @author metas-dev <dev@metasfresh.com>
  *
  */
@@ -64,6 +80,10 @@ public final class WebSocketProducersRegistry
 	private static final Logger logger = LogManager.getLogger(WebSocketProducersRegistry.class);
 
 	private final ScheduledExecutorService scheduler;
+	private final ExecutorService workers;
+	private final int defaultPollingPeriodMillis;
+	private final int timeoutMillis;
+
 	@Autowired
 	private SimpMessagingTemplate websocketMessagingTemplate;
 	@Autowired
@@ -72,12 +92,28 @@ public final class WebSocketProducersRegistry
 	private final ConcurrentHashMap<String, WebSocketProducerFactory> _producerFactoriesByTopicNamePrefix = new ConcurrentHashMap<>();
 	private final ConcurrentHashMap<String, WebSocketProducerInstance> _producersByTopicName = new ConcurrentHashMap<>();
 
-	public WebSocketProducersRegistry()
+	public WebSocketProducersRegistry(
+			@Value("${metasfresh.webui.websocket.producers.threads:4}") final int workerThreads,
+			@Value("${metasfresh.webui.websocket.producers.periodMillis:1000}") final int defaultPollingPeriodMillis,
+			@Value("${metasfresh.webui.websocket.producers.timeoutMillis:10000}") final int timeoutMillis)
 	{
+		Check.assume(workerThreads > 0, "workerThreads > 0");
+		Check.assume(defaultPollingPeriodMillis > 0, "defaultPollingPeriodMillis > 0");
+
 		scheduler = Executors.newSingleThreadScheduledExecutor(CustomizableThreadFactory.builder()
 				.setThreadNamePrefix(getClass().getName())
 				.setDaemon(true)
 				.build());
+
+		workers = Executors.newFixedThreadPool(workerThreads, CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(getClass().getName() + "-worker")
+				.setDaemon(true)
+				.build());
+
+		this.defaultPollingPeriodMillis = defaultPollingPeriodMillis;
+		this.timeoutMillis = timeoutMillis;
+
+		logger.info("workerThreads={}, defaultPollingPeriodMillis={}, timeoutMillis={}", workerThreads, defaultPollingPeriodMillis, timeoutMillis);
 	}
 
 	@PostConstruct
@@ -89,6 +125,13 @@ public final class WebSocketProducersRegistry
 
 	}
 
+	@PreDestroy
+	private void shutdown()
+	{
+		scheduler.shutdownNow();
+		workers.shutdownNow();
+	}
+
 	public void registerProducerFactory(final WebSocketProducerFactory producerFactory)
 	{
 		Check.assumeNotNull(producerFactory, "Parameter producerFactory is not null");
@@ -146,7 +189,16 @@ public final class WebSocketProducersRegistry
 
 		return _producersByTopicName.computeIfAbsent(topicName, k -> {
 			final WebSocketProducer producer = producerFactory.createProducer(topicName);
-			return new WebSocketProducerInstance(topicName, producer, scheduler, websocketMessagingTemplate);
+			final int factoryPollingPeriodMillis = producerFactory.getPollingPeriodMillis();
+			return WebSocketProducerInstance.builder()
+					.topicName(topicName)
+					.producer(producer)
+					.pollingPeriodMillis(factoryPollingPeriodMillis > 0 ? factoryPollingPeriodMillis : defaultPollingPeriodMillis)
+					.timeoutMillis(timeoutMillis)
+					.scheduler(scheduler)
+					.workers(workers)
+					.websocketMessagingTemplate(websocketMessagingTemplate)
+					.build();
 		});
 	}
 
@@ -194,33 +246,74 @@ public final class WebSocketProducersRegistry
 		forEachExistingWebSocketProducerInstance(producer -> producer.unsubscribe(sessionId));
 	}
 
+	public List<WebSocketProducerStats> getStats()
+	{
+		return _producersByTopicName.values()
+				.stream()
+				.map(WebSocketProducerInstance::getStats)
+				.collect(ImmutableList.toImmutableList());
+	}
+
 	private static final class WebSocketProducerInstance
 	{
 		// private static final transient Logger logger = LogManager.getLogger(WebSocketProducerInstance.class);
 
 		private final String topicName;
 		private final WebSocketProducer producer;
+		private final int pollingPeriodMillis;
+		private final int timeoutMillis;
 		private final ScheduledExecutorService scheduler;
+		private final ExecutorService workers;
 		private final SimpMessagingTemplate websocketMessagingTemplate;
 
 		private final Set<String> subscribedSessionIds = new HashSet<>();
 		private ScheduledFuture<?> scheduledFuture;
 
+		// Current execution
+		private Future<?> executionFuture;
+		private long executionStartMillis;
+		private boolean executionTimedOut;
+		/** Set by the execution itself while it's running, even if it was cancelled. */
+		private final AtomicBoolean executionRunning = new AtomicBoolean(false);
+
+		/** Last event which was sent. Used to avoid sending the same event again and again */
+		private Object lastPublishedEvent;
+		/** Incremented each time {@link #lastPublishedEvent} is reset, so an execution which started before is not setting it back */
+		private long lastPublishedEventGeneration = 0;
+
+		// Stats
+		private final AtomicLong countProduced = new AtomicLong();
+		private final AtomicLong countPublished = new AtomicLong();
+		private final AtomicLong countSkippedUnchanged = new AtomicLong();
+		private final AtomicLong countOverruns = new AtomicLong();
+		private final AtomicLong countTimeouts = new AtomicLong();
+		private final AtomicLong countErrors = new AtomicLong();
+		private volatile long lastProduceMillis;
+		private volatile long maxProduceMillis;
+
+		@Builder
 		private WebSocketProducerInstance(
-				final String topicName //
-				, final WebSocketProducer producer //
-				, final ScheduledExecutorService scheduler //
-				, final SimpMessagingTemplate websocketMessagingTemplate //
-		)
+				final String topicName,
+				final WebSocketProducer producer,
+				final int pollingPeriodMillis,
+				final int timeoutMillis,
+				final ScheduledExecutorService scheduler,
+				final ExecutorService workers,
+				final SimpMessagingTemplate websocketMessagingTemplate)
 		{
 			Check.assumeNotEmpty(topicName, "topicName is not empty");
 			Check.assumeNotNull(producer, "Parameter producer is not null");
+			Check.assume(pollingPeriodMillis > 0, "pollingPeriodMillis > 0");
 			Check.assumeNotNull(scheduler, "Parameter scheduler is not null");
+			Check.assumeNotNull(workers, "Parameter workers is not null");
 			Check.assumeNotNull(websocketMessagingTemplate, "Parameter websocketMessagingTemplate is not null");
 
 			this.topicName = topicName;
 			this.producer = producer;
+			this.pollingPeriodMillis = pollingPeriodMillis;
+			this.timeoutMillis = timeoutMillis;
 			this.scheduler = scheduler;
+			this.workers = workers;
 			this.websocketMessagingTemplate = websocketMessagingTemplate;
 		}
 
@@ -245,6 +338,9 @@ public final class WebSocketProducersRegistry
 
 			logger.trace("{}: session {} subscribed", this, sessionId);
 
+			// Make sure the new subscriber will get the current event, even if it did not change
+			resetLastPublishedEvent();
+
 			//
 			// Check if the producer was already scheduled
 			if (scheduledFuture != null)
@@ -254,9 +350,9 @@ public final class WebSocketProducersRegistry
 
 			//
 			// Schedule producer
-			final long initialDelayMillis = 1000;
-			final long periodMillis = 1000;
-			scheduledFuture = scheduler.scheduleAtFixedRate(this::executeAndPublish, initialDelayMillis, periodMillis, TimeUnit.MILLISECONDS);
+			final long initialDelayMillis = pollingPeriodMillis;
+			final long periodMillis = pollingPeriodMillis;
+			scheduledFuture = scheduler.scheduleAtFixedRate(this::trigger, initialDelayMillis, periodMillis, TimeUnit.MILLISECONDS);
 			logger.trace("{}: start producing using initialDelayMillis={}, periodMillis={}", this, initialDelayMillis, periodMillis);
 		}
 
@@ -286,22 +382,150 @@ public final class WebSocketProducersRegistry
 			}
 			scheduledFuture = null;
 
+			cancelExecution();
+			resetLastPublishedEvent();
+
 			logger.debug("{} stopped", this);
 		}
 
-		private void executeAndPublish()
+		private synchronized void resetLastPublishedEvent()
+		{
+			lastPublishedEvent = null;
+			lastPublishedEventGeneration++;
+		}
+
+		/**
+		 * Called by scheduler. Submits the producer execution to workers, unless the previous execution is still queued or running.
+		 */
+		private synchronized void trigger()
+		{
+			// NOTE: a cancelled execution is "done" but it might still be running if the producer is not reacting to interruption
+			if (executionRunning.get() || (executionFuture != null && !executionFuture.isDone()))
+			{
+				countOverruns.incrementAndGet();
+
+				final long runningMillis = System.currentTimeMillis() - executionStartMillis;
+				if (timeoutMillis > 0 && runningMillis > timeoutMillis && !executionTimedOut)
+				{
+					executionTimedOut = true;
+					countTimeouts.incrementAndGet();
+					logger.warn("{}: producer is running for {}ms which is more than {}ms. Interrupting it.", this, runningMillis, timeoutMillis);
+					cancelExecution();
+				}
+
+				return;
+			}
+
+			executionStartMillis = System.currentTimeMillis();
+			executionTimedOut = false;
+			final long generation = lastPublishedEventGeneration;
+			executionFuture = workers.submit(() -> executeAndPublish(generation));
+		}
+
+		private synchronized void cancelExecution()
 		{
+			if (executionFuture == null)
+			{
+				return;
+			}
+
+			executionFuture.cancel(true);
+			executionFuture = null;
+		}
+
+		private void executeAndPublish(final long generation)
+		{
+			executionRunning.set(true);
 			try
 			{
+				final long startMillis = System.currentTimeMillis();
 				final Object event = producer.produceEvent();
+				final long produceMillis = System.currentTimeMillis() - startMillis;
+				countProduced.incrementAndGet();
+				lastProduceMillis = produceMillis;
+				if (produceMillis > maxProduceMillis)
+				{
+					maxProduceMillis = produceMillis;
+				}
+
+				if (Thread.currentThread().isInterrupted())
+				{
+					return;
+				}
+
+				synchronized (this)
+				{
+					if (generation != lastPublishedEventGeneration)
+					{
+						// stopped or got a new subscriber while we were producing; the next execution will publish
+						return;
+					}
+					if (event != null && Objects.equals(event, lastPublishedEvent))
+					{
+						countSkippedUnchanged.incrementAndGet();
+						logger.trace("Skip sending unchanged event to {}: {}", topicName, event);
+						return;
+					}
+					lastPublishedEvent = event;
+				}
+
 				websocketMessagingTemplate.convertAndSend(topicName, event);
+				countPublished.incrementAndGet();
 
 				logger.trace("Event sent to {}: {}", topicName, event);
 			}
 			catch (final Exception ex)
 			{
+				countErrors.incrementAndGet();
 				logger.warn("Failed producing event for {}. Ignored.", this, ex);
+
+				// make sure next event is published even if it's the same as the one which we might have failed to send
+				resetLastPublishedEvent();
 			}
+			finally
+			{
+				executionRunning.set(false);
+			}
+		}
+
+		public WebSocketProducerStats getStats()
+		{
+			final int subscribersCount;
+			synchronized (this)
+			{
+				subscribersCount = subscribedSessionIds.size();
+			}
+
+			return WebSocketProducerStats.builder()
+					.topicName(topicName)
+					.subscribersCount(subscribersCount)
+					.pollingPeriodMillis(pollingPeriodMillis)
+					.countProduced(countProduced.get())
+					.countPublished(countPublished.get())
+					.countSkippedUnchanged(countSkippedUnchanged.get())
+					.countOverruns(countOverruns.get())
+					.countTimeouts(countTimeouts.get())
+					.countErrors(countErrors.get())
+					.lastProduceMillis(lastProduceMillis)
+					.maxProduceMillis(maxProduceMillis)
+					.build();
 		}
 	}
-}
\ No newline at end of file
+
+	@lombok.Value
+	@Builder
+	public static final class WebSocketProducerStats
+	{
+		private final String topicName;
+		private final int subscribersCount;
+		private final int pollingPeriodMillis;
+		private final long countProduced;
+		private final long countPublished;
+		private final long countSkippedUnchanged;
+		private final long countOverruns;
+		private final long countTimeouts;
+		private final long countErrors;
+		private final long lastProduceMillis;
+		private final long maxProduceMillis;
+	}
+}
@@ -1,6 +1,9 @@
 package de.metas.ui.web.window.controller;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 import org.adempiere.exceptions.AdempiereException;
@@ -40,6 +43,7 @@ import de.metas.ui.web.process.ProcessRestController;
 import de.metas.ui.web.process.descriptor.WebuiRelatedProcessDescriptor;
 import de.metas.ui.web.process.json.JSONDocumentActionsList;
 import de.metas.ui.web.session.UserSession;
+import de.metas.ui.web.window.datatypes.DocumentId;
 import de.metas.ui.web.window.datatypes.DocumentPath;
 import de.metas.ui.web.window.datatypes.WindowId;
 import de.metas.ui.web.window.datatypes.json.JSONDocument;
@@ -49,6 +53,8 @@ import de.metas.ui.web.window.datatypes.json.JSONDocumentPath;
 import de.metas.ui.web.window.datatypes.json.JSONDocumentReference;
 import de.metas.ui.web.window.datatypes.json.JSONDocumentReferencesGroup;
 import de.metas.ui.web.window.datatypes.json.JSONDocumentReferencesGroupList;
+import de.metas.ui.web.window.datatypes.json.JSONIncludedDocumentChangedEvents;
+import de.metas.ui.web.window.datatypes.json.JSONIncludedDocumentsPage;
 import de.metas.ui.web.window.datatypes.json.JSONLookupValuesList;
 import de.metas.ui.web.window.datatypes.json.JSONOptions;
 import de.metas.ui.web.window.datatypes.json.JSONZoomInto;
@@ -67,6 +73,7 @@ import de.metas.ui.web.window.model.DocumentReferencesService;
 import de.metas.ui.web.window.model.IDocumentChangesCollector;
 import de.metas.ui.web.window.model.IDocumentChangesCollector.ReasonSupplier;
 import de.metas.ui.web.window.model.IDocumentFieldView;
+import de.metas.ui.web.window.model.IncludedDocumentsPage;
 import de.metas.ui.web.window.model.NullDocumentChangesCollector;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -103,6 +110,9 @@ public class WindowRestController
 	private static final String PARAM_Advanced = "advanced";
 	private static final String PARAM_Advanced_DefaultValue = "false";
 	private static final String PARAM_FieldsList = "fields";
+	private static final String PARAM_FirstRow = "firstRow";
+	private static final String PARAM_FirstRow_Description = "first row to fetch (starting from 0)";
+	private static final String PARAM_PageLength = "pageLength";
 
 	private static final ReasonSupplier REASON_Value_DirectSetFromCommitAPI = () -> "direct set from commit API";
 
@@ -200,6 +210,46 @@ public class WindowRestController
 		return getData(documentPath, fieldsListStr, advanced, orderBys);
 	}
 
+	@GetMapping("/{windowId}/{documentId}/{tabId}/page")
+	@ApiOperation("Fetches only a window of included documents, together with the total number of included documents")
+	public JSONIncludedDocumentsPage getDataPage(
+			@PathVariable("windowId") final String windowIdStr,
+			@PathVariable("documentId") final String documentIdStr,
+			@PathVariable("tabId") final String tabIdStr,
+			@RequestParam(name = PARAM_FirstRow, required = true) @ApiParam(PARAM_FirstRow_Description) final int firstRow,
+			@RequestParam(name = PARAM_PageLength, required = true) final int pageLength,
+			@RequestParam(name = PARAM_FieldsList, required = false) @ApiParam("comma separated field names") final String fieldsListStr,
+			@RequestParam(name = PARAM_Advanced, required = false, defaultValue = PARAM_Advanced_DefaultValue) final boolean advanced,
+			@RequestParam(name = "orderBy", required = false) final String orderBysListStr)
+	{
+		userSession.assertLoggedIn();
+
+		if (firstRow < 0)
+		{
+			throw new IllegalArgumentException("firstRow shall be greater or equal than zero but it was " + firstRow);
+		}
+		if (pageLength <= 0)
+		{
+			throw new IllegalArgumentException("pageLength shall be greater than zero but it was " + pageLength);
+		}
+
+		final WindowId windowId = WindowId.fromJson(windowIdStr);
+		final DocumentPath documentPath = DocumentPath.includedDocumentPath(windowId, documentIdStr, tabIdStr);
+		final DetailId detailId = documentPath.getDetailId();
+		final List<DocumentQueryOrderBy> orderBys = DocumentQueryOrderBy.parseOrderBysList(orderBysListStr);
+
+		final JSONOptions jsonOpts = newJSONOptions()
+				.setShowAdvancedFields(advanced)
+				.setDataFieldsList(fieldsListStr)
+				.build();
+
+		final IDocumentChangesCollector changesCollector = NullDocumentChangesCollector.instance;
+		return documentCollection.forRootDocumentReadonly(documentPath, changesCollector, rootDocument -> {
+			final IncludedDocumentsPage page = rootDocument.getIncludedDocumentsPage(detailId, orderBys, firstRow, pageLength);
+			return JSONIncludedDocumentsPage.of(page.getDocuments(), firstRow, pageLength, page.getTotalCount(), jsonOpts);
+		});
+	}
+
 	@GetMapping("/{windowId}/{documentId}/{tabId}/{rowId}")
 	public List<JSONDocument> getData(
 			@PathVariable("windowId") final String windowIdStr //
@@ -285,6 +335,70 @@ public class WindowRestController
 		return patchDocument(documentPath, advanced, events);
 	}
 
+	/**
+	 * Applies the changes of many rows of an included tab at once (e.g. when pasting values into a grid), using one root document lock and one commit.
+	 *
+	 * The rows which are failing are reported as invalid, without affecting the other rows.
+	 * If a row was sent with a <code>clientKey</code>, that key is sent back on row's result, so the client can match the results of NEW rows.
+	 */
+	@PatchMapping("/{windowId}/{documentId}/{tabId}")
+	public List<JSONDocument> patchIncludedDocuments(
+			@PathVariable("windowId") final String windowIdStr //
+			, @PathVariable("documentId") final String documentIdStr //
+			, @PathVariable("tabId") final String detailIdStr //
+			, @RequestParam(name = PARAM_Advanced, required = false, defaultValue = PARAM_Advanced_DefaultValue) final boolean advanced //
+			, @RequestBody final List<JSONIncludedDocumentChangedEvents> rowsEvents)
+	{
+		userSession.assertLoggedIn();
+
+		final DocumentPath rootDocumentPath = DocumentPath.rootDocumentPath(WindowId.fromJson(windowIdStr), documentIdStr);
+		final DetailId detailId = DetailId.fromJson(detailIdStr);
+
+		final JSONOptions jsonOpts = newJSONOptions()
+				.setShowAdvancedFields(advanced)
+				.build();
+
+		return Execution.callInNewExecution("window.commit", () -> {
+			final IDocumentChangesCollector changesCollector = Execution.getCurrentDocumentChangesCollectorOrNull();
+			final Map<String, String> clientKeysByRowId = new HashMap<>();
+			final List<JSONDocument> jsonFailedRows = new ArrayList<>();
+			documentCollection.forIncludedDocumentsWritable(rootDocumentPath, detailId, rowsEvents,
+					rowEvents -> DocumentId.of(rowEvents.getRowId()),
+					changesCollector,
+					(rowEvents, includedDocument) -> {
+						includedDocument.processValueChanges(rowEvents.getEvents(), REASON_Value_DirectSetFromCommitAPI);
+						changesCollector.setPrimaryChange(includedDocument.getDocumentPath());
+						if (rowEvents.getClientKey() != null)
+						{
+							clientKeysByRowId.put(includedDocument.getDocumentId().toJson(), rowEvents.getClientKey());
+						}
+					},
+					(rowEvents, exception) -> {
+						final DocumentPath rowPath = DocumentPath.builder()
+								.setDocumentType(rootDocumentPath.getWindowId())
+								.setDocumentId(rootDocumentPath.getDocumentId())
+								.setDetailId(detailId)
+								.setRowId(DocumentId.of(rowEvents.getRowId()))
+								.allowNewRowId()
+								.build();
+						final JSONDocument jsonFailedRow = JSONDocument.ofFailedDocument(rowPath, exception);
+						jsonFailedRow.setClientKey(rowEvents.getClientKey());
+						jsonFailedRows.add(jsonFailedRow);
+					});
+
+			// NOTE: each patched row is reported as a separate changed document, so allow more events than usual
+			final List<JSONDocument> jsonChangedDocuments = JSONDocument.ofEvents(changesCollector, jsonOpts, JSONDocument.EVENTS_MAX_SIZE_DEFAULT + rowsEvents.size());
+			jsonChangedDocuments.stream()
+					.filter(jsonDocument -> jsonDocument.getRowIdAsJson() != null)
+					.forEach(jsonDocument -> jsonDocument.setClientKey(clientKeysByRowId.get(jsonDocument.getRowIdAsJson())));
+
+			return ImmutableList.<JSONDocument> builder()
+					.addAll(jsonChangedDocuments)
+					.addAll(jsonFailedRows)
+					.build();
+		});
+	}
+
 	private List<JSONDocument> patchDocument(final DocumentPath documentPath, final boolean advanced, final List<JSONDocumentChangedEvent> events)
 	{
 		userSession.assertLoggedIn();
@@ -133,22 +133,31 @@ public final class JSONDocument extends JSONDocumentBase
 				.collect(Collectors.toList());
 	}
 
+	/** Max number of changed documents to be sent to frontend, if not specified otherwise */
+	public static final int EVENTS_MAX_SIZE_DEFAULT = 100;
+
 	public static List<JSONDocument> ofEvents(final IDocumentChangesCollector documentChangesCollector, final JSONOptions jsonOpts)
 	{
-		final int MAX_SIZE = 100;
+		return ofEvents(documentChangesCollector, jsonOpts, EVENTS_MAX_SIZE_DEFAULT);
+	}
 
+	/**
+	 * @param maxSize max number of changed documents; usually {@link #EVENTS_MAX_SIZE_DEFAULT}, but bigger for requests which are changing many documents on purpose (e.g. bulk patching).
+	 */
+	public static List<JSONDocument> ofEvents(final IDocumentChangesCollector documentChangesCollector, final JSONOptions jsonOpts, final int maxSize)
+	{
 		final List<JSONDocument> jsonChanges = documentChangesCollector.streamOrderedDocumentChanges()
 				.map(documentChanges -> ofEventOrNull(documentChanges, jsonOpts))
 				.filter(jsonDocument -> jsonDocument != null)
-				.limit(MAX_SIZE + 1)
+				.limit(maxSize + 1)
 				.collect(ImmutableList.toImmutableList());
 
 		//
-		// Prevent sending more then MAX_SIZE events because that will freeze the frontend application.
-		if (jsonChanges.size() > MAX_SIZE)
+		// Prevent sending more then maxSize events because that will freeze the frontend application.
+		if (jsonChanges.size() > maxSize)
 		{
 			throw new AdempiereException("Events count exceeded")
-					.setParameter("maxSize", MAX_SIZE)
+					.setParameter("maxSize", maxSize)
 					.setParameter("documentChangesCollector", documentChangesCollector)
 					.setParameter("first events", jsonChanges);
 		}
@@ -156,6 +165,16 @@ public final class JSONDocument extends JSONDocumentBase
 		return jsonChanges;
 	}
 
+	/**
+	 * @return document which reports that given (included) document could not be changed and that its changes were discarded
+	 */
+	public static JSONDocument ofFailedDocument(final DocumentPath documentPath, final Exception exception)
+	{
+		final JSONDocument jsonDocument = new JSONDocument(documentPath);
+		jsonDocument.setValidStatus(DocumentValidStatus.invalid(exception));
+		return jsonDocument;
+	}
+
 	private static JSONDocument ofEventOrNull(final DocumentChanges documentChangedEvents, final JSONOptions jsonOpts)
 	{
 		if (documentChangedEvents.isEmpty())
@@ -230,6 +249,11 @@ public final class JSONDocument extends JSONDocumentBase
 	@JsonInclude(JsonInclude.Include.NON_EMPTY)
 	private DocumentSaveStatus saveStatus;
 
+	/** Key chosen by client on request, sent back to identify this document (e.g. NEW rows when patching many included rows) */
+	@JsonProperty("clientKey")
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private String clientKey;
+
 	/** {@link JSONIncludedTabInfo}s indexed by tabId */
 	@JsonProperty("includedTabsInfo")
 	@JsonInclude(JsonInclude.Include.NON_EMPTY)
@@ -261,6 +285,16 @@ public final class JSONDocument extends JSONDocumentBase
 		return saveStatus;
 	}
 
+	public void setClientKey(final String clientKey)
+	{
+		this.clientKey = clientKey;
+	}
+
+	public String getClientKey()
+	{
+		return clientKey;
+	}
+
 	private void addIncludedTabInfo(final JSONIncludedTabInfo tabInfo)
 	{
 		if (includedTabsInfo == null)
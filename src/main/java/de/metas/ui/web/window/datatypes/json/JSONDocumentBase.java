@@ -165,6 +165,12 @@ public abstract class JSONDocumentBase
 		this.fields = fieldsByName.values();
 	}
 
+	@JsonIgnore
+	public final String getRowIdAsJson()
+	{
+		return rowId;
+	}
+
 	@JsonIgnore
 	protected final int getFieldsCount()
 	{
@@ -0,0 +1,94 @@
+package de.metas.ui.web.window.datatypes.json;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import io.swagger.annotations.ApiModel;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * The changes to be applied on one row of an included tab, when patching many rows at once.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@ApiModel("included-document-changed-events")
+public final class JSONIncludedDocumentChangedEvents
+{
+	@JsonCreator
+	public static final JSONIncludedDocumentChangedEvents of(
+			@JsonProperty("rowId") final String rowId,
+			@JsonProperty("clientKey") final String clientKey,
+			@JsonProperty("events") final List<JSONDocumentChangedEvent> events)
+	{
+		return new JSONIncludedDocumentChangedEvents(rowId, clientKey, events);
+	}
+
+	@JsonProperty("rowId")
+	private final String rowId;
+	/** Optional key, chosen by client, which is sent back on this row's result. Useful to identify the results of NEW rows. */
+	@JsonProperty("clientKey")
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private final String clientKey;
+	@JsonProperty("events")
+	private final List<JSONDocumentChangedEvent> events;
+
+	private JSONIncludedDocumentChangedEvents(final String rowId, final String clientKey, final List<JSONDocumentChangedEvent> events)
+	{
+		super();
+		this.rowId = rowId;
+		this.clientKey = clientKey;
+		this.events = events == null ? ImmutableList.of() : ImmutableList.copyOf(events);
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("rowId", rowId)
+				.add("clientKey", clientKey)
+				.add("events", events)
+				.toString();
+	}
+
+	public String getRowId()
+	{
+		return rowId;
+	}
+
+	public String getClientKey()
+	{
+		return clientKey;
+	}
+
+	public List<JSONDocumentChangedEvent> getEvents()
+	{
+		return events;
+	}
+}
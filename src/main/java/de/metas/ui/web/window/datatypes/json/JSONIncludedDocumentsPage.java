@@ -0,0 +1,79 @@
+package de.metas.ui.web.window.datatypes.json;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+
+import de.metas.ui.web.window.model.OrderedDocumentsList;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * A window of included documents (i.e. tab rows), together with the total number of rows in that tab.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@JsonAutoDetect(fieldVisibility = Visibility.ANY, getterVisibility = Visibility.NONE, isGetterVisibility = Visibility.NONE, setterVisibility = Visibility.NONE)
+public final class JSONIncludedDocumentsPage
+{
+	public static final JSONIncludedDocumentsPage of(final OrderedDocumentsList documents, final int firstRow, final int pageLength, final int size, final JSONOptions jsonOpts)
+	{
+		final List<JSONDocument> result = JSONDocument.ofDocumentsList(documents.toList(), jsonOpts);
+		return new JSONIncludedDocumentsPage(result, firstRow, pageLength, size);
+	}
+
+	@JsonProperty("size")
+	private final int size;
+
+	@JsonProperty("firstRow")
+	private final int firstRow;
+
+	@JsonProperty("pageLength")
+	private final int pageLength;
+
+	@JsonProperty("result")
+	private final List<JSONDocument> result;
+
+	private JSONIncludedDocumentsPage(final List<JSONDocument> result, final int firstRow, final int pageLength, final int size)
+	{
+		this.result = result;
+		this.firstRow = firstRow;
+		this.pageLength = pageLength;
+		this.size = size;
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("size", size)
+				.add("firstRow", firstRow)
+				.add("pageLength", pageLength)
+				.add("result", result)
+				.toString();
+	}
+}
@@ -1505,6 +1505,12 @@ public final class Document
 		return includedDocuments.getDocuments(orderBys);
 	}
 
+	public IncludedDocumentsPage getIncludedDocumentsPage(final DetailId detailId, final List<DocumentQueryOrderBy> orderBys, final int firstRow, final int pageLength)
+	{
+		final IIncludedDocumentsCollection includedDocuments = getIncludedDocumentsCollection(detailId);
+		return includedDocuments.getDocumentsPage(orderBys, firstRow, pageLength);
+	}
+
 	public void assertNewDocumentAllowed(final DetailId detailId)
 	{
 		getIncludedDocumentsCollection(detailId).assertNewDocumentAllowed();
@@ -1774,6 +1780,23 @@ public final class Document
 
 	}
 
+	/**
+	 * Estimates how much memory this document is using, expressed as the number of fields of this document plus the fields of all included documents which are currently loaded.
+	 *
+	 * NOTE: it's not loading any included documents.
+	 *
+	 * @return approximate weight of this document
+	 */
+	/* package */int getApproximateWeight()
+	{
+		int weight = fieldsByName.size();
+		for (final IIncludedDocumentsCollection includedDocumentsPerDetailId : includedDocuments.values())
+		{
+			weight += includedDocumentsPerDetailId.getApproximateWeight();
+		}
+		return weight;
+	}
+
 	/* package */void updateIncludedDetailsStatus()
 	{
 		includedDocuments.values().forEach(IIncludedDocumentsCollection::updateStatusFromParent);
@@ -1904,6 +1927,14 @@ public final class Document
 		return _staleStatus.isStaled();
 	}
 
+	/**
+	 * @return the version this document had in repository when it was loaded, or <code>null</code> if unknown or if the document is known to be staled
+	 */
+	public String getVersion()
+	{
+		return _staleStatus.getVersionIfNotStaled();
+	}
+
 	public IAutoCloseable lockForReading()
 	{
 		// assume _lock is not null
@@ -1984,6 +2015,11 @@ public final class Document
 			return staled;
 		}
 
+		private String getVersionIfNotStaled()
+		{
+			return staled ? null : version;
+		}
+
 		private boolean checkStaled()
 		{
 			if (staled)
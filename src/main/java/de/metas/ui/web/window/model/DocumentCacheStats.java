@@ -0,0 +1,51 @@
+package de.metas.ui.web.window.model;
+
+import de.metas.ui.web.window.datatypes.WindowId;
+import lombok.Builder;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * {@link DocumentCollection}'s root documents cache statistics, for a given window.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Value
+@Builder
+public final class DocumentCacheStats
+{
+	private final WindowId windowId;
+
+	private final long hitCount;
+	private final long missCount;
+	private final long evictionCount;
+
+	/** Number of cached (not edited) root documents */
+	private final int size;
+	/** Number of root documents which are currently edited and which are never evicted */
+	private final int sizeInEditing;
+	/** Sum of the approximate weights of all cached root documents */
+	private final long weight;
+}
@@ -1,10 +1,22 @@
 package de.metas.ui.web.window.model;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
 
@@ -21,23 +33,28 @@ import org.compiere.util.Evaluatee;
 import org.compiere.util.Evaluatees;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import de.metas.logging.LogManager;
 import de.metas.ui.web.exceptions.EntityNotFoundException;
 import de.metas.ui.web.session.UserSession;
+import de.metas.ui.web.view.SharedViewSelectionsCache;
 import de.metas.ui.web.window.WindowConstants;
 import de.metas.ui.web.window.controller.DocumentPermissionsHelper;
 import de.metas.ui.web.window.datatypes.DocumentId;
 import de.metas.ui.web.window.datatypes.DocumentPath;
 import de.metas.ui.web.window.datatypes.DocumentType;
 import de.metas.ui.web.window.datatypes.WindowId;
+import de.metas.ui.web.window.descriptor.DetailId;
 import de.metas.ui.web.window.descriptor.DocumentDescriptor;
 import de.metas.ui.web.window.descriptor.DocumentEntityDescriptor;
 import de.metas.ui.web.window.descriptor.factory.DocumentDescriptorFactory;
@@ -80,11 +97,40 @@ public class DocumentCollection
 	@Autowired
 	private UserSession userSession;
 
-	private final Cache<DocumentKey, Document> rootDocuments = CacheBuilder.newBuilder().build();
+	@Autowired
+	private SharedViewSelectionsCache sharedViewSelections;
 
-	/* package */ DocumentCollection()
+	/**
+	 * Root documents which are not currently edited. They are evicted when they are idle or when the cache's maximum weight was reached.
+	 * <p>
+	 * NOTE: the cached instances are never changed in place (we always work on copies and put back a new copy), so the weight computed on put stays accurate.
+	 */
+	private final Cache<DocumentKey, Document> rootDocuments;
+	/**
+	 * Root documents which are currently edited (i.e. they have changes which were not saved yet).
+	 * They are never evicted, but only removed when they are committed, deleted or when the session which edited them is destroyed.
+	 */
+	private final ConcurrentHashMap<DocumentKey, DocumentInEditing> rootDocumentsInEditing = new ConcurrentHashMap<>();
+	/**
+	 * Root document locks. They are not depending on the cached document instance, which could be evicted and reloaded meanwhile.
+	 * They are weakly referenced, so they are dropped when nobody is using them.
+	 */
+	private final Cache<DocumentKey, ReentrantReadWriteLock> rootDocumentLocks = CacheBuilder.newBuilder().weakValues().build();
+	private final ConcurrentHashMap<WindowId, CacheCounters> cacheCountersByWindowId = new ConcurrentHashMap<>();
+
+	/* package */ DocumentCollection(
+			@Value("${metasfresh.webui.documents.cache.maxWeight:500000}") final long cacheMaxWeight,
+			@Value("${metasfresh.webui.documents.cache.expireAfterAccessMinutes:60}") final int cacheExpireAfterAccessMinutes)
 	{
 		super();
+
+		rootDocuments = CacheBuilder.newBuilder()
+				.maximumWeight(cacheMaxWeight)
+				.weigher((final DocumentKey documentKey, final Document document) -> document.getApproximateWeight())
+				.expireAfterAccess(cacheExpireAfterAccessMinutes, TimeUnit.MINUTES)
+				.removalListener(this::onRootDocumentRemoved)
+				.build();
+		logger.info("Root documents cache: maxWeight={}, expireAfterAccessMinutes={}", cacheMaxWeight, cacheExpireAfterAccessMinutes);
 	}
 
 	public DocumentDescriptorFactory getDocumentDescriptorFactory()
@@ -128,6 +174,29 @@ public class DocumentCollection
 
 	private Document getOrLoadDocument(final DocumentKey documentKey)
 	{
+		final CacheCounters cacheCounters = getCacheCounters(documentKey);
+
+		//
+		// Check the documents which are currently edited
+		final DocumentInEditing documentInEditing = rootDocumentsInEditing.get(documentKey);
+		if (documentInEditing != null)
+		{
+			cacheCounters.hit();
+			return documentInEditing.getDocument();
+		}
+
+		//
+		// Check the cached documents
+		final Document documentCached = rootDocuments.getIfPresent(documentKey);
+		if (documentCached != null)
+		{
+			cacheCounters.hit();
+			return documentCached;
+		}
+
+		//
+		// Load it
+		cacheCounters.miss();
 		try
 		{
 			return rootDocuments.get(documentKey, () -> retrieveRootDocumentFromRepository(documentKey).copy(CopyMode.CheckInReadonly, NullDocumentChangesCollector.instance));
@@ -138,11 +207,117 @@ public class DocumentCollection
 		}
 	}
 
+	/**
+	 * Puts the given root document back to cache.
+	 *
+	 * If the document has changes which were not saved yet, it will be kept aside, bound to current session, and it will never be evicted.
+	 * Else it will be (re)added to the root documents cache, as a new entry, so its weight is computed again.
+	 */
+	private void putRootDocument(final DocumentKey rootDocumentKey, final Document rootDocument)
+	{
+		// NOTE: the order of operations is important, because we want the document to be found all the time, either in rootDocumentsInEditing or in rootDocuments.
+		// NOTE: we are called while holding the root document's write lock, so readers will not see the document missing between invalidate and put.
+		if (rootDocument.hasChangesRecursivelly())
+		{
+			rootDocumentsInEditing.put(rootDocumentKey, DocumentInEditing.of(rootDocument, getCurrentSessionIdOrNull()));
+			rootDocuments.invalidate(rootDocumentKey);
+		}
+		else
+		{
+			// Drop the previous entry first, so the document is weighed again when it's checked in (included documents might have been loaded meanwhile)
+			rootDocuments.invalidate(rootDocumentKey);
+			rootDocuments.put(rootDocumentKey, rootDocument);
+			rootDocumentsInEditing.remove(rootDocumentKey);
+		}
+	}
+
+	private void removeRootDocument(final DocumentKey rootDocumentKey)
+	{
+		rootDocuments.invalidate(rootDocumentKey);
+		rootDocumentsInEditing.remove(rootDocumentKey);
+	}
+
+	private static String getCurrentSessionIdOrNull()
+	{
+		final UserSession userSession = UserSession.getCurrentOrNull();
+		return userSession != null ? userSession.getSessionId() : null;
+	}
+
+	/**
+	 * Discards the not saved changes of the root documents which were edited in given session.
+	 *
+	 * To be called when the session is destroyed, because nobody will be able to save those changes anymore.
+	 */
+	public void discardDocumentsInEditingOfSession(@NonNull final String sessionId)
+	{
+		for (final DocumentKey rootDocumentKey : ImmutableList.copyOf(rootDocumentsInEditing.keySet()))
+		{
+			try (final IAutoCloseable writeLock = lockForWriting(rootDocumentKey))
+			{
+				final DocumentInEditing documentInEditing = rootDocumentsInEditing.get(rootDocumentKey);
+				if (documentInEditing == null || !sessionId.equals(documentInEditing.getSessionId()))
+				{
+					continue;
+				}
+
+				rootDocumentsInEditing.remove(rootDocumentKey);
+				logger.info("Session {} was destroyed. Discarding the changes of root document {} which were not saved.", sessionId, rootDocumentKey);
+			}
+		}
+	}
+
+	private void onRootDocumentRemoved(final RemovalNotification<DocumentKey, Document> notification)
+	{
+		if (!notification.wasEvicted())
+		{
+			return;
+		}
+
+		// NOTE: it's safe to evict a document while somebody is editing it,
+		// because the editor is working on a copy (which will be put back on commit) and the lock is not bound to the cached instance.
+		final DocumentKey rootDocumentKey = notification.getKey();
+		if (rootDocumentKey == null)
+		{
+			return;
+		}
+
+		getCacheCounters(rootDocumentKey).eviction();
+		logger.trace("Root document {} was evicted from cache: {}", rootDocumentKey, notification.getCause());
+	}
+
+	private ReentrantReadWriteLock getRootDocumentLock(final DocumentKey rootDocumentKey)
+	{
+		try
+		{
+			return rootDocumentLocks.get(rootDocumentKey, ReentrantReadWriteLock::new);
+		}
+		catch (final ExecutionException e)
+		{
+			throw AdempiereException.wrapIfNeeded(e);
+		}
+	}
+
+	private IAutoCloseable lockForReading(final DocumentKey rootDocumentKey)
+	{
+		// NOTE: keep a strong reference to the lock (and not only to the read lock) until it's released, else it could be garbage collected meanwhile
+		final ReentrantReadWriteLock lock = getRootDocumentLock(rootDocumentKey);
+		lock.readLock().lock();
+		return () -> lock.readLock().unlock();
+	}
+
+	private IAutoCloseable lockForWriting(final DocumentKey rootDocumentKey)
+	{
+		// NOTE: keep a strong reference to the lock (and not only to the write lock) until it's released, else it could be garbage collected meanwhile
+		final ReentrantReadWriteLock lock = getRootDocumentLock(rootDocumentKey);
+		lock.writeLock().lock();
+		return () -> lock.writeLock().unlock();
+	}
+
 	public <R> R forRootDocumentReadonly(final DocumentPath documentPath, final IDocumentChangesCollector changesCollector, final Function<Document, R> rootDocumentProcessor)
 	{
 		final DocumentKey rootDocumentKey = DocumentKey.ofRootDocumentPath(documentPath.getRootDocumentPath());
 
-		try (final IAutoCloseable readLock = getOrLoadDocument(rootDocumentKey).lockForReading())
+		try (final IAutoCloseable readLock = lockForReading(rootDocumentKey))
 		{
 			final Document rootDocument = getOrLoadDocument(rootDocumentKey).copy(CopyMode.CheckInReadonly, changesCollector);
 			DocumentPermissionsHelper.assertCanView(rootDocument, UserSession.getCurrentPermissions());
@@ -175,33 +350,168 @@ public class DocumentCollection
 		});
 	}
 
+	/**
+	 * Applies the given processor on many rows of the same included tab, while holding the root document's write lock only once and committing the root document only once.
+	 *
+	 * The rows are processed independently: if the processor fails for a row, that row is reported to given failed row handler and the other rows are still processed.
+	 * Because a failed row could leave partial changes in the writable copy, the rows are re-applied on a fresh copy, without the failed ones, before committing.
+	 *
+	 * Each row is then saved on its own, so a row which cannot be saved (e.g. database constraint) does not prevent saving the other rows.
+	 * Like on regular commits, such a row is kept unsaved and its save error is reported to given changes collector, on row's path.
+	 *
+	 * @param rootDocumentPath path of an existing root document
+	 * @param rows rows to be processed, in the order they shall be applied
+	 * @param rowIdExtractor extracts the rowId of a given row; {@link DocumentId#isNew()} rowIds will create new included documents
+	 * @param rowProcessor processes the included document of a given row
+	 * @param failedRowHandler called for each row which could not be processed; those rows were discarded
+	 */
+	public <T> void forIncludedDocumentsWritable(
+			@NonNull final DocumentPath rootDocumentPath,
+			@NonNull final DetailId detailId,
+			@NonNull final List<T> rows,
+			@NonNull final Function<T, DocumentId> rowIdExtractor,
+			@NonNull final IDocumentChangesCollector changesCollector,
+			@NonNull final BiConsumer<T, Document> rowProcessor,
+			@NonNull final BiConsumer<T, Exception> failedRowHandler)
+	{
+		if (!rootDocumentPath.isRootDocument() || rootDocumentPath.isNewDocument())
+		{
+			throw new InvalidDocumentPathException(rootDocumentPath, "existing root document path was expected");
+		}
+
+		final DocumentKey rootDocumentKey = DocumentKey.ofRootDocumentPath(rootDocumentPath);
+		try (final IAutoCloseable writeLock = lockForWriting(rootDocumentKey))
+		{
+			final AppliedRows<Document, Document> appliedRows = applyRowsSkippingFailed(
+					rows,
+					() -> {
+						final Document rootDocument = getOrLoadDocument(rootDocumentKey)
+								.copy(CopyMode.CheckOutWritable, DocumentChangesCollector.newInstance())
+								.refreshFromRepositoryIfStaled();
+						DocumentPermissionsHelper.assertCanEdit(rootDocument, UserSession.getCurrentPermissions());
+						return rootDocument;
+					},
+					(rootDocument, row) -> {
+						final DocumentId rowId = rowIdExtractor.apply(row);
+						final Document includedDocument = rowId.isNew() ? rootDocument.createIncludedDocument(detailId) : rootDocument.getIncludedDocument(detailId, rowId);
+						rowProcessor.accept(row, includedDocument);
+						return includedDocument;
+					},
+					failedRowHandler);
+			if (appliedRows == null)
+			{
+				// all rows failed => nothing to commit
+				return;
+			}
+
+			//
+			// Save the rows one by one.
+			// NOTE: the save errors are not propagated but kept on the row (see Document.saveIfValidAndHasChanges)
+			final Document rootDocument = appliedRows.getRootDocument();
+			final boolean hadChanges = rootDocument.hasChangesRecursivelly();
+			for (final Document includedDocument : appliedRows.getIncludedDocuments())
+			{
+				final DocumentSaveStatus saveStatus = includedDocument.saveIfValidAndHasChanges();
+				if (saveStatus.isError())
+				{
+					logger.warn("Failed saving {}. Keeping it unsaved: {}", includedDocument, saveStatus);
+				}
+			}
+			if (hadChanges)
+			{
+				invalidateSharedViewSelections(rootDocument);
+			}
+
+			commitRootDocument(rootDocument);
+			changesCollector.collectFrom(rootDocument.getChangesCollector());
+		}
+	}
+
+	/**
+	 * Applies given rows on a fresh root document copy.
+	 * If some rows are failing, they are reported to given failed row handler, the copy is discarded
+	 * and the remaining rows are applied again, on a new copy, until no row is failing.
+	 *
+	 * @param rootDocumentCopySupplier provides a new root document copy for each attempt
+	 * @param rowApplier applies a row on given root document copy and returns the included document of that row
+	 * @return the root document copy on which all the remaining rows were applied, together with the rows' included documents; or <code>null</code> if all rows failed
+	 */
+	/* package */ static <R, T, D> AppliedRows<R, D> applyRowsSkippingFailed(
+			@NonNull final List<T> rows,
+			@NonNull final Supplier<R> rootDocumentCopySupplier,
+			@NonNull final BiFunction<R, T, D> rowApplier,
+			@NonNull final BiConsumer<T, Exception> failedRowHandler)
+	{
+		List<T> rowsToApply = rows;
+		while (!rowsToApply.isEmpty())
+		{
+			final R rootDocument = rootDocumentCopySupplier.get();
+
+			final List<D> includedDocuments = new ArrayList<>(rowsToApply.size());
+			final Map<T, Exception> failedRows = new IdentityHashMap<>();
+			for (final T row : rowsToApply)
+			{
+				try
+				{
+					includedDocuments.add(rowApplier.apply(rootDocument, row));
+				}
+				catch (final Exception ex)
+				{
+					logger.warn("Failed processing row {}. Skipping it.", row, ex);
+					failedRows.put(row, ex);
+				}
+			}
+
+			if (failedRows.isEmpty())
+			{
+				return AppliedRows.of(rootDocument, includedDocuments);
+			}
+
+			rowsToApply.stream()
+					.filter(failedRows::containsKey)
+					.forEach(row -> failedRowHandler.accept(row, failedRows.get(row)));
+
+			// Discard this copy and try again with the remaining rows
+			rowsToApply = rowsToApply.stream()
+					.filter(row -> !failedRows.containsKey(row))
+					.collect(ImmutableList.toImmutableList());
+		}
+
+		return null;
+	}
+
+	@lombok.Value(staticConstructor = "of")
+	/* package */ static final class AppliedRows<R, D>
+	{
+		@NonNull
+		private final R rootDocument;
+		@NonNull
+		private final List<D> includedDocuments;
+	}
+
 	public <R> R forRootDocumentWritable(final DocumentPath documentPathOrNew, final IDocumentChangesCollector changesCollector, final Function<Document, R> rootDocumentProcessor)
 	{
 		final DocumentPath rootDocumentPathOrNew = documentPathOrNew.getRootDocumentPath();
 
-		final Document lockHolder;
-		final boolean isNewRootDocument;
+		final Document newRootDocument;
 		final DocumentKey rootDocumentKey;
 		if (rootDocumentPathOrNew.isNewDocument())
 		{
-			final Document newRootDocument = createRootDocument(rootDocumentPathOrNew, changesCollector);
-			lockHolder = newRootDocument;
+			newRootDocument = createRootDocument(rootDocumentPathOrNew, changesCollector);
 			rootDocumentKey = DocumentKey.ofRootDocumentPath(newRootDocument.getDocumentPath());
-			isNewRootDocument = true;
 		}
 		else
 		{
+			newRootDocument = null;
 			rootDocumentKey = DocumentKey.ofRootDocumentPath(rootDocumentPathOrNew);
-			lockHolder = getOrLoadDocument(rootDocumentKey);
-			isNewRootDocument = false;
 		}
 
-		try (final IAutoCloseable readLock = lockHolder.lockForWriting())
+		try (final IAutoCloseable writeLock = lockForWriting(rootDocumentKey))
 		{
 			final Document rootDocument;
-			if (isNewRootDocument)
+			if (newRootDocument != null)
 			{
-				rootDocument = lockHolder;
+				rootDocument = newRootDocument;
 			}
 			else
 			{
@@ -220,7 +530,7 @@ public class DocumentCollection
 			// Commit or remove it from cache if deleted
 			if (rootDocument.isDeleted())
 			{
-				rootDocuments.invalidate(rootDocumentKey);
+				removeRootDocument(rootDocumentKey);
 				changesCollector.collectDeleted(rootDocument.getDocumentPath());
 			}
 			else
@@ -290,20 +600,63 @@ public class DocumentCollection
 
 	public void cacheReset()
 	{
-		// TODO: invalidate only those which are: 1. NOW new; 2. NOT currently editing
+		// NOTE: the documents which are currently edited are not invalidated, because we would lose the changes which were not saved yet
 		rootDocuments.invalidateAll();
 		rootDocuments.cleanUp();
 	}
 
+	private CacheCounters getCacheCounters(final DocumentKey documentKey)
+	{
+		return cacheCountersByWindowId.computeIfAbsent(documentKey.getWindowId(), windowId -> new CacheCounters());
+	}
+
+	/** @return root documents cache statistics, for each window */
+	public List<DocumentCacheStats> getCacheStats()
+	{
+		final Map<WindowId, Integer> sizeByWindowId = new HashMap<>();
+		final Map<WindowId, Long> weightByWindowId = new HashMap<>();
+		rootDocuments.asMap().forEach((documentKey, document) -> {
+			final WindowId windowId = documentKey.getWindowId();
+			sizeByWindowId.merge(windowId, 1, Integer::sum);
+			weightByWindowId.merge(windowId, (long)document.getApproximateWeight(), Long::sum);
+		});
+
+		final Map<WindowId, Integer> sizeInEditingByWindowId = new HashMap<>();
+		rootDocumentsInEditing.keySet().forEach(documentKey -> sizeInEditingByWindowId.merge(documentKey.getWindowId(), 1, Integer::sum));
+
+		return cacheCountersByWindowId.entrySet()
+				.stream()
+				.map(e -> {
+					final WindowId windowId = e.getKey();
+					final CacheCounters cacheCounters = e.getValue();
+					return DocumentCacheStats.builder()
+							.windowId(windowId)
+							.hitCount(cacheCounters.getHitCount())
+							.missCount(cacheCounters.getMissCount())
+							.evictionCount(cacheCounters.getEvictionCount())
+							.size(sizeByWindowId.getOrDefault(windowId, 0))
+							.sizeInEditing(sizeInEditingByWindowId.getOrDefault(windowId, 0))
+							.weight(weightByWindowId.getOrDefault(windowId, 0L))
+							.build();
+				})
+				.sorted(Comparator.comparing(stats -> stats.getWindowId().toJson()))
+				.collect(ImmutableList.toImmutableList());
+	}
+
 	private void commitRootDocument(@NonNull final Document rootDocument)
 	{
 		Preconditions.checkState(rootDocument.isRootDocument(), "{} is not a root document", rootDocument);
 
 		final boolean wasNew = rootDocument.isNew();
+		final boolean hadChanges = rootDocument.hasChangesRecursivelly();
 
 		//
 		// Try saving it if possible
 		rootDocument.saveIfValidAndHasChanges();
+		if (hadChanges)
+		{
+			invalidateSharedViewSelections(rootDocument);
+		}
 
 		//
 		// Make sure all included detail (tab) statuses are up2date.
@@ -313,7 +666,7 @@ public class DocumentCollection
 		//
 		// Add the saved and changed document back to index
 		final DocumentKey rootDocumentKey = DocumentKey.of(rootDocument);
-		rootDocuments.put(rootDocumentKey, rootDocument.copy(CopyMode.CheckInReadonly, NullDocumentChangesCollector.instance));
+		putRootDocument(rootDocumentKey, rootDocument.copy(CopyMode.CheckInReadonly, NullDocumentChangesCollector.instance));
 
 		//
 		// Make sure all events were collected for the case when we just created the new document
@@ -352,6 +705,7 @@ public class DocumentCollection
 				if (!rootDocument.isNew())
 				{
 					rootDocument.deleteFromRepository();
+					invalidateSharedViewSelections(rootDocument);
 				}
 
 				rootDocument.markAsDeleted();
@@ -369,6 +723,18 @@ public class DocumentCollection
 		});
 	}
 
+	/** Makes sure new views will not reuse the selections which might be outdated after given document was changed */
+	private void invalidateSharedViewSelections(final Document rootDocument)
+	{
+		final String tableName = rootDocument.getEntityDescriptor().getTableNameOrNull();
+		if (tableName == null)
+		{
+			return;
+		}
+
+		sharedViewSelections.invalidateByTableNames(ImmutableSet.of(tableName));
+	}
+
 	private void assertDeleteDocumentAllowed(final DocumentEntityDescriptor entityDescriptor)
 	{
 		final Evaluatee evalCtx = Evaluatees.mapBuilder()
@@ -570,4 +936,50 @@ public class DocumentCollection
 			return DocumentPath.rootDocumentPath(documentType, documentTypeId, documentId);
 		}
 	} // DocumentKey
+
+	@lombok.Value(staticConstructor = "of")
+	private static final class DocumentInEditing
+	{
+		@NonNull
+		private final Document document;
+		/** the session in which the document was edited, or null if it was edited outside of a session */
+		private final String sessionId;
+	} // DocumentInEditing
+
+	private static final class CacheCounters
+	{
+		private final LongAdder hitCount = new LongAdder();
+		private final LongAdder missCount = new LongAdder();
+		private final LongAdder evictionCount = new LongAdder();
+
+		public void hit()
+		{
+			hitCount.increment();
+		}
+
+		public long getHitCount()
+		{
+			return hitCount.sum();
+		}
+
+		public void miss()
+		{
+			missCount.increment();
+		}
+
+		public long getMissCount()
+		{
+			return missCount.sum();
+		}
+
+		public void eviction()
+		{
+			evictionCount.increment();
+		}
+
+		public long getEvictionCount()
+		{
+			return evictionCount.sum();
+		}
+	} // CacheCounters
 }
@@ -222,6 +222,13 @@ public final class DocumentQuery
 			return documentsRepository.retrieveLastLineNo(query);
 		}
 
+		public int retrieveCount()
+		{
+			final DocumentQuery query = build();
+			final DocumentsRepository documentsRepository = getDocumentsRepository();
+			return documentsRepository.retrieveCount(query);
+		}
+
 
 		private DocumentsRepository getDocumentsRepository()
 		{
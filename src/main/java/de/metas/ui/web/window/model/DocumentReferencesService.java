@@ -1,22 +1,40 @@
 package de.metas.ui.web.window.model;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+import org.adempiere.ad.security.UserRolePermissionsKey;
 import org.adempiere.ad.table.api.IADTableDAO;
 import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.model.ZoomInfoFactory;
 import org.adempiere.model.ZoomInfoFactory.IZoomSource;
 import org.adempiere.model.ZoomInfoFactory.ZoomInfo;
 import org.adempiere.util.Services;
+import org.compiere.util.DisplayType;
+import org.compiere.util.Env;
 import org.compiere.util.Evaluatee;
+import org.compiere.util.Evaluatees;
+import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 
+import de.metas.logging.LogManager;
 import de.metas.ui.web.document.filter.MQueryDocumentFilterHelper;
+import de.metas.ui.web.session.UserSession;
 import de.metas.ui.web.window.datatypes.DocumentPath;
 import de.metas.ui.web.window.datatypes.WindowId;
 import de.metas.ui.web.window.descriptor.DocumentEntityDescriptor;
@@ -43,45 +61,159 @@ import de.metas.ui.web.window.descriptor.DocumentEntityDescriptor;
  * #L%
  */
 
+/**
+ * Provides the references (zoom targets) of a given document.
+ *
+ * The references are retrieved outside of the document lock, at most a given number at the same time, and they are cached per document version.
+ * <p>
+ * NOTE: the retrieval still runs on the caller's thread and counts all zoom targets in one go,
+ * because {@link ZoomInfoFactory} does not allow us to list the zoom targets without counting them.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
 @Service
 public class DocumentReferencesService
 {
+	private static final Logger logger = LogManager.getLogger(DocumentReferencesService.class);
+
 	@Autowired
 	private DocumentCollection documentCollection;
 
+	/** Limits how many (expensive) references retrievals are running at the same time */
+	private final Semaphore retrievalPermits;
+	private final int waitTimeoutMillis;
+	private final Cache<DocumentReferencesKey, List<DocumentReference>> documentReferencesCache;
+
+	public DocumentReferencesService(
+			@Value("${metasfresh.webui.document.references.maxConcurrentRetrievals:8}") final int maxConcurrentRetrievals,
+			@Value("${metasfresh.webui.document.references.waitTimeoutMillis:30000}") final int waitTimeoutMillis,
+			@Value("${metasfresh.webui.document.references.cache.expireAfterWriteSeconds:60}") final int cacheExpireAfterWriteSeconds)
+	{
+		retrievalPermits = new Semaphore(maxConcurrentRetrievals > 0 ? maxConcurrentRetrievals : 8, true);
+		this.waitTimeoutMillis = waitTimeoutMillis;
+
+		// NOTE: the document version is changed only when the document itself is changed but not when other documents are referencing it,
+		// so we have to expire the cached references after a while
+		documentReferencesCache = CacheBuilder.newBuilder()
+				.expireAfterWrite(cacheExpireAfterWriteSeconds, TimeUnit.SECONDS)
+				.maximumSize(1000)
+				.build();
+
+		logger.info("maxConcurrentRetrievals={}, waitTimeoutMillis={}, cacheExpireAfterWriteSeconds={}", maxConcurrentRetrievals, waitTimeoutMillis, cacheExpireAfterWriteSeconds);
+	}
+
 	public List<DocumentReference> getDocumentReferences(final DocumentPath documentPath)
 	{
-		return documentCollection.forDocumentReadonly(documentPath, NullDocumentChangesCollector.instance, document -> {
-			if (document.isNew())
-			{
-				return ImmutableList.of();
-			}
+		final DocumentAsZoomSource zoomSource = getZoomSourceOrNull(documentPath);
+		if (zoomSource == null)
+		{
+			return ImmutableList.of();
+		}
 
-			final DocumentAsZoomSource zoomSource = new DocumentAsZoomSource(document);
+		final DocumentReferencesKey key = DocumentReferencesKey.of(documentPath, zoomSource.getVersion());
+		if (key == null)
+		{
+			return retrieveDocumentReferences(zoomSource);
+		}
 
-			return ZoomInfoFactory.get()
-					.retrieveZoomInfos(zoomSource)
-					.stream()
-					.map(zoomInfo -> createDocumentReference(zoomInfo))
-					.collect(ImmutableList.toImmutableList());
-		});
+		try
+		{
+			return documentReferencesCache.get(key, () -> retrieveDocumentReferences(zoomSource));
+		}
+		catch (final ExecutionException ex)
+		{
+			throw AdempiereException.wrapIfNeeded(ex.getCause());
+		}
 	}
 
 	public DocumentReference getDocumentReference(final DocumentPath sourceDocumentPath, final WindowId targetWindowId)
 	{
-		return documentCollection.forDocumentReadonly(sourceDocumentPath, NullDocumentChangesCollector.instance, sourceDocument -> {
-			if (sourceDocument.isNew())
+		final DocumentAsZoomSource zoomSource = getZoomSourceOrNull(sourceDocumentPath);
+		if (zoomSource == null)
+		{
+			throw new IllegalArgumentException("New documents cannot be referenced: " + sourceDocumentPath);
+		}
+
+		//
+		// Check the cached references first
+		final DocumentReferencesKey key = DocumentReferencesKey.of(sourceDocumentPath, zoomSource.getVersion());
+		final List<DocumentReference> cachedDocumentReferences = key != null ? documentReferencesCache.getIfPresent(key) : null;
+		if (cachedDocumentReferences != null)
+		{
+			final DocumentReference cachedDocumentReference = cachedDocumentReferences.stream()
+					.filter(documentReference -> targetWindowId.equals(documentReference.getWindowId()))
+					.findFirst()
+					.orElse(null);
+			if (cachedDocumentReference != null)
 			{
-				throw new IllegalArgumentException("New documents cannot be referenced: " + sourceDocument);
+				return cachedDocumentReference;
 			}
+		}
 
-			final DocumentAsZoomSource zoomSource = new DocumentAsZoomSource(sourceDocument);
+		return executeWithPermit(zoomSource, () -> createDocumentReference(ZoomInfoFactory.get().retrieveZoomInfo(zoomSource, targetWindowId.toInt())));
+	}
 
-			final ZoomInfo zoomInfo = ZoomInfoFactory.get().retrieveZoomInfo(zoomSource, targetWindowId.toInt());
-			return createDocumentReference(zoomInfo);
+	/**
+	 * Gets the zoom source of given document.
+	 *
+	 * The zoom source is created while holding document's read lock but it's used after the lock was released,
+	 * so it's taking a snapshot of everything it needs from the document and it's not keeping a reference to it.
+	 *
+	 * @return zoom source or <code>null</code> if the document is new
+	 */
+	private DocumentAsZoomSource getZoomSourceOrNull(final DocumentPath documentPath)
+	{
+		return documentCollection.forDocumentReadonly(documentPath, NullDocumentChangesCollector.instance, document -> {
+			if (document.isNew())
+			{
+				return null;
+			}
+			return new DocumentAsZoomSource(document);
 		});
 	}
 
+	private List<DocumentReference> retrieveDocumentReferences(final DocumentAsZoomSource zoomSource)
+	{
+		return executeWithPermit(zoomSource, () -> ZoomInfoFactory.get()
+				.retrieveZoomInfos(zoomSource)
+				.stream()
+				.map(zoomInfo -> createDocumentReference(zoomInfo))
+				.collect(ImmutableList.toImmutableList()));
+	}
+
+	/**
+	 * Executes given supplier on current thread, after waiting for a free retrieval permit.
+	 *
+	 * This way, the expensive zoom targets counting is limited to a fixed number of concurrent executions.
+	 */
+	private <T> T executeWithPermit(final DocumentAsZoomSource zoomSource, final Supplier<T> supplier)
+	{
+		try
+		{
+			if (!retrievalPermits.tryAcquire(waitTimeoutMillis, TimeUnit.MILLISECONDS))
+			{
+				throw new AdempiereException("Too many document references retrievals are running. Please try again later.")
+						.setParameter("zoomSource", zoomSource)
+						.setParameter("waitTimeoutMillis", waitTimeoutMillis);
+			}
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw AdempiereException.wrapIfNeeded(ex);
+		}
+
+		try
+		{
+			return supplier.get();
+		}
+		finally
+		{
+			retrievalPermits.release();
+		}
+	}
+
 	private static final DocumentReference createDocumentReference(final ZoomInfo zoomInfo)
 	{
 		return DocumentReference.builder()
@@ -104,14 +236,39 @@ public class DocumentReferencesService
 		private final int recordId;
 		private final String keyColumnName;
 		private final List<String> keyColumnNames;
-		private final Document document;
+		/** Snapshot of document's field values (might contain <code>null</code> values) */
+		private final Map<String, Object> fieldValues;
+		private final String version;
 
+		/** NOTE: to be called while holding document's lock */
 		private DocumentAsZoomSource(final Document document)
 		{
 			super();
-			ctx = document.getCtx();
-			this.document = document;
-			evaluationContext = document.asEvaluatee();
+			ctx = Env.copyCtx(document.getCtx());
+
+			final Map<String, Object> fieldValues = new HashMap<>();
+			for (final IDocumentFieldView field : document.getFieldViews())
+			{
+				fieldValues.put(field.getFieldName(), field.getValue());
+			}
+			this.fieldValues = Collections.unmodifiableMap(fieldValues);
+
+			// Evaluation context: document's fields, then parent document's fields (if any), then the context
+			final Map<String, String> valuesAsString = new HashMap<>();
+			for (Document doc = document; doc != null; doc = doc.getParentDocument())
+			{
+				final IDocumentEvaluatee documentEvaluatee = doc.asEvaluatee();
+				for (final IDocumentFieldView field : doc.getFieldViews())
+				{
+					final String fieldName = field.getFieldName();
+					final String valueAsString = valuesAsString.containsKey(fieldName) ? null : documentEvaluatee.get_ValueAsString(fieldName);
+					if (valueAsString != null)
+					{
+						valuesAsString.put(fieldName, valueAsString);
+					}
+				}
+			}
+			evaluationContext = Evaluatees.compose(Evaluatees.ofMap(valuesAsString), Evaluatees.ofCtx(ctx, Env.WINDOW_MAIN, false));
 
 			final DocumentEntityDescriptor entityDescriptor = document.getEntityDescriptor();
 			adWindowId = entityDescriptor.getWindowId().toInt();
@@ -120,6 +277,7 @@ public class DocumentReferencesService
 			recordId = document.getDocumentId().toInt();
 			keyColumnName = entityDescriptor.getIdFieldName();
 			keyColumnNames = keyColumnName == null ? ImmutableList.of() : ImmutableList.of(keyColumnName);
+			version = document.getVersion();
 		}
 
 		@Override
@@ -132,6 +290,11 @@ public class DocumentReferencesService
 					.toString();
 		}
 
+		public String getVersion()
+		{
+			return version;
+		}
+
 		@Override
 		public Properties getCtx()
 		{
@@ -189,19 +352,42 @@ public class DocumentReferencesService
 		@Override
 		public boolean hasField(final String columnName)
 		{
-			return document.hasField(columnName);
+			return fieldValues.containsKey(columnName);
 		}
 
 		@Override
 		public Object getFieldValue(final String columnName)
 		{
-			return document.getFieldView(columnName).getValue();
+			return fieldValues.get(columnName);
 		}
 
 		@Override
 		public boolean getFieldValueAsBoolean(final String columnName)
 		{
-			return document.getFieldView(columnName).getValueAsBoolean();
+			return DisplayType.toBoolean(fieldValues.get(columnName));
 		}
 	}
+
+	@lombok.Value
+	private static final class DocumentReferencesKey
+	{
+		/**
+		 * @return key or <code>null</code> if the document version is not known, so the references shall not be cached
+		 */
+		public static final DocumentReferencesKey of(final DocumentPath documentPath, final String version)
+		{
+			if (version == null)
+			{
+				return null;
+			}
+
+			final UserRolePermissionsKey permissionsKey = UserSession.getCurrent().getUserRolePermissionsKey();
+			return new DocumentReferencesKey(documentPath, version, permissionsKey);
+		}
+
+		private final DocumentPath documentPath;
+		private final String version;
+		/** Zoom targets depend on which windows the user is allowed to access */
+		private final UserRolePermissionsKey permissionsKey;
+	}
 }
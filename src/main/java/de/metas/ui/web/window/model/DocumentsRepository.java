@@ -64,4 +64,7 @@ public interface DocumentsRepository
 	String retrieveVersion(DocumentEntityDescriptor entityDescriptor, int documentIdAsInt);
 
 	int retrieveLastLineNo(DocumentQuery query);
+
+	/** @return how many documents are matching given query; paging (first row, page length) is not considered */
+	int retrieveCount(DocumentQuery query);
 }
@@ -13,6 +13,7 @@ import org.compiere.util.Evaluatee;
 import org.slf4j.Logger;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 
 import de.metas.logging.LogManager;
@@ -181,6 +182,39 @@ public class HighVolumeReadWriteIncludedDocumentsCollection implements IIncluded
 		return documents;
 	}
 
+	@Override
+	public IncludedDocumentsPage getDocumentsPage(final List<DocumentQueryOrderBy> orderBys, final int firstRow, final int pageLength)
+	{
+		final Map<DocumentId, Document> documentsWithChanges = new LinkedHashMap<>(getInnerDocumentsWithChanges());
+		final OrderedDocumentsList documents = DocumentQuery.builder(entityDescriptor)
+				.setParentDocument(parentDocument)
+				.setExistingDocumentsSupplier(documentsWithChanges::remove)
+				.setChangesCollector(NullDocumentChangesCollector.instance)
+				.setOrderBys(orderBys)
+				.setFirstRow(firstRow)
+				.setPageLength(pageLength)
+				.retriveDocuments();
+
+		// NOTE: the other saved documents with changes are outside of the requested window, so we don't care about them.
+		return IncludedDocumentsPage.of(documents, firstRow, pageLength, this::retrieveSavedDocumentsCount, getNewDocuments());
+	}
+
+	private int retrieveSavedDocumentsCount()
+	{
+		return DocumentQuery.builder(entityDescriptor)
+				.setParentDocument(parentDocument)
+				.setChangesCollector(NullDocumentChangesCollector.instance)
+				.retrieveCount();
+	}
+
+	private List<Document> getNewDocuments()
+	{
+		return getChangedDocuments()
+				.stream()
+				.filter(Document::isNew)
+				.collect(ImmutableList.toImmutableList());
+	}
+
 	@Override
 	public Document getDocumentById(final DocumentId documentId)
 	{
@@ -386,6 +420,17 @@ public class HighVolumeReadWriteIncludedDocumentsCollection implements IIncluded
 		return nextLineNo;
 	}
 
+	@Override
+	public int getApproximateWeight()
+	{
+		int weight = 0;
+		for (final Document document : getChangedDocuments())
+		{
+			weight += document.getApproximateWeight();
+		}
+		return weight;
+	}
+
 	//
 	//
 	//
@@ -5,6 +5,7 @@ import java.util.List;
 import org.adempiere.ad.expression.api.LogicExpressionResult;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
 
 import de.metas.ui.web.window.datatypes.DocumentId;
 import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
@@ -81,6 +82,28 @@ public final class HighVolumeReadonlyIncludedDocumentsCollection implements IInc
 				.retriveDocuments();
 	}
 
+	@Override
+	public IncludedDocumentsPage getDocumentsPage(final List<DocumentQueryOrderBy> orderBys, final int firstRow, final int pageLength)
+	{
+		final OrderedDocumentsList documents = DocumentQuery.builder(entityDescriptor)
+				.setParentDocument(parentDocument)
+				.setChangesCollector(NullDocumentChangesCollector.instance)
+				.setOrderBys(orderBys)
+				.setFirstRow(firstRow)
+				.setPageLength(pageLength)
+				.retriveDocuments();
+
+		return IncludedDocumentsPage.of(documents, firstRow, pageLength, this::retrieveDocumentsCount, ImmutableList.of());
+	}
+
+	private int retrieveDocumentsCount()
+	{
+		return DocumentQuery.builder(entityDescriptor)
+				.setParentDocument(parentDocument)
+				.setChangesCollector(NullDocumentChangesCollector.instance)
+				.retrieveCount();
+	}
+
 	@Override
 	public Document getDocumentById(final DocumentId documentId)
 	{
@@ -168,4 +191,10 @@ public final class HighVolumeReadonlyIncludedDocumentsCollection implements IInc
 	{
 		throw new UnsupportedOperationException();
 	}
+
+	@Override
+	public int getApproximateWeight()
+	{
+		return 0; // we are not holding any documents
+	}
 }
@@ -40,6 +40,18 @@ public interface IIncludedDocumentsCollection
 
 	OrderedDocumentsList getDocuments(List<DocumentQueryOrderBy> orderBys);
 
+	/**
+	 * Retrieves only the given window of included documents, together with the total number of included documents.
+	 * New documents, which were not saved yet, are considered to be after all saved documents.
+	 * <p>
+	 * NOTE: this collection is not changed, i.e. the retrieved documents are not kept.
+	 *
+	 * @param firstRow first row to fetch (0 based)
+	 * @param pageLength how many rows to fetch
+	 * @return included documents page
+	 */
+	IncludedDocumentsPage getDocumentsPage(List<DocumentQueryOrderBy> orderBys, int firstRow, int pageLength);
+
 	Document getDocumentById(DocumentId documentId);
 
 	void updateStatusFromParent();
@@ -72,6 +84,14 @@ public interface IIncludedDocumentsCollection
 
 	int getNextLineNo();
 
+	/**
+	 * NOTE: it's not loading the documents, it's considering only the documents which are currently loaded.
+	 *
+	 * @return approximate weight of currently loaded included documents
+	 * @see Document#getApproximateWeight()
+	 */
+	int getApproximateWeight();
+
 	default void onChildSaved(final Document document)
 	{
 		// nothing
@@ -277,6 +277,43 @@ public class IncludedDocumentsCollection implements IIncludedDocumentsCollection
 		return OrderedDocumentsList.of(getInnerDocumentsFullyLoaded(), ImmutableList.of());
 	}
 
+	/**
+	 * Retrieves only the requested window from repository, without changing our documents map.
+	 * The already loaded documents which have changes are reused, the others are fetched again (they might be stale).
+	 */
+	@Override
+	public synchronized IncludedDocumentsPage getDocumentsPage(final List<DocumentQueryOrderBy> orderBys, final int firstRow, final int pageLength)
+	{
+		final Map<DocumentId, Document> documents = _documents;
+		final OrderedDocumentsList documentsPage = DocumentQuery.builder(entityDescriptor)
+				.setParentDocument(parentDocument)
+				.setExistingDocumentsSupplier(documentId -> {
+					final Document document = documents.get(documentId);
+					return document != null && document.hasChangesRecursivelly() ? document : null;
+				})
+				.setOrderBys(orderBys)
+				.setFirstRow(firstRow)
+				.setPageLength(pageLength)
+				.retriveDocuments();
+
+		return IncludedDocumentsPage.of(documentsPage, firstRow, pageLength, this::retrieveSavedDocumentsCount, getNewDocuments());
+	}
+
+	private int retrieveSavedDocumentsCount()
+	{
+		return DocumentQuery.builder(entityDescriptor)
+				.setParentDocument(parentDocument)
+				.retrieveCount();
+	}
+
+	private List<Document> getNewDocuments()
+	{
+		return getInnerDocumentsNoLoad()
+				.stream()
+				.filter(Document::isNew)
+				.collect(ImmutableList.toImmutableList());
+	}
+
 	/**
 	 * @return inner documents as they are now (no refresh, internal writable collection)
 	 */
@@ -493,6 +530,17 @@ public class IncludedDocumentsCollection implements IIncludedDocumentsCollection
 		return nextLineNo;
 	}
 
+	@Override
+	public synchronized int getApproximateWeight()
+	{
+		int weight = 0;
+		for (final Document document : getInnerDocumentsNoLoad())
+		{
+			weight += document.getApproximateWeight();
+		}
+		return weight;
+	}
+
 	private int getLastLineNo()
 	{
 		int maxLineNo = 0;
@@ -0,0 +1,96 @@
+package de.metas.ui.web.window.model;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * A page of included documents, together with the total number of included documents.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+@Value
+public final class IncludedDocumentsPage
+{
+	/**
+	 * Creates the page from the saved documents page and the new documents (never saved), which are considered to be after all saved documents.
+	 * <p>
+	 * NOTE: the saved documents count is retrieved by another query than the saved documents page,
+	 * so it's adjusted to not contradict the page (e.g. when the records were changed in the meantime)
+	 * and it's not retrieved at all when it can be deduced from the page.
+	 *
+	 * @param savedDocumentsPage the requested window of saved documents
+	 * @param savedDocumentsCountSupplier retrieves how many saved documents are there
+	 * @param newDocuments the documents which were not saved yet
+	 */
+	/* package */ static IncludedDocumentsPage of(
+			@NonNull final OrderedDocumentsList savedDocumentsPage,
+			final int firstRow,
+			final int pageLength,
+			@NonNull final IntSupplier savedDocumentsCountSupplier,
+			@NonNull final List<Document> newDocuments)
+	{
+		final int savedPageSize = savedDocumentsPage.size();
+
+		final int savedDocumentsCount;
+		if (savedPageSize > 0 && savedPageSize < pageLength)
+		{
+			// we hit the last saved document
+			savedDocumentsCount = firstRow + savedPageSize;
+		}
+		else if (savedPageSize <= 0)
+		{
+			// we are after the last saved document
+			savedDocumentsCount = Math.min(savedDocumentsCountSupplier.getAsInt(), firstRow);
+		}
+		else
+		{
+			// there might be more saved documents after our page
+			savedDocumentsCount = Math.max(savedDocumentsCountSupplier.getAsInt(), firstRow + savedPageSize);
+		}
+
+		//
+		// Add the new documents which are falling into the requested window.
+		final OrderedDocumentsList documents = savedDocumentsPage;
+		if (savedPageSize < pageLength && !newDocuments.isEmpty())
+		{
+			final int fromIndex = Math.max(firstRow - savedDocumentsCount, 0);
+			final int toIndex = Math.min(firstRow + pageLength - savedDocumentsCount, newDocuments.size());
+			if (fromIndex < toIndex)
+			{
+				documents.addDocuments(newDocuments.subList(fromIndex, toIndex));
+			}
+		}
+
+		return new IncludedDocumentsPage(documents, savedDocumentsCount + newDocuments.size());
+	}
+
+	private final OrderedDocumentsList documents;
+	/** How many included documents are there, including the new ones which were not saved yet */
+	private final int totalCount;
+}
@@ -1,5 +1,7 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -131,6 +133,50 @@ public final class CachedLookupDataSourceFetcherAdapter implements LookupDataSou
 		return cache_retrieveLookupValueById.getOrLoad(evalCtx, () -> delegate.retrieveLookupValueById(evalCtx));
 	}
 
+	@Override
+	public LookupValuesList retrieveLookupValuesByIds(final Collection<LookupDataSourceContext> evalCtxs)
+	{
+		final List<LookupValue> lookupValues = new ArrayList<>(evalCtxs.size());
+
+		//
+		// Get the cached lookup values and collect the ones which need to be loaded
+		final List<LookupDataSourceContext> evalCtxsToLoad = new ArrayList<>();
+		for (final LookupDataSourceContext evalCtx : evalCtxs)
+		{
+			final LookupValue lookupValue = cache_retrieveLookupValueById.get(evalCtx);
+			if (lookupValue == null)
+			{
+				evalCtxsToLoad.add(evalCtx);
+			}
+			else if (lookupValue != LOOKUPVALUE_NULL)
+			{
+				lookupValues.add(lookupValue);
+			}
+		}
+
+		//
+		// Load the missing lookup values in one go and put them to cache
+		if (!evalCtxsToLoad.isEmpty())
+		{
+			final LookupValuesList lookupValuesLoaded = delegate.retrieveLookupValuesByIds(evalCtxsToLoad);
+			for (final LookupDataSourceContext evalCtx : evalCtxsToLoad)
+			{
+				final LookupValue lookupValue = lookupValuesLoaded.getById(evalCtx.getIdToFilter());
+				if (lookupValue == null)
+				{
+					cache_retrieveLookupValueById.put(evalCtx, LOOKUPVALUE_NULL);
+				}
+				else
+				{
+					cache_retrieveLookupValueById.put(evalCtx, lookupValue);
+					lookupValues.add(lookupValue);
+				}
+			}
+		}
+
+		return lookupValues.stream().collect(LookupValuesList.collect());
+	}
+
 	@Override
 	public Builder newContextForFetchingList()
 	{
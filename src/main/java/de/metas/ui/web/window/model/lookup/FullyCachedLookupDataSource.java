@@ -1,8 +1,9 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Predicate;
 
 import org.adempiere.util.Check;
 import org.adempiere.util.lang.ITableRecordReference;
@@ -18,6 +19,7 @@ import com.google.common.collect.ImmutableList;
 import de.metas.ui.web.window.datatypes.LookupValue;
 import de.metas.ui.web.window.datatypes.LookupValuesList;
 import de.metas.ui.web.window.datatypes.WindowId;
+import de.metas.ui.web.window.model.lookup.LookupValueFilterPredicates.LookupValueFilterPredicate;
 
 /*
  * #%L
@@ -52,7 +54,7 @@ class FullyCachedLookupDataSource implements LookupDataSource
 
 	private final LookupDataSourceFetcher fetcher;
 
-	private final transient CCache<LookupDataSourceContext, LookupValuesList> cacheByPartition;
+	private final transient CCache<LookupDataSourceContext, LookupValuesSearchIndex> cacheByPartition;
 
 	private FullyCachedLookupDataSource(final LookupDataSourceFetcher fetcher)
 	{
@@ -75,32 +77,38 @@ class FullyCachedLookupDataSource implements LookupDataSource
 				.toString();
 	}
 
-	private LookupValuesList getLookupValuesList(final Evaluatee parentEvaluatee)
+	private LookupValuesSearchIndex getPartition(final Evaluatee parentEvaluatee)
 	{
 		final LookupDataSourceContext evalCtx = fetcher.newContextForFetchingList()
 				.setParentEvaluatee(parentEvaluatee)
 				.putFilter(LookupDataSourceContext.FILTER_Any, FIRST_ROW, Integer.MAX_VALUE)
 				.build();
 
-		return cacheByPartition.getOrLoad(evalCtx, () -> fetcher.retrieveEntities(evalCtx));
+		return cacheByPartition.getOrLoad(evalCtx, () -> LookupValuesSearchIndex.of(fetcher.retrieveEntities(evalCtx)));
+	}
+
+	private LookupValuesList getLookupValuesList(final Evaluatee parentEvaluatee)
+	{
+		return getPartition(parentEvaluatee).getLookupValues();
 	}
 
 	@Override
 	public LookupValuesList findEntities(final Evaluatee ctx, final String filter, final int firstRow, final int pageLength)
 	{
-		final LookupValuesList partition = getLookupValuesList(ctx);
-		if (partition.isEmpty())
+		final LookupValuesSearchIndex partition = getPartition(ctx);
+		final LookupValuesList partitionValues = partition.getLookupValues();
+		if (partitionValues.isEmpty())
 		{
-			return partition;
+			return partitionValues;
 		}
 
-		final Predicate<LookupValue> filterPredicate = LookupValueFilterPredicates.of(filter);
-		if (filterPredicate == LookupValueFilterPredicates.MATCH_ALL)
+		final LookupValueFilterPredicate filterPredicate = LookupValueFilterPredicates.of(filter);
+		if (filterPredicate.isMatchAll())
 		{
-			return partition.offsetAndLimit(firstRow, pageLength);
+			return partitionValues.offsetAndLimit(firstRow, pageLength);
 		}
 
-		return partition.filter(filterPredicate, firstRow, pageLength);
+		return partition.findEntities(filter, firstRow, pageLength);
 	}
 
 	@Override
@@ -122,6 +130,24 @@ class FullyCachedLookupDataSource implements LookupDataSource
 		return partition.getById(idNormalized);
 	}
 
+	@Override
+	public LookupValuesList findByIds(final Collection<?> ids)
+	{
+		if (ids.isEmpty())
+		{
+			return LookupValuesList.EMPTY;
+		}
+
+		final LookupValuesList partition = getLookupValuesList(Evaluatees.empty());
+		return ids.stream()
+				.map(idObj -> LookupValue.normalizeId(idObj, fetcher.isNumericKey()))
+				.filter(Objects::nonNull)
+				.distinct()
+				.map(partition::getById)
+				.filter(Objects::nonNull)
+				.collect(LookupValuesList.collect());
+	}
+
 	@Override
 	public ITableRecordReference toTableRecordReference(int id)
 	{
@@ -1,15 +1,22 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.adempiere.ad.expression.api.IExpressionEvaluator.OnVariableNotFound;
 import org.adempiere.ad.expression.api.IStringExpression;
 import org.adempiere.ad.service.impl.LookupDAO.SQLNamePairIterator;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.validationRule.INamePairPredicate;
+import org.adempiere.exceptions.DBException;
 import org.compiere.util.CCache.CCacheStats;
 import org.compiere.util.DB;
 import org.slf4j.Logger;
@@ -17,6 +24,7 @@ import org.slf4j.Logger;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 
 import de.metas.i18n.ITranslatableString;
 import de.metas.i18n.ImmutableTranslatableString;
@@ -62,6 +70,10 @@ public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetche
 
 	private static final Logger logger = LogManager.getLogger(GenericSqlLookupDataSourceFetcher.class);
 
+	/** Maximum number of IDs to be fetched by one SQL query, see {@link #retrieveLookupValuesByIds(Collection)} */
+	private static final int RETRIEVE_BY_IDS_MaxIdsPerQuery = 500;
+	private static final String SQL_KeyColumnForFetchingByIds = "lookup_ids.id";
+
 	private final @NonNull String lookupTableName;
 	private final @NonNull Optional<String> lookupTableNameAsOptional;
 	private final boolean numericKey;
@@ -69,6 +81,7 @@ public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetche
 
 	private final IStringExpression sqlForFetchingExpression;
 	private final IStringExpression sqlForFetchingDisplayNameByIdExpression;
+	private final IStringExpression sqlForFetchingDisplayNameByKeyColumnExpression;
 	private final INamePairPredicate postQueryPredicate;
 
 	private final boolean isTranslatable;
@@ -89,6 +102,7 @@ public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetche
 		entityTypeIndex = sqlLookupDescriptor.getEntityTypeIndex();
 		sqlForFetchingExpression = sqlLookupDescriptor.getSqlForFetchingExpression();
 		sqlForFetchingDisplayNameByIdExpression = sqlLookupDescriptor.getSqlForFetchingDisplayNameByIdExpression();
+		sqlForFetchingDisplayNameByKeyColumnExpression = sqlLookupDescriptor.getSqlForFetchingDisplayNameByIdExpression(SQL_KeyColumnForFetchingByIds);
 		postQueryPredicate = sqlLookupDescriptor.getPostQueryPredicate();
 		
 		isTranslatable = sqlForFetchingDisplayNameByIdExpression.requiresParameter(LookupDataSourceContext.PARAM_AD_Language.getName());
@@ -209,11 +223,93 @@ public class GenericSqlLookupDataSourceFetcher implements LookupDataSourceFetche
 		{
 			return LOOKUPVALUE_NULL;
 		}
-		
+
+		return createLookupValue(id, displayName, evalCtx.getAD_Language());
+	}
+
+	/**
+	 * Retrieves the display names of all given IDs using one SQL query for each {@value #RETRIEVE_BY_IDS_MaxIdsPerQuery} IDs.
+	 * <p>
+	 * The display name SQL is the same as the one used by {@link #retrieveLookupValueById(LookupDataSourceContext)}, but it's correlated to a <code>VALUES</code> list of the requested IDs.
+	 */
+	@Override
+	public LookupValuesList retrieveLookupValuesByIds(final Collection<LookupDataSourceContext> evalCtxs)
+	{
+		if (evalCtxs.isEmpty())
+		{
+			return LookupValuesList.EMPTY;
+		}
+
+		// NOTE: we assume all contexts were created the same way, so they are evaluating to the same SQL
+		final LookupDataSourceContext firstEvalCtx = evalCtxs.iterator().next();
+		final String sqlDisplayName = sqlForFetchingDisplayNameByKeyColumnExpression.evaluate(firstEvalCtx, OnVariableNotFound.Fail);
+		final String adLanguage = firstEvalCtx.getAD_Language();
+
+		final List<Object> ids = new ArrayList<>(evalCtxs.size());
+		for (final LookupDataSourceContext evalCtx : evalCtxs)
+		{
+			final Object id = evalCtx.getIdToFilter();
+			if (id == null)
+			{
+				throw new IllegalStateException("No ID provided in " + evalCtx);
+			}
+			ids.add(id);
+		}
+
+		final List<LookupValue> lookupValues = new ArrayList<>(ids.size());
+		for (final List<Object> idsChunk : Iterables.partition(ids, RETRIEVE_BY_IDS_MaxIdsPerQuery))
+		{
+			retrieveLookupValuesByIds(sqlDisplayName, idsChunk, adLanguage, lookupValues::add);
+		}
+
+		return lookupValues.stream().collect(LookupValuesList.collect());
+	}
+
+	private void retrieveLookupValuesByIds(final String sqlDisplayName, final List<Object> ids, final String adLanguage, final Consumer<LookupValue> collector)
+	{
+		final StringBuilder sqlValues = new StringBuilder();
+		for (int i = 0; i < ids.size(); i++)
+		{
+			sqlValues.append(i == 0 ? "(?)" : ",(?)");
+		}
+
+		final String sql = "SELECT " + SQL_KeyColumnForFetchingByIds + ", (" + sqlDisplayName + ")"
+				+ "\n FROM (VALUES " + sqlValues + ") AS lookup_ids(id)";
+
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_ThreadInherited);
+			DB.setParameters(pstmt, ids);
+			rs = pstmt.executeQuery();
+			while (rs.next())
+			{
+				final String displayName = rs.getString(2);
+				if (displayName == null)
+				{
+					continue;
+				}
+
+				final Object id = numericKey ? (Object)rs.getInt(1) : rs.getString(1);
+				collector.accept(createLookupValue(id, displayName, adLanguage));
+			}
+		}
+		catch (final SQLException e)
+		{
+			throw new DBException(e, sql, ids);
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+	}
+
+	private LookupValue createLookupValue(final Object id, final String displayName, final String adLanguage)
+	{
 		final ITranslatableString displayNameTrl;
 		if(isTranslatable)
 		{
-			final String adLanguage = evalCtx.getAD_Language();
 			displayNameTrl = ImmutableTranslatableString.singleLanguage(adLanguage, displayName);
 		}
 		else
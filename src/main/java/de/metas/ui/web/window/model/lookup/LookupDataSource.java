@@ -1,5 +1,6 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -58,6 +59,13 @@ public interface LookupDataSource extends LookupValueByIdSupplier
 	@Override
 	LookupValue findById(Object id);
 
+	/**
+	 * Finds the lookup values for given IDs, in one go if possible.
+	 *
+	 * @return lookup values; the IDs which were not found are not included
+	 */
+	LookupValuesList findByIds(Collection<?> ids);
+
 	List<CCacheStats> getCacheStats();
 	
 	@Override
@@ -1,6 +1,8 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.adempiere.util.Check;
@@ -10,6 +12,7 @@ import org.compiere.util.CCache.CCacheStats;
 import org.compiere.util.Evaluatee;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
 
 import de.metas.ui.web.window.datatypes.LookupValue;
 import de.metas.ui.web.window.datatypes.LookupValuesList;
@@ -116,10 +119,7 @@ final class LookupDataSourceAdapter implements LookupDataSource
 
 		//
 		// Build the validation context
-		final LookupDataSourceContext evalCtx = fetcher.newContextForFetchingById(idNormalized)
-				.putFilterById(idNormalized)
-				.putShowInactive(true)
-				.build();
+		final LookupDataSourceContext evalCtx = createContextForFetchingById(idNormalized);
 
 		//
 		// Get the lookup value
@@ -131,6 +131,36 @@ final class LookupDataSourceAdapter implements LookupDataSource
 		return lookupValue;
 	}
 
+	@Override
+	public LookupValuesList findByIds(final Collection<?> ids)
+	{
+		if (ids.isEmpty())
+		{
+			return LookupValuesList.EMPTY;
+		}
+
+		final List<LookupDataSourceContext> evalCtxs = ids.stream()
+				.map(idObj -> LookupValue.normalizeId(idObj, fetcher.isNumericKey()))
+				.filter(Objects::nonNull)
+				.distinct()
+				.map(this::createContextForFetchingById)
+				.collect(ImmutableList.toImmutableList());
+		if (evalCtxs.isEmpty())
+		{
+			return LookupValuesList.EMPTY;
+		}
+
+		return fetcher.retrieveLookupValuesByIds(evalCtxs);
+	}
+
+	private LookupDataSourceContext createContextForFetchingById(final Object idNormalized)
+	{
+		return fetcher.newContextForFetchingById(idNormalized)
+				.putFilterById(idNormalized)
+				.putShowInactive(true)
+				.build();
+	}
+
 	static boolean isValidFilter(final String filter)
 	{
 		if (Check.isEmpty(filter, true))
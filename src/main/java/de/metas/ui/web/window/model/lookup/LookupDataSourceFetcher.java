@@ -1,5 +1,6 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -42,6 +43,22 @@ public interface LookupDataSourceFetcher
 
 	LookupValue retrieveLookupValueById(LookupDataSourceContext evalCtx);
 
+	/**
+	 * Retrieves the lookup values for given contexts, one context for each ID.
+	 * <p>
+	 * The default implementation fetches them one by one. Implementations which are able to fetch them in one go shall override it.
+	 *
+	 * @param evalCtxs contexts created by {@link #newContextForFetchingById(Object)}, one for each distinct ID
+	 * @return lookup values; the IDs which were not found are not included
+	 */
+	default LookupValuesList retrieveLookupValuesByIds(final Collection<LookupDataSourceContext> evalCtxs)
+	{
+		return evalCtxs.stream()
+				.map(this::retrieveLookupValueById)
+				.filter(lookupValue -> lookupValue != null && lookupValue != LOOKUPVALUE_NULL)
+				.collect(LookupValuesList.collect());
+	}
+
 	LookupDataSourceContext.Builder newContextForFetchingList();
 
 	LookupValuesList retrieveEntities(LookupDataSourceContext evalCtx);
@@ -46,6 +46,14 @@ public final class LookupValueFilterPredicates
 		return new ContainsLookupValueFilterPredicate(filterNorm);
 	}
 
+	/**
+	 * Normalizes given string (e.g. lookup value display name, filter) for matching.
+	 */
+	/* package */ static final String normalizeString(final String str)
+	{
+		return str.toLowerCase();
+	}
+
 	public static interface LookupValueFilterPredicate extends Predicate<LookupValue>
 	{
 		@Override
@@ -93,11 +101,6 @@ public final class LookupValueFilterPredicates
 					.toString();
 		}
 
-		private static final String normalizeString(final String str)
-		{
-			return str.toLowerCase();
-		}
-
 		@Override
 		public boolean test(final LookupValue lookupValue)
 		{
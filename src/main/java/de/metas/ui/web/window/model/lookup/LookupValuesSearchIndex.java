@@ -0,0 +1,203 @@
+package de.metas.ui.web.window.model.lookup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+
+import de.metas.ui.web.window.datatypes.LookupValue;
+import de.metas.ui.web.window.datatypes.LookupValuesList;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Search index for a {@link LookupValuesList}, used to answer "display name contains" queries without scanning and normalizing all display names on each request.
+ * <p>
+ * The display names are normalized and the trigrams index is built when the index is created, i.e. when the partition is loaded, so the first search is not paying for it.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+final class LookupValuesSearchIndex
+{
+	public static final LookupValuesSearchIndex of(final LookupValuesList lookupValues)
+	{
+		return new LookupValuesSearchIndex(lookupValues);
+	}
+
+	private static final int NGRAM_SIZE = 3;
+
+	private final LookupValuesList lookupValues;
+	private final LookupValue[] values;
+	/** normalized display names, having the same indexes as {@link #values}; an element is null if the lookup value has no display name */
+	private final String[] displayNamesNormalized;
+	/** trigram to ordered list of {@link #values} indexes */
+	private final ImmutableMap<String, int[]> trigramsIndex;
+
+	private LookupValuesSearchIndex(@NonNull final LookupValuesList lookupValues)
+	{
+		this.lookupValues = lookupValues;
+		values = lookupValues.getValues().toArray(new LookupValue[0]);
+
+		displayNamesNormalized = new String[values.length];
+		for (int i = 0; i < values.length; i++)
+		{
+			final String displayName = values[i].getDisplayName();
+			displayNamesNormalized[i] = displayName == null ? null : LookupValueFilterPredicates.normalizeString(displayName);
+		}
+
+		trigramsIndex = buildTrigramsIndex(displayNamesNormalized);
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("size", values.length)
+				.add("trigrams", trigramsIndex.size())
+				.toString();
+	}
+
+	public LookupValuesList getLookupValues()
+	{
+		return lookupValues;
+	}
+
+	/**
+	 * Finds the lookup values whose display name contains given filter (ignoring case), skipping first <code>offset</code> matches and returning maximum <code>maxSize</code> matches.
+	 */
+	public LookupValuesList findEntities(@NonNull final String filter, final int offset, final int maxSize)
+	{
+		final String filterNormalized = LookupValueFilterPredicates.normalizeString(filter.trim());
+		final int offsetEffective = offset <= 0 ? 0 : offset;
+		final int maxSizeEffective = maxSize <= 0 ? Integer.MAX_VALUE : maxSize;
+
+		final List<LookupValue> result = new ArrayList<>(Math.min(maxSizeEffective, 100));
+		int skipped = 0;
+
+		final int[] candidateIndexes = getCandidateIndexes(filterNormalized);
+		final int candidatesCount = candidateIndexes != null ? candidateIndexes.length : values.length;
+		for (int i = 0; i < candidatesCount && result.size() < maxSizeEffective; i++)
+		{
+			final int valueIndex = candidateIndexes != null ? candidateIndexes[i] : i;
+			final String displayNameNormalized = displayNamesNormalized[valueIndex];
+			if (displayNameNormalized == null || displayNameNormalized.indexOf(filterNormalized) < 0)
+			{
+				continue;
+			}
+
+			if (skipped < offsetEffective)
+			{
+				skipped++;
+				continue;
+			}
+
+			result.add(values[valueIndex]);
+		}
+
+		return result.stream().collect(LookupValuesList.collect(lookupValues.getDebugProperties()));
+	}
+
+	/**
+	 * @return the ordered indexes of the values which might match given filter or <code>null</code> if all values shall be checked
+	 */
+	private int[] getCandidateIndexes(final String filterNormalized)
+	{
+		if (filterNormalized.length() < NGRAM_SIZE)
+		{
+			return null;
+		}
+
+		// Pick the trigram with the smallest list of values
+		int[] candidateIndexes = null;
+		for (int i = 0; i <= filterNormalized.length() - NGRAM_SIZE; i++)
+		{
+			final int[] trigramIndexes = trigramsIndex.get(filterNormalized.substring(i, i + NGRAM_SIZE));
+			if (trigramIndexes == null)
+			{
+				return new int[0]; // no value contains this trigram
+			}
+
+			if (candidateIndexes == null || trigramIndexes.length < candidateIndexes.length)
+			{
+				candidateIndexes = trigramIndexes;
+			}
+		}
+
+		return candidateIndexes;
+	}
+
+	private static ImmutableMap<String, int[]> buildTrigramsIndex(final String[] displayNamesNormalized)
+	{
+		final Map<String, IndexesBuilder> indexesByTrigram = new HashMap<>();
+		for (int valueIndex = 0; valueIndex < displayNamesNormalized.length; valueIndex++)
+		{
+			final String displayNameNormalized = displayNamesNormalized[valueIndex];
+			if (displayNameNormalized == null)
+			{
+				continue;
+			}
+
+			for (int i = 0; i <= displayNameNormalized.length() - NGRAM_SIZE; i++)
+			{
+				final String trigram = displayNameNormalized.substring(i, i + NGRAM_SIZE);
+				indexesByTrigram.computeIfAbsent(trigram, k -> new IndexesBuilder()).add(valueIndex);
+			}
+		}
+
+		final ImmutableMap.Builder<String, int[]> trigramsIndex = ImmutableMap.builder();
+		indexesByTrigram.forEach((trigram, indexes) -> trigramsIndex.put(trigram, indexes.build()));
+		return trigramsIndex.build();
+	}
+
+	/** Collects ascending, distinct indexes */
+	private static final class IndexesBuilder
+	{
+		private int[] indexes = new int[4];
+		private int size = 0;
+
+		public void add(final int index)
+		{
+			if (size > 0 && indexes[size - 1] == index)
+			{
+				return; // same trigram found twice in the same display name
+			}
+
+			if (size == indexes.length)
+			{
+				indexes = Arrays.copyOf(indexes, size * 2);
+			}
+			indexes[size++] = index;
+		}
+
+		public int[] build()
+		{
+			return Arrays.copyOf(indexes, size);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package de.metas.ui.web.window.model.lookup;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -82,6 +83,12 @@ public final class NullLookupDataSource implements LookupDataSource
 		}
 	}
 
+	@Override
+	public LookupValuesList findByIds(final Collection<?> ids)
+	{
+		return LookupValuesList.EMPTY;
+	}
+
 	@Override
 	public List<CCacheStats> getCacheStats()
 	{
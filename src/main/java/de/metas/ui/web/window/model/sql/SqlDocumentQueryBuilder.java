@@ -256,6 +256,23 @@ public class SqlDocumentQueryBuilder
 		return sql.toString();
 	}
 
+	/**
+	 * @return SQL to count the documents matched by this query, ignoring paging.
+	 */
+	public String getSqlCount(final List<Object> outSqlParams)
+	{
+		final StringBuilder sql = new StringBuilder("SELECT COUNT(1)")
+				.append(" FROM " + entityBinding.getTableName() + " " + entityBinding.getTableAlias());
+
+		String sqlWhere = getSqlWhere(outSqlParams);
+		if (!Check.isEmpty(sqlWhere, true))
+		{
+			sql.append(" WHERE ").append(sqlWhere);
+		}
+
+		return sql.toString();
+	}
+
 	/**
 	 * @return SQL to fully load the documents matched by this query.
 	 */
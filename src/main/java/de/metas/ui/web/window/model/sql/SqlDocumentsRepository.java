@@ -5,8 +5,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
@@ -27,6 +29,7 @@ import org.compiere.util.TimeUtil;
 import org.slf4j.Logger;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
 
 import de.metas.logging.LogManager;
 import de.metas.ui.web.exceptions.EntityNotFoundException;
@@ -45,6 +48,7 @@ import de.metas.ui.web.window.descriptor.DocumentEntityDescriptor;
 import de.metas.ui.web.window.descriptor.DocumentFieldDataBindingDescriptor;
 import de.metas.ui.web.window.descriptor.DocumentFieldDescriptor;
 import de.metas.ui.web.window.descriptor.DocumentFieldWidgetType;
+import de.metas.ui.web.window.descriptor.LookupDescriptorProvider.LookupScope;
 import de.metas.ui.web.window.descriptor.sql.DocumentFieldValueLoader;
 import de.metas.ui.web.window.descriptor.sql.SqlDocumentEntityDataBindingDescriptor;
 import de.metas.ui.web.window.descriptor.sql.SqlDocumentFieldDataBindingDescriptor;
@@ -56,6 +60,7 @@ import de.metas.ui.web.window.model.DocumentsRepository;
 import de.metas.ui.web.window.model.IDocumentChangesCollector;
 import de.metas.ui.web.window.model.IDocumentFieldView;
 import de.metas.ui.web.window.model.OrderedDocumentsList;
+import de.metas.ui.web.window.model.lookup.LookupDataSource;
 
 /*
  * #%L
@@ -174,7 +179,7 @@ public final class SqlDocumentsRepository implements DocumentsRepository
 			maxRowsToFetch = loadLimitMax;
 		}
 
-		final OrderedDocumentsList documentsCollector = OrderedDocumentsList.newEmpty(query.getOrderBys());
+		final List<DocumentValuesSnapshot> documentValuesSuppliers = new ArrayList<>();
 		PreparedStatement pstmt = null;
 		ResultSet rs = null;
 		try
@@ -191,23 +196,9 @@ public final class SqlDocumentsRepository implements DocumentsRepository
 			while (rs.next())
 			{
 				final ResultSetDocumentValuesSupplier documentValuesSupplier = new ResultSetDocumentValuesSupplier(entityDescriptor, adLanguage, rs);
+				documentValuesSuppliers.add(DocumentValuesSnapshot.of(entityDescriptor, documentValuesSupplier));
 
-				Document document = null;
-				if (existingDocumentsSupplier != null)
-				{
-					final DocumentId documentId = documentValuesSupplier.getDocumentId();
-					document = existingDocumentsSupplier.apply(documentId);
-				}
-				if (document == null)
-				{
-					document = Document.builder(entityDescriptor)
-							.setParentDocument(parentDocument)
-							.setChangesCollector(changesCollector)
-							.initializeAsExistingRecord(documentValuesSupplier);
-				}
-				documentsCollector.addDocument(document);
-
-				final int loadCount = documentsCollector.size();
+				final int loadCount = documentValuesSuppliers.size();
 
 				// Stop if we reached the limit
 				if (limit > 0 && loadCount >= limit)
@@ -239,10 +230,73 @@ public final class SqlDocumentsRepository implements DocumentsRepository
 			DB.close(rs, pstmt);
 		}
 
+		//
+		// Fetch in one go the lookup values which were not already fetched by SQL, for all records
+		prefetchLookupValues(entityDescriptor, documentValuesSuppliers);
+
+		//
+		// Create the documents
+		final OrderedDocumentsList documentsCollector = OrderedDocumentsList.newEmpty(query.getOrderBys());
+		for (final DocumentValuesSnapshot documentValuesSupplier : documentValuesSuppliers)
+		{
+			Document document = null;
+			if (existingDocumentsSupplier != null)
+			{
+				final DocumentId documentId = documentValuesSupplier.getDocumentId();
+				document = existingDocumentsSupplier.apply(documentId);
+			}
+			if (document == null)
+			{
+				document = Document.builder(entityDescriptor)
+						.setParentDocument(parentDocument)
+						.setChangesCollector(changesCollector)
+						.initializeAsExistingRecord(documentValuesSupplier);
+			}
+			documentsCollector.addDocument(document);
+		}
+
 		logger.debug("Retrieved {} records.", documentsCollector.size());
 		return documentsCollector;
 	}
 
+	/**
+	 * Fetches, in one go, the lookup values of those fields which are not fetching their display names by SQL.
+	 * Those lookup values are put in lookup's cache, so when the documents are initialized they won't be fetched one by one.
+	 */
+	private static void prefetchLookupValues(final DocumentEntityDescriptor entityDescriptor, final List<? extends DocumentValuesSupplier> documentValuesSuppliers)
+	{
+		if (documentValuesSuppliers.size() <= 1)
+		{
+			return;
+		}
+
+		for (final DocumentFieldDescriptor fieldDescriptor : entityDescriptor.getFields())
+		{
+			final SqlDocumentFieldDataBindingDescriptor fieldDataBinding = SqlDocumentFieldDataBindingDescriptor.castOrNull(fieldDescriptor.getDataBinding());
+			if (fieldDataBinding == null || fieldDataBinding.isUsingDisplayColumn())
+			{
+				continue;
+			}
+
+			final LookupDataSource lookupDataSource = fieldDescriptor.createLookupDataSource(LookupScope.DocumentField);
+			if (lookupDataSource == null)
+			{
+				continue;
+			}
+
+			final Set<Object> ids = documentValuesSuppliers.stream()
+					.map(documentValuesSupplier -> documentValuesSupplier.getValue(fieldDescriptor))
+					.filter(value -> value instanceof Number || value instanceof String)
+					.collect(ImmutableSet.toImmutableSet());
+			if (ids.size() <= 1)
+			{
+				continue;
+			}
+
+			lookupDataSource.findByIds(ids);
+		}
+	}
+
 	@Override
 	public Document retrieveDocument(final DocumentQuery query, final IDocumentChangesCollector changesCollector)
 	{
@@ -307,6 +361,62 @@ public final class SqlDocumentsRepository implements DocumentsRepository
 		Object getValue(final DocumentFieldDescriptor fieldDescriptor);
 	}
 
+	/**
+	 * {@link DocumentValuesSupplier} which holds all field values of a given supplier, so it can be used after the underlying {@link ResultSet} was closed.
+	 */
+	private static final class DocumentValuesSnapshot implements DocumentValuesSupplier
+	{
+		public static DocumentValuesSnapshot of(final DocumentEntityDescriptor entityDescriptor, final DocumentValuesSupplier documentValuesSupplier)
+		{
+			return new DocumentValuesSnapshot(entityDescriptor, documentValuesSupplier);
+		}
+
+		private final DocumentId documentId;
+		private final String version;
+		private final Map<String, Object> valuesByFieldName; // NOTE: values might be null
+
+		private DocumentValuesSnapshot(final DocumentEntityDescriptor entityDescriptor, final DocumentValuesSupplier documentValuesSupplier)
+		{
+			documentId = documentValuesSupplier.getDocumentId();
+			version = documentValuesSupplier.getVersion();
+
+			final Map<String, Object> valuesByFieldName = new HashMap<>();
+			for (final DocumentFieldDescriptor fieldDescriptor : entityDescriptor.getFields())
+			{
+				final Object value = documentValuesSupplier.getValue(fieldDescriptor);
+				if (value == NO_VALUE)
+				{
+					continue;
+				}
+				valuesByFieldName.put(fieldDescriptor.getFieldName(), value);
+			}
+			this.valuesByFieldName = valuesByFieldName;
+		}
+
+		@Override
+		public DocumentId getDocumentId()
+		{
+			return documentId;
+		}
+
+		@Override
+		public String getVersion()
+		{
+			return version;
+		}
+
+		@Override
+		public Object getValue(final DocumentFieldDescriptor fieldDescriptor)
+		{
+			final String fieldName = fieldDescriptor.getFieldName();
+			if (!valuesByFieldName.containsKey(fieldName))
+			{
+				return NO_VALUE;
+			}
+			return valuesByFieldName.get(fieldName);
+		}
+	}
+
 	private static final class ResultSetDocumentValuesSupplier implements DocumentValuesSupplier
 	{
 		private static final AtomicInteger _nextMissingId = new AtomicInteger(-10000);
@@ -860,4 +970,19 @@ public final class SqlDocumentsRepository implements DocumentsRepository
 
 		return DB.getSQLValueEx(ITrx.TRXNAME_ThreadInherited, sql, sqlParams);
 	}
+
+	@Override
+	public int retrieveCount(final DocumentQuery query)
+	{
+		logger.debug("Retrieving records count: query={}", query);
+
+		final DocumentEntityDescriptor entityDescriptor = query.getEntityDescriptor();
+		assertThisRepository(entityDescriptor);
+
+		final List<Object> sqlParams = new ArrayList<>();
+		final SqlDocumentQueryBuilder sqlBuilder = SqlDocumentQueryBuilder.of(query);
+		final String sql = sqlBuilder.getSqlCount(sqlParams);
+
+		return DB.getSQLValueEx(ITrx.TRXNAME_ThreadInherited, sql, sqlParams);
+	}
 }
@@ -0,0 +1,144 @@
+package de.metas.ui.web.handlingunits;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.ui.web.exceptions.EntityNotFoundException;
+import de.metas.ui.web.window.datatypes.WindowId;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class HUEditorViewBuffer_FullyCachedTest
+{
+	private static final WindowId WINDOW_ID = WindowId.of(540189);
+
+	/** HU IDs for which the rows were retrieved, one entry for each retrieval */
+	private final List<Set<Integer>> retrievedHUIds = new ArrayList<>();
+	private HUEditorViewRepository huEditorRepo;
+
+	@Before
+	public void init()
+	{
+		huEditorRepo = Mockito.mock(HUEditorViewRepository.class);
+		Mockito.when(huEditorRepo.retrieveHUEditorRows(Mockito.any())).thenAnswer(invocation -> {
+			@SuppressWarnings("unchecked")
+			final Set<Integer> huIds = (Set<Integer>)invocation.getArguments()[0];
+			retrievedHUIds.add(ImmutableSet.copyOf(huIds));
+			return huIds.stream()
+					.sorted()
+					.map(HUEditorViewBuffer_FullyCachedTest::createRow)
+					.collect(ImmutableList.toImmutableList());
+		});
+	}
+
+	private static HUEditorRow createRow(final int huId)
+	{
+		return HUEditorRow.builder(WINDOW_ID)
+				.setRowId(HUEditorRow.rowIdFromM_HU_ID(huId))
+				.setType(HUEditorRowType.LU)
+				.setTopLevel(true)
+				.setHUId(huId)
+				.build();
+	}
+
+	private HUEditorViewBuffer_FullyCached createBuffer(final Integer... huIds)
+	{
+		return new HUEditorViewBuffer_FullyCached(WINDOW_ID, huEditorRepo, ImmutableSet.copyOf(huIds), ImmutableList.of());
+	}
+
+	private static Set<Integer> streamHUIds(final HUEditorViewBuffer buffer)
+	{
+		return buffer.streamAllRecursive()
+				.map(HUEditorRow::getM_HU_ID)
+				.collect(ImmutableSet.toImmutableSet());
+	}
+
+	@Test
+	public void test_addHUIds_RetrievesOnlyTheAddedHUs()
+	{
+		final HUEditorViewBuffer_FullyCached buffer = createBuffer(1, 2);
+		Assert.assertEquals(2, buffer.size());
+
+		Assert.assertTrue(buffer.addHUIds(ImmutableSet.of(2, 3)));
+
+		Assert.assertEquals(ImmutableSet.of(1, 2, 3), streamHUIds(buffer));
+		Assert.assertEquals(ImmutableList.of(ImmutableSet.of(1, 2), ImmutableSet.of(3)), retrievedHUIds);
+	}
+
+	@Test
+	public void test_addHUIds_AlreadyContainedHUs()
+	{
+		final HUEditorViewBuffer_FullyCached buffer = createBuffer(1, 2);
+		Assert.assertEquals(2, buffer.size());
+
+		Assert.assertFalse(buffer.addHUIds(ImmutableSet.of(1, 2)));
+
+		Assert.assertEquals(ImmutableList.of(ImmutableSet.of(1, 2)), retrievedHUIds);
+	}
+
+	@Test
+	public void test_addHUIds_RowsNotLoadedYet()
+	{
+		final HUEditorViewBuffer_FullyCached buffer = createBuffer(1, 2);
+
+		Assert.assertTrue(buffer.addHUIds(ImmutableSet.of(3)));
+		Assert.assertTrue("Nothing shall be retrieved until the rows are needed", retrievedHUIds.isEmpty());
+
+		Assert.assertEquals(ImmutableSet.of(1, 2, 3), streamHUIds(buffer));
+		Assert.assertEquals(ImmutableList.of(ImmutableSet.of(1, 2, 3)), retrievedHUIds);
+	}
+
+	@Test
+	public void test_removeHUIds_DoesNotRetrieveTheRowsAgain()
+	{
+		final HUEditorViewBuffer_FullyCached buffer = createBuffer(1, 2, 3);
+		Assert.assertEquals(3, buffer.size());
+
+		Assert.assertTrue(buffer.removeHUIds(ImmutableSet.of(2)));
+		Assert.assertFalse(buffer.removeHUIds(ImmutableSet.of(2)));
+
+		Assert.assertEquals(ImmutableSet.of(1, 3), streamHUIds(buffer));
+		Assert.assertEquals(ImmutableList.of(ImmutableSet.of(1, 2, 3)), retrievedHUIds);
+		Assert.assertFalse(buffer.containsAnyOfHUIds(ImmutableSet.of(2)));
+	}
+
+	@Test(expected = EntityNotFoundException.class)
+	public void test_removeHUIds_RemovedRowIsNotFound()
+	{
+		final HUEditorViewBuffer_FullyCached buffer = createBuffer(1, 2);
+		buffer.size();
+
+		buffer.removeHUIds(ImmutableSet.of(2));
+
+		buffer.getById(HUEditorRow.rowIdFromM_HU_ID(2));
+	}
+}
@@ -0,0 +1,126 @@
+package de.metas.ui.web.process;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.compiere.util.Env;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import de.metas.ui.web.process.json.JSONProcessInstanceResult;
+import de.metas.ui.web.process.json.JSONProcessInstanceStatus;
+import de.metas.ui.web.window.MockedRequestAttributes;
+import de.metas.ui.web.window.datatypes.DocumentId;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ProcessAsyncExecutorTest
+{
+	private static final ProcessId PROCESS_ID = ProcessId.ofAD_Process_ID(540001);
+	private static final int AD_USER_ID = 100;
+
+	private ProcessAsyncExecutor executor;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		// NOTE: one thread, so we can check that a thread which is reused is not keeping the previous request attributes
+		executor = new ProcessAsyncExecutor(1, 10, 60);
+	}
+
+	@After
+	public void cleanup()
+	{
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	private JSONProcessInstanceStatus waitUntilFinished(final DocumentId pinstanceId) throws InterruptedException
+	{
+		final long timeoutMillis = System.currentTimeMillis() + 10000;
+		while (System.currentTimeMillis() < timeoutMillis)
+		{
+			final JSONProcessInstanceStatus status = executor.getStatus(PROCESS_ID, pinstanceId, AD_USER_ID);
+			if (status.isFinished())
+			{
+				return status;
+			}
+			Thread.sleep(10);
+		}
+
+		throw new AssertionError("Process instance " + pinstanceId + " did not finish in time");
+	}
+
+	private static JSONProcessInstanceResult createResult(final DocumentId pinstanceId)
+	{
+		return JSONProcessInstanceResult.of(ProcessInstanceResult.builder(pinstanceId).build());
+	}
+
+	@Test
+	public void test_ProcessIsExecutedUsingCallersContextAndRequestAttributes() throws Exception
+	{
+		final RequestAttributes requestAttributes = new MockedRequestAttributes();
+		RequestContextHolder.setRequestAttributes(requestAttributes);
+		Env.setContext(Env.getCtx(), "#AD_User_ID", AD_USER_ID);
+
+		final AtomicReference<RequestAttributes> requestAttributesInProcess = new AtomicReference<>();
+		final AtomicInteger adUserIdInProcess = new AtomicInteger(-1);
+		final DocumentId pinstanceId = DocumentId.of(1);
+		executor.submit(PROCESS_ID, pinstanceId, AD_USER_ID, () -> {
+			requestAttributesInProcess.set(RequestContextHolder.getRequestAttributes());
+			adUserIdInProcess.set(Env.getAD_User_ID(Env.getCtx()));
+			return createResult(pinstanceId);
+		});
+
+		final JSONProcessInstanceStatus status = waitUntilFinished(pinstanceId);
+		Assert.assertEquals(JSONProcessInstanceStatus.Status.done, status.getStatus());
+		Assert.assertSame(requestAttributes, requestAttributesInProcess.get());
+		Assert.assertEquals(AD_USER_ID, adUserIdInProcess.get());
+	}
+
+	@Test
+	public void test_RequestAttributesAreNotKeptOnTheWorkerThread() throws Exception
+	{
+		RequestContextHolder.setRequestAttributes(new MockedRequestAttributes());
+		final DocumentId pinstanceId1 = DocumentId.of(1);
+		executor.submit(PROCESS_ID, pinstanceId1, AD_USER_ID, () -> createResult(pinstanceId1));
+		waitUntilFinished(pinstanceId1);
+
+		RequestContextHolder.resetRequestAttributes();
+		final AtomicReference<RequestAttributes> requestAttributesInProcess = new AtomicReference<>(new MockedRequestAttributes());
+		final DocumentId pinstanceId2 = DocumentId.of(2);
+		executor.submit(PROCESS_ID, pinstanceId2, AD_USER_ID, () -> {
+			requestAttributesInProcess.set(RequestContextHolder.getRequestAttributes());
+			return createResult(pinstanceId2);
+		});
+		waitUntilFinished(pinstanceId2);
+
+		Assert.assertNull(requestAttributesInProcess.get());
+	}
+}
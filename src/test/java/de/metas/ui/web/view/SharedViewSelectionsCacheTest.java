@@ -0,0 +1,221 @@
+package de.metas.ui.web.view;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.adempiere.ad.security.UserRolePermissionsKey;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.ui.web.view.SharedViewSelectionsCache.SharedSelectionKey;
+import de.metas.ui.web.window.datatypes.WindowId;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class SharedViewSelectionsCacheTest
+{
+	private static final WindowId WINDOW_ID = WindowId.of(123);
+	private static final String TABLE_NAME = "C_Order";
+	private static final int CLIENT_ID = 1000000;
+	private static final int USER_ID = 100;
+	private static final Timestamp DATE = Timestamp.valueOf("2017-10-01 00:00:00");
+
+	private final List<String> deletedSelectionIds = new ArrayList<>();
+	private final AtomicInteger createdSelectionsCount = new AtomicInteger();
+	private SharedViewSelectionsCache cache;
+
+	@Before
+	public void init()
+	{
+		final ViewSelectionsReclaimer viewSelectionsReclaimer = new ViewSelectionsReclaimer(100, 5000, false)
+		{
+			@Override
+			public void scheduleDelete(final Collection<String> selectionIds)
+			{
+				deletedSelectionIds.addAll(selectionIds);
+			}
+		};
+
+		cache = new SharedViewSelectionsCache(viewSelectionsReclaimer, true, 60);
+	}
+
+	private static SharedSelectionKey createKey(final int adRoleId)
+	{
+		return createKey(adRoleId, USER_ID, ImmutableMap.of());
+	}
+
+	private static SharedSelectionKey createKey(final int adRoleId, final int adUserId, final ImmutableMap<String, String> sqlContextValues)
+	{
+		return SharedSelectionKey.builder()
+				.tableName(TABLE_NAME)
+				.windowId(WINDOW_ID)
+				.filters(ImmutableList.of())
+				.orderBys(ImmutableList.of())
+				.permissionsKey(UserRolePermissionsKey.of(adRoleId, adUserId, CLIENT_ID, DATE))
+				.sqlContextValues(sqlContextValues)
+				.adLanguage("en_US")
+				.build();
+	}
+
+	private String getOrCreate(final SharedSelectionKey key)
+	{
+		return cache.getOrCreate(key, () -> {
+			createdSelectionsCount.incrementAndGet();
+			return ViewRowIdsOrderedSelection.builder()
+					.setViewId(ViewId.random(WINDOW_ID))
+					.setSize(10)
+					.build();
+		})
+				.getSelectionId();
+	}
+
+	@Test
+	public void test_SameKey_SharesTheSelection()
+	{
+		final String selectionId1 = getOrCreate(createKey(1));
+		final String selectionId2 = getOrCreate(createKey(1));
+
+		Assert.assertEquals(selectionId1, selectionId2);
+		Assert.assertEquals(1, createdSelectionsCount.get());
+		Assert.assertTrue(cache.isReusable(selectionId1));
+	}
+
+	@Test
+	public void test_DifferentRoles_DoNotShareTheSelection()
+	{
+		final String selectionId1 = getOrCreate(createKey(1));
+		final String selectionId2 = getOrCreate(createKey(2));
+
+		Assert.assertNotEquals(selectionId1, selectionId2);
+		Assert.assertEquals(2, createdSelectionsCount.get());
+	}
+
+	@Test
+	public void test_DifferentUsersWithSameRole_DoNotShareTheSelection()
+	{
+		// NOTE: users having the same role could have different organization access, so the access SQL is different
+		final int adRoleId = 1;
+		final String selectionId1 = getOrCreate(createKey(adRoleId, 100, ImmutableMap.of()));
+		final String selectionId2 = getOrCreate(createKey(adRoleId, 101, ImmutableMap.of()));
+
+		Assert.assertNotEquals(selectionId1, selectionId2);
+		Assert.assertEquals(2, createdSelectionsCount.get());
+	}
+
+	@Test
+	public void test_DifferentSqlContextValues_DoNotShareTheSelection()
+	{
+		final String selectionId1 = getOrCreate(createKey(1, USER_ID, ImmutableMap.of("#AD_Org_ID", "1000000")));
+		final String selectionId2 = getOrCreate(createKey(1, USER_ID, ImmutableMap.of("#AD_Org_ID", "1000001")));
+		final String selectionId3 = getOrCreate(createKey(1, USER_ID, ImmutableMap.of("#AD_Org_ID", "1000000")));
+
+		Assert.assertNotEquals(selectionId1, selectionId2);
+		Assert.assertEquals(selectionId1, selectionId3);
+		Assert.assertEquals(2, createdSelectionsCount.get());
+	}
+
+	@Test
+	public void test_Release_ReusableSelectionIsKeptEvenIfNotUsed()
+	{
+		final String selectionId = getOrCreate(createKey(1));
+		getOrCreate(createKey(1));
+
+		cache.release(ImmutableList.of(selectionId));
+		cache.release(ImmutableList.of(selectionId));
+
+		Assert.assertEquals(ImmutableList.of(), deletedSelectionIds);
+		Assert.assertTrue(cache.isReusable(selectionId));
+	}
+
+	@Test
+	public void test_Retire_NotUsedSelectionIsDeleted()
+	{
+		final String selectionId = getOrCreate(createKey(1));
+		cache.release(ImmutableList.of(selectionId));
+
+		cache.invalidateByTableNames(ImmutableSet.of(TABLE_NAME));
+
+		Assert.assertEquals(ImmutableList.of(selectionId), deletedSelectionIds);
+		Assert.assertFalse(cache.isReusable(selectionId));
+	}
+
+	@Test
+	public void test_Retire_UsedSelectionIsDeletedWhenLastViewReleasesIt()
+	{
+		final String selectionId = getOrCreate(createKey(1));
+		getOrCreate(createKey(1));
+
+		cache.invalidateByTableNames(ImmutableSet.of(TABLE_NAME));
+		Assert.assertFalse(cache.isReusable(selectionId));
+		Assert.assertEquals(ImmutableList.of(), deletedSelectionIds);
+
+		cache.release(ImmutableList.of(selectionId));
+		Assert.assertEquals(ImmutableList.of(), deletedSelectionIds);
+
+		cache.release(ImmutableList.of(selectionId));
+		Assert.assertEquals(ImmutableList.of(selectionId), deletedSelectionIds);
+
+		// a retired selection is never reused
+		final String selectionIdNew = getOrCreate(createKey(1));
+		Assert.assertNotEquals(selectionId, selectionIdNew);
+		Assert.assertEquals(2, createdSelectionsCount.get());
+	}
+
+	@Test
+	public void test_Retire_OtherTablesAreNotAffected()
+	{
+		final String selectionId = getOrCreate(createKey(1));
+
+		cache.invalidateByTableNames(ImmutableSet.of("C_Invoice"));
+
+		Assert.assertTrue(cache.isReusable(selectionId));
+	}
+
+	@Test
+	public void test_Release_NotSharedSelectionIsDeleted()
+	{
+		cache.release(ImmutableList.of("notSharedSelectionId"));
+
+		Assert.assertEquals(ImmutableList.of("notSharedSelectionId"), deletedSelectionIds);
+	}
+
+	@Test
+	public void test_Disabled_SelectionsAreNotShared()
+	{
+		cache = new SharedViewSelectionsCache(new ViewSelectionsReclaimer(100, 5000, false), false, 60);
+
+		final String selectionId1 = getOrCreate(createKey(1));
+		final String selectionId2 = getOrCreate(createKey(1));
+
+		Assert.assertNotEquals(selectionId1, selectionId2);
+		Assert.assertFalse(cache.isReusable(selectionId1));
+	}
+}
@@ -0,0 +1,76 @@
+package de.metas.ui.web.view;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ViewExporterTest
+{
+	private static String toCSVLine(final String... values) throws IOException
+	{
+		final StringWriter writer = new StringWriter();
+		ViewExporter.writeCSVLine(writer, Arrays.asList(values));
+		return writer.toString();
+	}
+
+	@Test
+	public void test_writeCSVLine_PlainValues() throws IOException
+	{
+		Assert.assertEquals("a,b,123\r\n", toCSVLine("a", "b", "123"));
+	}
+
+	@Test
+	public void test_writeCSVLine_NullAndEmptyValues() throws IOException
+	{
+		Assert.assertEquals(",,x,\r\n", toCSVLine(null, "", "x", null));
+	}
+
+	@Test
+	public void test_writeCSVLine_ValueWithSeparator() throws IOException
+	{
+		Assert.assertEquals("\"a,b\",c\r\n", toCSVLine("a,b", "c"));
+	}
+
+	@Test
+	public void test_writeCSVLine_ValueWithQuotes() throws IOException
+	{
+		Assert.assertEquals("\"say \"\"hello\"\"\"\r\n", toCSVLine("say \"hello\""));
+	}
+
+	@Test
+	public void test_writeCSVLine_ValueWithLineBreaks() throws IOException
+	{
+		Assert.assertEquals("\"line1\nline2\",\"a\rb\"\r\n", toCSVLine("line1\nline2", "a\rb"));
+	}
+
+	@Test
+	public void test_writeCSVLine_ValueWithSpacesIsNotQuoted() throws IOException
+	{
+		Assert.assertEquals(" a b ;c\r\n", toCSVLine(" a b ;c"));
+	}
+}
@@ -0,0 +1,122 @@
+package de.metas.ui.web.view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.metas.ui.web.window.datatypes.WindowId;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ViewPageCacheTest
+{
+	private static final WindowId WINDOW_ID = WindowId.of(123);
+
+	private final AtomicInteger loadedPagesCount = new AtomicInteger();
+
+	private final ViewPageCache.PageLoader loader = (orderedSelection, firstRow, pageLength) -> {
+		loadedPagesCount.incrementAndGet();
+		return new ArrayList<>();
+	};
+
+	private static ViewRowIdsOrderedSelection createSelection()
+	{
+		return ViewRowIdsOrderedSelection.builder()
+				.setViewId(ViewId.random(WINDOW_ID))
+				.setSize(100)
+				.build();
+	}
+
+	@Test
+	public void test_SamePage_IsLoadedOnce()
+	{
+		final ViewPageCache cache = new ViewPageCache(5, 0, false);
+		final ViewRowIdsOrderedSelection selection = createSelection();
+
+		final List<IViewRow> page1 = cache.getPage(selection, 0, 10, loader);
+		final List<IViewRow> page2 = cache.getPage(selection, 0, 10, loader);
+
+		Assert.assertSame(page1, page2);
+		Assert.assertEquals(1, loadedPagesCount.get());
+		Assert.assertEquals(1, cache.getStats().getHitCount());
+	}
+
+	@Test
+	public void test_InvalidateAll_PageIsLoadedAgain()
+	{
+		final ViewPageCache cache = new ViewPageCache(5, 0, false);
+		final ViewRowIdsOrderedSelection selection = createSelection();
+
+		final List<IViewRow> page1 = cache.getPage(selection, 0, 10, loader);
+		cache.invalidateAll();
+		final List<IViewRow> page2 = cache.getPage(selection, 0, 10, loader);
+
+		Assert.assertNotSame(page1, page2);
+		Assert.assertEquals(2, loadedPagesCount.get());
+		Assert.assertEquals(0, cache.getStats().getHitCount());
+	}
+
+	@Test
+	public void test_InvalidateAllWhileLoading_PageIsNotCached()
+	{
+		final ViewPageCache cache = new ViewPageCache(5, 0, false);
+		final ViewRowIdsOrderedSelection selection = createSelection();
+
+		// Simulate a change which is invalidating the cache while the page is loaded
+		cache.getPage(selection, 0, 10, (orderedSelection, firstRow, pageLength) -> {
+			cache.invalidateAll();
+			return loader.retrievePage(orderedSelection, firstRow, pageLength);
+		});
+		cache.getPage(selection, 0, 10, loader);
+
+		Assert.assertEquals(2, loadedPagesCount.get());
+	}
+
+	@Test
+	public void test_ExpireAfterWrite_PageIsLoadedAgain() throws InterruptedException
+	{
+		final ViewPageCache cache = new ViewPageCache(5, 1, false);
+		final ViewRowIdsOrderedSelection selection = createSelection();
+
+		cache.getPage(selection, 0, 10, loader);
+		Thread.sleep(1100);
+		cache.getPage(selection, 0, 10, loader);
+
+		Assert.assertEquals(2, loadedPagesCount.get());
+	}
+
+	@Test
+	public void test_CachingDisabled_PageIsAlwaysLoaded()
+	{
+		final ViewPageCache cache = new ViewPageCache(0, 0, false);
+		final ViewRowIdsOrderedSelection selection = createSelection();
+
+		cache.getPage(selection, 0, 10, loader);
+		cache.getPage(selection, 0, 10, loader);
+
+		Assert.assertEquals(2, loadedPagesCount.get());
+	}
+}
@@ -0,0 +1,182 @@
+package de.metas.ui.web.view.descriptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.adempiere.ad.expression.api.IStringExpression;
+import org.adempiere.ad.expression.api.impl.ConstantStringExpression;
+import org.adempiere.ad.security.IUserRolePermissions;
+import org.adempiere.ad.security.IUserRolePermissionsDAO;
+import org.adempiere.test.AdempiereTestHelper;
+import org.adempiere.util.Services;
+import org.compiere.util.Env;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.ui.web.document.filter.DocumentFilter;
+import de.metas.ui.web.document.filter.DocumentFilterParam;
+import de.metas.ui.web.view.ViewEvaluationCtx;
+import de.metas.ui.web.view.ViewId;
+import de.metas.ui.web.window.datatypes.DocumentIdsSelection;
+import de.metas.ui.web.window.datatypes.WindowId;
+import de.metas.ui.web.window.descriptor.sql.SqlEntityBinding;
+import de.metas.ui.web.window.descriptor.sql.SqlEntityFieldBinding;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class SqlViewSelectionQueryBuilderTest
+{
+	private static final SqlEntityBinding ENTITY_BINDING = new SqlEntityBinding()
+	{
+		@Override
+		public String getTableName()
+		{
+			return "C_Order";
+		}
+
+		@Override
+		public String getTableAlias()
+		{
+			return "master";
+		}
+
+		@Override
+		public String getKeyColumnName()
+		{
+			return "C_Order_ID";
+		}
+
+		@Override
+		public IStringExpression getSqlWhereClause()
+		{
+			return ConstantStringExpression.of("master.IsSOTrx='Y'");
+		}
+
+		@Override
+		public SqlEntityFieldBinding getFieldByFieldName(final String fieldName)
+		{
+			throw new IllegalArgumentException("No field found for " + fieldName);
+		}
+	};
+
+	private ViewEvaluationCtx viewEvalCtx;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		// Permissions which are not restricting the access SQL
+		final IUserRolePermissions permissions = Mockito.mock(IUserRolePermissions.class, invocation -> {
+			if ("addAccessSQL".equals(invocation.getMethod().getName()))
+			{
+				return invocation.getArguments()[0];
+			}
+			return Mockito.RETURNS_DEFAULTS.answer(invocation);
+		});
+		Services.registerService(IUserRolePermissionsDAO.class, Mockito.mock(IUserRolePermissionsDAO.class, invocation -> {
+			if (IUserRolePermissions.class.isAssignableFrom(invocation.getMethod().getReturnType()))
+			{
+				return permissions;
+			}
+			return Mockito.RETURNS_DEFAULTS.answer(invocation);
+		}));
+
+		final Properties ctx = Env.getCtx();
+		Env.setContext(ctx, Env.CTXNAME_AD_Language, "en_US");
+		Env.setContext(ctx, "#AD_Role_ID", 1000000);
+		Env.setContext(ctx, "#AD_User_ID", 100);
+		Env.setContext(ctx, "#AD_Client_ID", 1000000);
+		viewEvalCtx = ViewEvaluationCtx.of(ctx);
+	}
+
+	private static DocumentFilter sqlFilter(final String sqlWhereClause)
+	{
+		return DocumentFilter.builder()
+				.setFilterId("filter-" + sqlWhereClause)
+				.addParameter(DocumentFilterParam.ofSqlWhereClause(true, sqlWhereClause))
+				.build();
+	}
+
+	@Test
+	public void test_buildSqlCreateSelectionFromSelectionNarrowed()
+	{
+		final ViewId newViewId = ViewId.random(WindowId.of(143));
+		final List<Object> sqlParams = new ArrayList<>();
+		final String sql = SqlViewSelectionQueryBuilder.newInstance(ENTITY_BINDING)
+				.buildSqlCreateSelectionFromSelectionNarrowed(sqlParams, viewEvalCtx, newViewId, "fromSelectionId", ImmutableList.of(sqlFilter("master.DocStatus='CO'")));
+
+		// Driven by the selection we are narrowing, keeping its order
+		Assert.assertTrue(sql, sql.startsWith("INSERT INTO T_WEBUI_ViewSelection ( UUID, Line, Record_ID)"));
+		Assert.assertTrue(sql, sql.contains("row_number() OVER (ORDER BY sel.Line)"));
+		Assert.assertTrue(sql, sql.contains("INNER JOIN T_WEBUI_ViewSelection sel ON (sel.UUID=? AND sel.Record_ID=master.C_Order_ID)"));
+		Assert.assertEquals(Arrays.asList(newViewId.getViewId(), "fromSelectionId"), sqlParams);
+
+		// Only the added filters are applied; the entity where clause was already applied when the selection we are narrowing was created
+		Assert.assertTrue(sql, sql.contains("AND /* added filters */ ("));
+		Assert.assertTrue(sql, sql.contains("((master.DocStatus='CO'))"));
+		Assert.assertFalse(sql, sql.contains("IsSOTrx"));
+	}
+
+	@Test
+	public void test_buildSqlCreateSelectionFromSelectionNarrowed_FilterWithMultipleParameters()
+	{
+		final ViewId newViewId = ViewId.random(WindowId.of(143));
+		final List<Object> sqlParams = new ArrayList<>();
+		final DocumentFilter filterWithParams = DocumentFilter.builder()
+				.setFilterId("filterWithParams")
+				.addParameter(DocumentFilterParam.ofSqlWhereClause(true, "master.DocStatus='CO'"))
+				.addParameter(DocumentFilterParam.ofSqlWhereClause(true, "master.Processed='Y'"))
+				.build();
+
+		final String sql = SqlViewSelectionQueryBuilder.newInstance(ENTITY_BINDING)
+				.buildSqlCreateSelectionFromSelectionNarrowed(sqlParams, viewEvalCtx, newViewId, "fromSelectionId", ImmutableList.of(filterWithParams));
+
+		Assert.assertTrue(sql, sql.contains("((master.DocStatus='CO') AND (master.Processed='Y'))"));
+		Assert.assertEquals(Arrays.asList(newViewId.getViewId(), "fromSelectionId"), sqlParams);
+	}
+
+	@Test
+	public void test_buildSqlAddRowIdsFromSelection()
+	{
+		final List<Object> sqlParams = new ArrayList<>();
+		final String sql = SqlViewSelectionQueryBuilder.newInstance(ENTITY_BINDING)
+				.buildSqlAddRowIdsFromSelection(sqlParams, "selectionId", DocumentIdsSelection.ofIntSet(ImmutableSet.of(30, 10, 20)));
+
+		// The rowIds are bound as one parameter, keeping their order
+		Assert.assertTrue(sql, sql.contains("FROM unnest(?::integer[]) WITH ORDINALITY AS t(Record_ID, SeqNo)"));
+		Assert.assertFalse(sql, sql.contains("30"));
+		Assert.assertEquals(Arrays.asList("selectionId", "selectionId", "{30,10,20}", "selectionId", "selectionId"), sqlParams);
+
+		// Returns the new size
+		Assert.assertTrue(sql, sql.contains("RETURNING Record_ID"));
+		Assert.assertTrue(sql, sql.contains("SELECT (select count(1) from T_WEBUI_ViewSelection z where z.UUID=?) + (select count(1) from inserted)"));
+	}
+}
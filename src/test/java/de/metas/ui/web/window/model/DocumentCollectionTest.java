@@ -0,0 +1,158 @@
+package de.metas.ui.web.window.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.ui.web.window.model.DocumentCollection.AppliedRows;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Tests the partial failure handling of {@link DocumentCollection#forIncludedDocumentsWritable}, i.e. how the rows of a bulk PATCH are applied on root document copies.
+ *
+ * The root document copy is simulated by the list of rows which were applied on it.
+ */
+public class DocumentCollectionTest
+{
+	/** root document copies, in the order they were created */
+	private List<List<String>> rootDocumentCopies;
+	private Supplier<List<String>> rootDocumentCopySupplier;
+	/** failed rows, in the order they were reported */
+	private Map<String, Exception> failedRows;
+
+	@Before
+	public void init()
+	{
+		rootDocumentCopies = new ArrayList<>();
+		rootDocumentCopySupplier = () -> {
+			final List<String> rootDocumentCopy = new ArrayList<>();
+			rootDocumentCopies.add(rootDocumentCopy);
+			return rootDocumentCopy;
+		};
+		failedRows = new LinkedHashMap<>();
+	}
+
+	/** @return row applier which fails for given rows and else returns the row's included document (i.e. the upper case row) */
+	private static BiFunction<List<String>, String, String> rowApplierFailingFor(final Set<String> rowsToFail)
+	{
+		return (rootDocumentCopy, row) -> {
+			if (rowsToFail.contains(row))
+			{
+				throw new RuntimeException("failing " + row);
+			}
+			rootDocumentCopy.add(row);
+			return row.toUpperCase();
+		};
+	}
+
+	private AppliedRows<List<String>, String> applyRows(final List<String> rows, final BiFunction<List<String>, String, String> rowApplier)
+	{
+		return DocumentCollection.applyRowsSkippingFailed(rows, rootDocumentCopySupplier, rowApplier, failedRows::put);
+	}
+
+	@Test
+	public void test_NoFailures()
+	{
+		final AppliedRows<List<String>, String> appliedRows = applyRows(ImmutableList.of("a", "b", "c"), rowApplierFailingFor(ImmutableSet.of()));
+
+		Assert.assertEquals("one copy", 1, rootDocumentCopies.size());
+		Assert.assertEquals(Arrays.asList("a", "b", "c"), appliedRows.getRootDocument());
+		Assert.assertEquals(Arrays.asList("A", "B", "C"), appliedRows.getIncludedDocuments());
+		Assert.assertEquals(Collections.emptyMap(), failedRows);
+	}
+
+	@Test
+	public void test_SomeRowsFailing()
+	{
+		final AppliedRows<List<String>, String> appliedRows = applyRows(ImmutableList.of("a", "b", "c", "d"), rowApplierFailingFor(ImmutableSet.of("b", "d")));
+
+		// The first copy has partial changes, so it shall be discarded and the remaining rows shall be applied on a new one
+		Assert.assertEquals("copies", 2, rootDocumentCopies.size());
+		Assert.assertSame(rootDocumentCopies.get(1), appliedRows.getRootDocument());
+		Assert.assertEquals(Arrays.asList("a", "c"), appliedRows.getRootDocument());
+		Assert.assertEquals(Arrays.asList("A", "C"), appliedRows.getIncludedDocuments());
+
+		// Each failed row is reported once, in rows order, with its exception
+		Assert.assertEquals(Arrays.asList("b", "d"), new ArrayList<>(failedRows.keySet()));
+		Assert.assertEquals("failing b", failedRows.get("b").getMessage());
+		Assert.assertEquals("failing d", failedRows.get("d").getMessage());
+	}
+
+	@Test
+	public void test_RowFailingOnlyWithoutAnotherFailedRow()
+	{
+		// Row "c" works only if "b" was applied before on the same copy, but "b" is failing (after it was applied)
+		final BiFunction<List<String>, String, String> rowApplier = (rootDocumentCopy, row) -> {
+			if ("c".equals(row) && !rootDocumentCopy.contains("b"))
+			{
+				throw new RuntimeException("failing c without b");
+			}
+			rootDocumentCopy.add(row);
+			if ("b".equals(row))
+			{
+				throw new RuntimeException("failing b");
+			}
+			return row.toUpperCase();
+		};
+
+		final AppliedRows<List<String>, String> appliedRows = applyRows(ImmutableList.of("a", "b", "c"), rowApplier);
+
+		Assert.assertEquals("copies", 3, rootDocumentCopies.size());
+		Assert.assertEquals(Arrays.asList("a"), appliedRows.getRootDocument());
+		Assert.assertEquals(Arrays.asList("A"), appliedRows.getIncludedDocuments());
+		Assert.assertEquals(Arrays.asList("b", "c"), new ArrayList<>(failedRows.keySet()));
+	}
+
+	@Test
+	public void test_AllRowsFailing()
+	{
+		final AppliedRows<List<String>, String> appliedRows = applyRows(ImmutableList.of("a", "b"), rowApplierFailingFor(ImmutableSet.of("a", "b")));
+
+		Assert.assertNull("nothing to commit", appliedRows);
+		Assert.assertEquals("copies", 1, rootDocumentCopies.size());
+		Assert.assertEquals(Arrays.asList("a", "b"), new ArrayList<>(failedRows.keySet()));
+	}
+
+	@Test
+	public void test_NoRows()
+	{
+		final AppliedRows<List<String>, String> appliedRows = applyRows(ImmutableList.of(), rowApplierFailingFor(ImmutableSet.of()));
+
+		Assert.assertNull("nothing to commit", appliedRows);
+		Assert.assertEquals("no copies", 0, rootDocumentCopies.size());
+	}
+}
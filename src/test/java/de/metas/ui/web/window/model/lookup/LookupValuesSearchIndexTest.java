@@ -0,0 +1,75 @@
+package de.metas.ui.web.window.model.lookup;
+
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.metas.ui.web.window.datatypes.LookupValue.IntegerLookupValue;
+import de.metas.ui.web.window.datatypes.LookupValuesList;
+
+/*
+ * #%L
+ * metasfresh-webui-api
+ * %%
+ * Copyright (C) 2017 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class LookupValuesSearchIndexTest
+{
+	private LookupValuesList lookupValues;
+	private LookupValuesSearchIndex searchIndex;
+
+	@Before
+	public void init()
+	{
+		lookupValues = IntStream.rangeClosed(1, 500)
+				.mapToObj(id -> IntegerLookupValue.of(id, "Product " + id + (id % 7 == 0 ? " Special" : "")))
+				.collect(LookupValuesList.collect());
+		searchIndex = LookupValuesSearchIndex.of(lookupValues);
+	}
+
+	@Test
+	public void test_sameResultAsScanning()
+	{
+		assertSameResultAsScanning("p", 0, 10);
+		assertSameResultAsScanning("1", 0, 10);
+		assertSameResultAsScanning("12", 0, 1000);
+		assertSameResultAsScanning("product 1", 0, 10);
+		assertSameResultAsScanning("product 1", 5, 10);
+		assertSameResultAsScanning("PRODUCT 12", 0, 1000);
+		assertSameResultAsScanning(" special ", 0, 1000);
+		assertSameResultAsScanning("special", 10, 5);
+		assertSameResultAsScanning("uct 49", 0, 0);
+	}
+
+	@Test
+	public void test_noMatch()
+	{
+		Assert.assertTrue(searchIndex.findEntities("xyz", 0, 10).getValues().isEmpty());
+		Assert.assertTrue(searchIndex.findEntities("product 1000", 0, 10).getValues().isEmpty());
+	}
+
+	private void assertSameResultAsScanning(final String filter, final int offset, final int maxSize)
+	{
+		final LookupValuesList expected = lookupValues.filter(LookupValueFilterPredicates.of(filter), offset, maxSize);
+		final LookupValuesList actual = searchIndex.findEntities(filter, offset, maxSize);
+		Assert.assertEquals("filter=" + filter + ", offset=" + offset + ", maxSize=" + maxSize, expected, actual);
+	}
+}